@@ -17,4 +17,12 @@ public class JwtConfig {
     private String key;
     private Integer expireHour;
     private Integer refreshExpireDay;
+    /**
+     * 网关是否只按Token版本号在本地验证AccessToken，不再逐个请求与Redis中的Token比较
+     */
+    private Boolean epochValidation = false;
+    /**
+     * 网关本地缓存的Token版本号多久后重新从Redis读取（秒），用来弥补丢失的版本号变更通知
+     */
+    private Integer epochRefreshSeconds = 300;
 }
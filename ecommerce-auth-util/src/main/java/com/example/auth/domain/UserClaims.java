@@ -12,6 +12,10 @@ public class UserClaims {
     private Long userId;
     private Integer userPower;
     private Boolean isRefreshToken;
+    /**
+     * 签发时用户的Token版本号，用户登出或重新登陆后版本号增大，旧版本的Token失效
+     */
+    private Long epoch;
 
     /**
      * 将数据从HashMap转为UserClaims对象
@@ -21,6 +25,8 @@ public class UserClaims {
         this.userId = (Long) claims.get("userId");
         this.userPower = (Integer) claims.get("userPower");
         this.isRefreshToken = (Boolean) claims.get("isRefreshToken");
+        // 旧版本签发的Token没有epoch
+        this.epoch = claims.get("epoch") instanceof Number number ? number.longValue() : null;
     }
 
     /**
@@ -32,6 +38,9 @@ public class UserClaims {
         claims.put("userId", userId);
         claims.put("userPower", userPower);
         claims.put("isRefreshToken", isRefreshToken);
+        if (epoch != null) {
+            claims.put("epoch", epoch);
+        }
         return claims;
     }
 }
@@ -4,20 +4,61 @@ import com.example.common.exception.SystemException;
 import com.example.auth.config.JwtConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
  *     Redis工具类，用来存储用户登陆的Token
  * </p>
+ * <p>
+ *     同时维护每个用户的Token版本号（epoch），每次签发Token时版本号增大，并通过频道token-epoch通知各网关，
+ *     网关据此在本地判断Token是否已经失效
+ * </p>
+ * <p>
+ *     同一用户的各个键名都带有哈希标签{userId}，在Redis集群中位于同一个槽，签发和删除Token都用一个脚本一次完成
+ * </p>
  * @author vlsmb
  */
 @Component
 public class TokenRedisUtil {
 
+    /**
+     * Token版本号变更通知的频道，消息格式为"用户ID:版本号"
+     */
+    public static final String EPOCH_CHANNEL = "token-epoch";
+
+    /**
+     * 版本号取 max(当前版本号 + 1, 当前时间戳)，键过期后重新开始也不会比之前签发的版本号小，
+     * 更新后在脚本内发布通知
+     */
+    private static final String NEXT_EPOCH =
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+            "local epoch = math.max(current + 1, tonumber(ARGV[1])) " +
+            "redis.call('SET', KEYS[1], string.format('%d', epoch), 'EX', ARGV[2]) " +
+            "redis.call('PUBLISH', ARGV[3], ARGV[4] .. ':' .. string.format('%d', epoch)) ";
+
+    private static final RedisScript<Long> NEXT_EPOCH_SCRIPT = new DefaultRedisScript<>(
+            NEXT_EPOCH + "return epoch", Long.class);
+
+    /**
+     * 删除AccessToken和RefreshToken并增大版本号，KEYS依次为版本号、AccessToken、RefreshToken
+     */
+    private static final RedisScript<Long> REMOVE_TOKEN_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[2], KEYS[3]) " + NEXT_EPOCH + "return epoch", Long.class);
+
+    /**
+     * 同时写入AccessToken和RefreshToken，两者过期时间不同，KEYS依次为AccessToken、RefreshToken
+     */
+    private static final RedisScript<Long> ADD_TOKEN_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[4]) " +
+            "return 1", Long.class);
+
     @Autowired
     private StringRedisTemplate redisTemplate;
     @Autowired
@@ -29,7 +70,7 @@ public class TokenRedisUtil {
      * @return redisKey名
      */
     private String userIdToAccessKey(Long userId) {
-        return "access-token:" + userId;
+        return "access-token:{" + userId + "}";
     }
 
     /**
@@ -38,7 +79,16 @@ public class TokenRedisUtil {
      * @return redisKey名
      */
     private String userIdToRefreshKey(Long userId) {
-        return "refresh-token:" + userId;
+        return "refresh-token:{" + userId + "}";
+    }
+
+    /**
+     * 用户ID转为redis token版本号键名
+     * @param userId 用户ID
+     * @return redisKey名
+     */
+    private String userIdToEpochKey(Long userId) {
+        return "token-epoch:{" + userId + "}";
     }
 
     /**
@@ -48,9 +98,9 @@ public class TokenRedisUtil {
      * @param refreshToken 刷新token
      */
     public void addToken(Long userId, String accessToken, String refreshToken) {
-        ValueOperations<String, String> operations = redisTemplate.opsForValue();
-        operations.set(userIdToAccessKey(userId), accessToken, jwtConfig.getExpireHour(), TimeUnit.HOURS);
-        operations.set(userIdToRefreshKey(userId), refreshToken, jwtConfig.getRefreshExpireDay(), TimeUnit.DAYS);
+        redisTemplate.execute(ADD_TOKEN_SCRIPT, List.of(userIdToAccessKey(userId), userIdToRefreshKey(userId)),
+                accessToken, String.valueOf(TimeUnit.HOURS.toSeconds(jwtConfig.getExpireHour())),
+                refreshToken, String.valueOf(TimeUnit.DAYS.toSeconds(jwtConfig.getRefreshExpireDay())));
     }
 
     /**
@@ -58,8 +108,46 @@ public class TokenRedisUtil {
      * @param userId 用户ID
      */
     public void removeToken(Long userId) {
-        redisTemplate.delete(userIdToAccessKey(userId));
-        redisTemplate.delete(userIdToRefreshKey(userId));
+        // 同时增大版本号，让已经签发的Token在网关上立即失效
+        Long epoch = redisTemplate.execute(REMOVE_TOKEN_SCRIPT,
+                List.of(userIdToEpochKey(userId), userIdToAccessKey(userId), userIdToRefreshKey(userId)),
+                epochArgs(userId));
+        if (epoch == null) {
+            throw new SystemException("删除Token失败");
+        }
+    }
+
+    /**
+     * 增大某用户的Token版本号，之前签发的Token全部失效，并通知各网关
+     * @param userId 用户ID
+     * @return 新的版本号，签发Token时写入UserClaims
+     */
+    public long nextEpoch(Long userId) {
+        Long epoch = redisTemplate.execute(NEXT_EPOCH_SCRIPT, List.of(userIdToEpochKey(userId)), epochArgs(userId));
+        if (epoch == null) {
+            throw new SystemException("更新Token版本号失败");
+        }
+        return epoch;
+    }
+
+    /**
+     * 更新版本号脚本的参数：当前时间戳、过期秒数、通知频道、用户ID
+     */
+    private Object[] epochArgs(Long userId) {
+        // 版本号至少保留到RefreshToken过期
+        long ttlSeconds = TimeUnit.DAYS.toSeconds(jwtConfig.getRefreshExpireDay());
+        return new Object[]{String.valueOf(System.currentTimeMillis()), String.valueOf(ttlSeconds),
+                EPOCH_CHANNEL, String.valueOf(userId)};
+    }
+
+    /**
+     * 获得某用户当前的Token版本号
+     * @param userId 用户ID
+     * @return 版本号，没有记录时为0
+     */
+    public long getEpoch(Long userId) {
+        String epoch = redisTemplate.opsForValue().get(userIdToEpochKey(userId));
+        return epoch == null ? 0 : Long.parseLong(epoch);
     }
 
     /**
@@ -68,8 +156,7 @@ public class TokenRedisUtil {
      * @return accessToken
      */
     public String getAccessToken(Long userId) {
-        ValueOperations<String, String> operations = redisTemplate.opsForValue();
-        return operations.get(userIdToAccessKey(userId));
+        return redisTemplate.opsForValue().get(userIdToAccessKey(userId));
     }
 
     /**
@@ -78,7 +165,6 @@ public class TokenRedisUtil {
      * @return refreshToken
      */
     public String getRefreshToken(Long userId) {
-        ValueOperations<String, String> operations = redisTemplate.opsForValue();
-        return operations.get(userIdToRefreshKey(userId));
+        return redisTemplate.opsForValue().get(userIdToRefreshKey(userId));
     }
 }
@@ -0,0 +1,128 @@
+package com.example.cart.cache;
+
+import com.example.api.client.ProductClient;
+import com.example.api.domain.vo.product.ProductInfoVo;
+import com.example.cart.config.CartServiceConfig;
+import com.example.common.domain.ResponseResult;
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.SystemException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     购物车服务本地的商品信息缓存
+ * </p>
+ * 展示购物车时需要商品名称、价格和库存，缓存未命中的商品通过一次批量请求从商品服务获取，
+ * 缓存时间很短，只用于削减频繁刷新购物车带来的重复请求。
+ * 商品服务降级返回的过期数据只用于本次请求，不写入缓存，商品服务恢复后下次请求即可取得最新数据。
+ * 命中率通过Micrometer（cache.gets等指标，名称为cart-product-summary）和定时日志输出。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSummaryCache {
+
+    private static final String CACHE_NAME = "cart-product-summary";
+
+    private final ProductClient productClient;
+    private final CartServiceConfig cartServiceConfig;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private Cache<Long, ProductInfoVo> cache;
+
+    private ScheduledExecutorService statsExecutor;
+
+    @PostConstruct
+    public void init() {
+        CartServiceConfig.ProductCache config = cartServiceConfig.getProductCache();
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(config.getTtlSeconds()))
+                .maximumSize(config.getMaximumSize())
+                .recordStats()
+                .build();
+        meterRegistryProvider.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+
+        statsExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-product-cache-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getStatsLogIntervalSeconds();
+        statsExecutor.scheduleAtFixedRate(this::logStats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        statsExecutor.shutdownNow();
+    }
+
+    /**
+     * 批量获取商品信息，未命中的商品一次性从商品服务获取
+     * @param productIds 商品ID
+     * @return 商品ID -> 商品信息，不存在的商品不在结果中
+     * @throws SystemException 商品服务不可用
+     */
+    public Map<Long, ProductInfoVo> getProducts(Collection<Long> productIds) throws SystemException {
+        Map<Long, ProductInfoVo> products = new HashMap<>(cache.getAllPresent(productIds));
+        List<Long> missing = productIds.stream().distinct().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            products.putAll(loadProducts(missing));
+        }
+        return products;
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 按商品服务的单次查询上限分批获取，只缓存非过期的数据
+     */
+    private Map<Long, ProductInfoVo> loadProducts(List<Long> ids) {
+        Map<Long, ProductInfoVo> products = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += ProductClient.MAX_BATCH_QUERY_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + ProductClient.MAX_BATCH_QUERY_SIZE, ids.size()));
+            ResponseResult<List<ProductInfoVo>> response = productClient.getProductInfoByIds(new ArrayList<>(chunk));
+            if (response.getCode() != ResultCode.SUCCESS || response.getData() == null) {
+                throw new SystemException("批量获取商品信息失败：" + response.getMsg());
+            }
+            for (ProductInfoVo product : response.getData()) {
+                products.putIfAbsent(product.getId(), product);
+                if (!response.isStale()) {
+                    cache.put(product.getId(), product);
+                }
+            }
+        }
+        return products;
+    }
+
+    private void logStats() {
+        CacheStats stats = cache.stats();
+        log.info("商品信息缓存命中率：{}，命中{}次，未命中{}次，当前缓存{}个商品",
+                String.format("%.2f%%", stats.hitRate() * 100), stats.hitCount(), stats.missCount(),
+                cache.estimatedSize());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ *     购物车微服务的一些配置属性
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.cart-service")
+@Component
+public class CartServiceConfig {
+
+    /**
+     * 购物车存储方式：db直接读写数据库，redis以Redis为主存储并异步写回数据库
+     */
+    private String store = "db";
+
+    /**
+     * Redis存储方式的相关配置
+     */
+    private RedisStore redisStore = new RedisStore();
+
+    /**
+     * 本地商品信息缓存的相关配置
+     */
+    private ProductCache productCache = new ProductCache();
+
+    @Data
+    public static class RedisStore {
+        // 购物车在Redis中的过期时间（天），每次写入时刷新
+        private Integer expireDay = 7;
+        // 写回数据库的间隔（毫秒）
+        private Long writeBackIntervalMillis = 1000L;
+        // 每次写回的最大用户数
+        private Integer writeBackBatchSize = 100;
+    }
+
+    @Data
+    public static class ProductCache {
+        // 缓存的过期时间（秒），价格和库存允许在该时间内不是最新的
+        private Long ttlSeconds = 10L;
+        // 最多缓存的商品数量
+        private Long maximumSize = 10000L;
+        // 输出缓存命中率日志的间隔（秒）
+        private Long statsLogIntervalSeconds = 60L;
+    }
+}
@@ -3,17 +3,23 @@ package com.example.cart.consumer;
 import com.example.api.client.OrderClient;
 import com.example.api.domain.po.CartItem;
 import com.example.api.domain.vo.order.OrderInfoVo;
-import com.example.api.enums.OrderStatusEnum;
-import com.example.cart.service.ICartItemService;
+import com.example.cart.service.ICartService;
 import com.example.common.domain.ResponseResult;
 import com.example.common.domain.ResultCode;
+import com.example.common.domain.message.PayMessageVersion;
 import com.example.common.domain.message.PaySuccessMessage;
 import com.example.common.exception.SystemException;
+import com.example.common.mq.dedupe.MessageDeduplicator;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
@@ -22,27 +28,45 @@ import java.util.stream.Collectors;
 public class PaySuccessConsumer {
 
     private final OrderClient orderClient;
-    private final ICartItemService cartItemService;
+    private final ICartService cartService;
+    private final MessageDeduplicator messageDeduplicator;
 
     /**
      * 接听支付成功的消息，删去购物车项目
+     * V2及以上版本的消息直接携带购物车项目ID，旧版本消息回退到查询订单服务
      * @param message 消息
+     * @param messageId 消息ID，用于跳过重投的消息
      */
     @RabbitListener(queues = "pay.success.cart")
-    public void paySuccess(PaySuccessMessage message) {
+    public void paySuccess(PaySuccessMessage message,
+                           @Header(value = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
         String orderId = message.getOrderId();
         log.info("收到支付成功消息：{}", orderId);
-        log.error(message.toString());
+        messageDeduplicator.execute("pay.success.cart", messageId, () -> {
+            Collection<Long> cartItemIds;
+            if (PayMessageVersion.hasSnapshot(message.getVersion()) && message.getCartItemIds() != null) {
+                cartItemIds = new HashSet<>(message.getCartItemIds());
+            } else {
+                cartItemIds = getCartItemIdsFromOrder(orderId);
+            }
+            // 删除购物车信息
+            cartService.removeCartItems(cartItemIds);
+        });
+    }
+
+    /**
+     * 通过订单服务查询订单对应的购物车项目ID
+     * @param orderId 订单ID
+     * @return 购物车项目ID
+     */
+    private Set<Long> getCartItemIdsFromOrder(String orderId) {
         ResponseResult<OrderInfoVo> orderInfos = orderClient.getOrderById(orderId);
         if(orderInfos.getCode() != ResultCode.SUCCESS || orderInfos.getData() == null) {
             log.error("订单服务异常，无法进行清空购物车信息：{}", orderInfos.getMsg());
             throw new SystemException(orderInfos.getMsg());
         }
-        // 删除购物车信息
-        cartItemService.removeBatchByIds(
-            orderInfos.getData().getCartItems().stream()
-                    .map(CartItem::getCartItemId)
-                    .collect(Collectors.toSet())
-        );
+        return orderInfos.getData().getCartItems().stream()
+                .map(CartItem::getCartItemId)
+                .collect(Collectors.toSet());
     }
 }
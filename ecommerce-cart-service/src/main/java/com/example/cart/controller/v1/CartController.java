@@ -3,8 +3,8 @@ package com.example.cart.controller.v1;
 
 import com.example.api.domain.po.CartItem;
 import com.example.cart.domain.dto.AddItemDTO;
+import com.example.cart.domain.dto.AddItemsDTO;
 import com.example.cart.domain.vo.CartInfoVo;
-import com.example.cart.service.ICartItemService;
 import com.example.cart.service.ICartService;
 import com.example.common.domain.ResponseResult;
 import com.example.common.domain.ResultCode;
@@ -15,6 +15,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * <p>
  * 购物车信息数据库 前端控制器
@@ -30,7 +32,6 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final ICartService iCartService;
-    private final ICartItemService iCartItemService;
 
     @Operation(summary = "添加购物车")
     @PostMapping
@@ -39,6 +40,13 @@ public class CartController {
         return ResponseResult.success();
    }
 
+    @Operation(summary = "批量添加购物车")
+    @PostMapping("/batch")
+    public ResponseResult<Void> addCartItems(@RequestBody @Validated AddItemsDTO addItemsDTO){
+        iCartService.addCartItems(addItemsDTO);
+        return ResponseResult.success();
+    }
+
     @Operation(summary = "清空购物车")
     @DeleteMapping
     public ResponseResult<Void> deleteCartItem(){
@@ -63,7 +71,7 @@ public class CartController {
     @Operation(summary = "获得某个购物车商品ID和数量")
     @GetMapping("/items/{id}")
     public ResponseResult<CartItem> getCartItem(@PathVariable Long id) {
-        com.example.cart.domain.po.CartItem item = iCartItemService.getById(id);
+        com.example.cart.domain.po.CartItem item = iCartService.getCartItem(id);
         if(item == null) {
             throw new NotFoundException("不存在该cart-item");
         }
@@ -74,4 +82,16 @@ public class CartController {
                         .build());
     }
 
+    @Operation(summary = "批量获得购物车商品ID和数量")
+    @PostMapping("/items/batch")
+    public ResponseResult<List<CartItem>> getCartItems(@RequestBody List<Long> ids) {
+        return ResponseResult.success(iCartService.getCartItems(ids).stream()
+                .map(item -> CartItem.builder()
+                        .cartItemId(item.getId())
+                        .productId(item.getProductId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList());
+    }
+
 }
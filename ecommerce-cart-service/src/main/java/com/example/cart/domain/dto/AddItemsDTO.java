@@ -0,0 +1,21 @@
+package com.example.cart.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "批量添加购物车DTO")
+public class AddItemsDTO {
+
+    @NotEmpty(message = "至少要添加一种商品")
+    @Size(max = 100, message = "单次最多添加100种商品")
+    @Valid
+    @Schema(description = "添加的商品列表，相同商品的数量会合并")
+    private List<AddItemDTO> items;
+
+}
@@ -1,5 +1,6 @@
 package com.example.cart.domain.vo;
 
+import com.example.api.enums.ProductStatusEnum;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -29,6 +30,21 @@ public class CartItemInfo {
     @Schema(description = "状态（0待支付，1已支付，2已删除）")
     private Integer status;
 
+    @Schema(description = "商品名称，商品服务不可用时为空")
+    private String productName;
+
+    @Schema(description = "商品单价")
+    private Float price;
+
+    @Schema(description = "商品库存")
+    private Integer stock;
+
+    @Schema(description = "商家名称")
+    private String merchantName;
+
+    @Schema(description = "商品状态（0上架，1下架）")
+    private ProductStatusEnum productStatus;
+
     @Schema(description = "创建时间")
     private LocalDateTime createTime;
 
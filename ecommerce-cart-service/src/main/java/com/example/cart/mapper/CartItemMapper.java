@@ -4,7 +4,16 @@ import com.example.cart.domain.po.CartItem;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.common.cache.MybatisRedisCache;
 import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <p>
@@ -18,4 +27,55 @@ import org.apache.ibatis.annotations.Mapper;
 @CacheNamespace(implementation = MybatisRedisCache.class)
 public interface CartItemMapper extends BaseMapper<CartItem> {
 
+    /**
+     * 批量添加购物车物品，依赖(cart_id, product_id)唯一键：
+     * 购物车中已有该商品时累加数量，已被逻辑删除的物品恢复并使用新的数量
+     * @param list 物品列表，ID需要提前生成
+     * @return 影响的行数
+     */
+    @Insert("<script>" +
+            "insert into cart_item (id, product_id, quantity, status, create_time, update_time, cart_id) values " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.productId}, #{item.quantity}, 0, #{item.createTime}, #{item.updateTime}, #{item.cartId})" +
+            "</foreach>" +
+            " on duplicate key update " +
+            "quantity = if(status = 1, values(quantity), quantity + values(quantity)), " +
+            "status = 0, update_time = values(update_time)" +
+            "</script>")
+    int upsertAddQuantity(@Param("list") List<CartItem> list);
+
+    /**
+     * 批量写入购物车物品的最终数量（Redis购物车写回使用），依赖(cart_id, product_id)唯一键：
+     * 已存在的物品（包括被逻辑删除的）保留原来的ID，只更新数量并恢复，订单中引用的物品ID不会失效
+     * @param list 物品列表
+     * @return 影响的行数
+     */
+    @Insert("<script>" +
+            "insert into cart_item (id, product_id, quantity, status, create_time, update_time, cart_id) values " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.productId}, #{item.quantity}, 0, #{item.createTime}, #{item.updateTime}, #{item.cartId})" +
+            "</foreach>" +
+            " on duplicate key update " +
+            "quantity = values(quantity), status = 0, update_time = values(update_time)" +
+            "</script>")
+    int upsertSetQuantity(@Param("list") List<CartItem> list);
+
+    /**
+     * 查询购物车中的物品，包括被逻辑删除的
+     * @param cartIds 购物车ID
+     * @return 物品列表
+     */
+    @Select("<script>" +
+            "select id, product_id, quantity, status, create_time, update_time, cart_id from cart_item where cart_id in " +
+            "<foreach collection='cartIds' item='cartId' open='(' separator=',' close=')'>#{cartId}</foreach>" +
+            "</script>")
+    @Options(useCache = false)
+    List<CartItem> selectByCartIdsWithDeleted(@Param("cartIds") Collection<Long> cartIds);
+
+    /**
+     * 按ID更新物品数量，被逻辑删除的物品同时恢复
+     * @return 影响的行数
+     */
+    @Update("update cart_item set quantity = #{quantity}, status = 0, update_time = #{updateTime} where id = #{id}")
+    int restoreById(@Param("id") Long id, @Param("quantity") Integer quantity, @Param("updateTime") LocalDateTime updateTime);
 }
@@ -1,10 +1,15 @@
 package com.example.cart.service;
 
 import com.example.cart.domain.dto.AddItemDTO;
+import com.example.cart.domain.dto.AddItemsDTO;
 import com.example.cart.domain.po.Cart;
+import com.example.cart.domain.po.CartItem;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.example.cart.domain.vo.CartInfoVo;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * <p>
  * 购物车信息数据库 服务类
@@ -18,9 +23,21 @@ public interface ICartService extends IService<Cart> {
     //添加购物车
     void addCart(AddItemDTO addItemDTO);
 
+    //批量添加购物车
+    void addCartItems(AddItemsDTO addItemsDTO);
+
     //清空购物车商品
     Boolean deleteCartItem();
 
     //获取购物车信息
     CartInfoVo getCartInfo();
+
+    //根据购物车物品ID获取物品，不存在时返回null
+    CartItem getCartItem(Long cartItemId);
+
+    //根据购物车物品ID批量获取物品，不存在的物品不会出现在结果中
+    List<CartItem> getCartItems(Collection<Long> cartItemIds);
+
+    //根据购物车物品ID批量删除物品（支付成功后调用）
+    void removeCartItems(Collection<Long> cartItemIds);
 }
@@ -1,16 +1,19 @@
 package com.example.cart.service.impl;
 
+import com.example.api.batch.BatchLoader;
 import com.example.api.client.ProductClient;
 import com.example.api.domain.vo.product.ProductInfoVo;
 import com.example.api.enums.ProductStatusEnum;
+import com.example.cart.cache.ProductSummaryCache;
 import com.example.cart.domain.dto.AddItemDTO;
+import com.example.cart.domain.dto.AddItemsDTO;
 import com.example.cart.domain.po.Cart;
 import com.example.cart.domain.po.CartItem;
 import com.example.cart.domain.vo.CartInfoVo;
 import com.example.cart.domain.vo.CartItemInfo;
 import com.example.cart.mapper.CartMapper;
-import com.example.cart.service.ICartItemService;
 import com.example.cart.service.ICartService;
+import com.example.cart.store.CartStore;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.common.domain.ResponseResult;
 import com.example.common.domain.ResultCode;
@@ -22,10 +25,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,76 +47,73 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements ICartService {
 
-    private final ICartItemService iCartItemService;
+    private final CartStore cartStore;
+    private final ProductSummaryCache productSummaryCache;
     private final ProductClient productClient;
+    private final BatchLoader<Long, ProductInfoVo> productInfoLoader;
 
     //添加购物车
-    @Transactional
     @Override
     public void addCart(AddItemDTO addItemDTO) {
 
         //判断用户是否登录
         Long userId = UserContextUtil.getUserId();
 
-        //判断是否是第一次添加购物车,条件是用户id和购物车未结算的购物车
-        Cart cart = this.lambdaQuery().eq(Cart::getUserId, userId).one();
-        //如果是第一次添加购物车，创建购物车
-        if(cart == null){
-            cart = new Cart();
-            cart.setUserId(userId);
-            cart.setStatus(0);
-            cart.setCreateTime(LocalDateTime.now());
-            cart.setUpdateTime(LocalDateTime.now());
-            this.save(cart);
-        }
-
         //判断商品是否有货,以及商品是否下架
-        ResponseResult<ProductInfoVo> productInfoById = productClient.getProductInfoById(addItemDTO.getProductId());
-        if(productInfoById.getCode() != ResultCode.SUCCESS || productInfoById.getData() == null) {
-            throw new UserException(productInfoById.getCode(), productInfoById.getMsg());
+        //并发的加购请求通过productInfoLoader合并为一次批量查询
+        ProductInfoVo product = productInfoLoader.get(addItemDTO.getProductId());
+        if(product == null) {
+            throw new NotFoundException("商品不存在");
         }
-        if(productInfoById.getData().getStatus() != ProductStatusEnum.PUT_ON) {
+        if(product.getStatus() != ProductStatusEnum.PUT_ON) {
             throw new BadRequestException("商品未上架");
         }
-        if(productInfoById.getData().getStock() < addItemDTO.getQuantity()) {
+        if(product.getStock() < addItemDTO.getQuantity()) {
             throw new BadRequestException("商品存货不足");
         }
 
-        //判断购物车中是否已经有该商品,如果有，则更新数量，如果没有，则添加商品
-        CartItem cartItem = iCartItemService.lambdaQuery()
-                .eq(CartItem::getProductId, addItemDTO.getProductId())
-                .eq(CartItem::getCartId, cart.getId())
-                .one();
-        if(cartItem != null){
-            //更新数量
-            cartItem.setQuantity(cartItem.getQuantity()+addItemDTO.getQuantity());
-            iCartItemService.updateById(cartItem);
-        } else {
-            //添加商品
-            CartItem cartItem1 = new CartItem();
-            BeanUtils.copyProperties(addItemDTO,cartItem1);
-            cartItem1.setCartId(cart.getId());
-            cartItem1.setCreateTime(LocalDateTime.now());
-            cartItem1.setUpdateTime(LocalDateTime.now());
-            iCartItemService.save(cartItem1);
+        //购物车不存在时自动创建，已有该商品时累加数量
+        cartStore.addItems(userId, Map.of(addItemDTO.getProductId(), addItemDTO.getQuantity()));
+    }
+
+    //批量添加购物车
+    @Override
+    public void addCartItems(AddItemsDTO addItemsDTO) {
+        Long userId = UserContextUtil.getUserId();
+
+        //合并相同商品的数量
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        addItemsDTO.getItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+
+        //一次批量查询校验所有商品是否有货,以及商品是否下架
+        ResponseResult<List<ProductInfoVo>> productInfos = productClient.getProductInfoByIds(new ArrayList<>(quantities.keySet()));
+        if(productInfos.getCode() != ResultCode.SUCCESS || productInfos.getData() == null) {
+            throw new UserException(productInfos.getCode(), productInfos.getMsg());
         }
+        Map<Long, ProductInfoVo> products = productInfos.getData().stream()
+                .collect(Collectors.toMap(ProductInfoVo::getId, Function.identity()));
+        quantities.forEach((productId, quantity) -> {
+            ProductInfoVo product = products.get(productId);
+            if(product == null) {
+                throw new NotFoundException("商品不存在：" + productId);
+            }
+            if(product.getStatus() != ProductStatusEnum.PUT_ON) {
+                throw new BadRequestException("商品未上架：" + product.getName());
+            }
+            if(product.getStock() < quantity) {
+                throw new BadRequestException("商品存货不足：" + product.getName());
+            }
+        });
+
+        cartStore.addItems(userId, quantities);
     }
 
     //清空购物车商品
-    @Transactional
     @Override
     public Boolean deleteCartItem() {
         //获取用户id
         Long userId= UserContextUtil.getUserId();
-
-        //查询购物车表获取购物车id
-        Cart cart = this.lambdaQuery().eq(Cart::getUserId, userId).one();
-        if(cart == null) {
-            return false;
-        }
-        return iCartItemService.lambdaUpdate()
-                .eq(CartItem::getCartId, cart.getId())
-                .remove();
+        return cartStore.clearItems(userId);
     }
 
     //获取购物车信息
@@ -118,9 +121,7 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements IC
     public CartInfoVo getCartInfo() {
         Long userId= UserContextUtil.getUserId();
         //获取购物车信息
-        Cart cart = this.lambdaQuery()
-                .eq(Cart::getUserId, userId)
-                .one();
+        Cart cart = cartStore.getCart(userId);
         CartInfoVo cartInfoVo = new CartInfoVo();
 
         if(cart != null){
@@ -129,14 +130,30 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements IC
             cartInfoVo.setStatus(cart.getStatus());
             cartInfoVo.setCreateTime(cart.getCreateTime());
             cartInfoVo.setUpdateTime(cart.getUpdateTime());
-            List<CartItem> list = iCartItemService.lambdaQuery()
-                    .eq(CartItem::getCartId, cart.getId())
-                    .list();
+            List<CartItem> list = cartStore.listItems(cart);
+            //一次批量获取所有商品的名称、价格和库存，商品服务不可用时只返回购物车本身的信息
+            Map<Long, ProductInfoVo> products = Map.of();
+            if(!list.isEmpty()) {
+                try {
+                    products = productSummaryCache.getProducts(list.stream().map(CartItem::getProductId).toList());
+                } catch (Exception e) {
+                    log.warn("获取购物车商品信息失败：{}", e.getMessage());
+                }
+            }
             //封装商品信息到c
+            Map<Long, ProductInfoVo> productMap = products;
             List<CartItemInfo> cartItemInfoList = list.stream()
                     .map(item -> {
                         CartItemInfo info = new CartItemInfo();
                         BeanUtils.copyProperties(item, info); // 拷贝同名属性
+                        ProductInfoVo product = productMap.get(item.getProductId());
+                        if(product != null) {
+                            info.setProductName(product.getName());
+                            info.setPrice(product.getPrice());
+                            info.setStock(product.getStock());
+                            info.setMerchantName(product.getMerchantName());
+                            info.setProductStatus(product.getStatus());
+                        }
                         return info;
                     })
                     .collect(Collectors.toList());
@@ -146,4 +163,25 @@ public class CartServiceImpl extends ServiceImpl<CartMapper, Cart> implements IC
             throw new NotFoundException("该用户还没有购物车信息");
         }
     }
+
+    //根据购物车物品ID获取物品
+    @Override
+    public CartItem getCartItem(Long cartItemId) {
+        return cartStore.getItem(cartItemId);
+    }
+
+    //根据购物车物品ID批量获取物品
+    @Override
+    public List<CartItem> getCartItems(Collection<Long> cartItemIds) {
+        if (cartItemIds == null || cartItemIds.isEmpty()) {
+            return List.of();
+        }
+        return cartStore.getItems(cartItemIds);
+    }
+
+    //根据购物车物品ID批量删除物品
+    @Override
+    public void removeCartItems(Collection<Long> cartItemIds) {
+        cartStore.removeItems(cartItemIds);
+    }
 }
@@ -0,0 +1,67 @@
+package com.example.cart.store;
+
+import com.example.cart.domain.po.Cart;
+import com.example.cart.domain.po.CartItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *     购物车存储，由ecommerce.cart-service.store选择实现
+ * </p>
+ * <ul>
+ *     <li>db：直接读写db_cart数据库</li>
+ *     <li>redis：每个用户的购物车保存在Redis哈希中，由后台任务批量写回db_cart</li>
+ * </ul>
+ */
+public interface CartStore {
+
+    /**
+     * 获取用户的购物车
+     * @param userId 用户ID
+     * @return 购物车，不存在时返回null
+     */
+    Cart getCart(Long userId);
+
+    /**
+     * 向用户的购物车中添加商品，购物车不存在时自动创建，已有的商品累加数量
+     * @param userId 用户ID
+     * @param quantities 商品ID -> 增加的数量
+     */
+    void addItems(Long userId, Map<Long, Integer> quantities);
+
+    /**
+     * 获取购物车中的商品
+     * @param cart 购物车
+     */
+    List<CartItem> listItems(Cart cart);
+
+    /**
+     * 清空用户购物车中的商品
+     * @param userId 用户ID
+     * @return 用户没有购物车时返回false
+     */
+    boolean clearItems(Long userId);
+
+    /**
+     * 根据购物车物品ID获取物品
+     * @param cartItemId 购物车物品ID
+     * @return 物品，不存在时返回null
+     */
+    CartItem getItem(Long cartItemId);
+
+    /**
+     * 根据购物车物品ID批量获取物品
+     * @param cartItemIds 购物车物品ID
+     * @return 物品，不存在的物品不会出现在结果中
+     */
+    List<CartItem> getItems(Collection<Long> cartItemIds);
+
+    /**
+     * 根据购物车物品ID批量删除物品（支付成功后调用）
+     * @param cartItemIds 购物车物品ID
+     */
+    void removeItems(Collection<Long> cartItemIds);
+}
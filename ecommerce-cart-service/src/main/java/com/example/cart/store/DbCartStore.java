@@ -0,0 +1,101 @@
+package com.example.cart.store;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.cart.domain.po.Cart;
+import com.example.cart.domain.po.CartItem;
+import com.example.cart.mapper.CartItemMapper;
+import com.example.cart.mapper.CartMapper;
+import com.example.cart.service.ICartItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 直接读写db_cart数据库的购物车存储（默认）
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ecommerce.cart-service", name = "store", havingValue = "db", matchIfMissing = true)
+public class DbCartStore implements CartStore {
+
+    private final CartMapper cartMapper;
+    private final CartItemMapper cartItemMapper;
+    private final ICartItemService iCartItemService;
+
+    @Override
+    public Cart getCart(Long userId) {
+        return cartMapper.selectOne(new LambdaQueryWrapper<Cart>().eq(Cart::getUserId, userId));
+    }
+
+    @Transactional
+    @Override
+    public void addItems(Long userId, Map<Long, Integer> quantities) {
+        //判断是否是第一次添加购物车,条件是用户id和购物车未结算的购物车
+        Cart cart = getCart(userId);
+        //如果是第一次添加购物车，创建购物车
+        if(cart == null){
+            cart = new Cart();
+            cart.setUserId(userId);
+            cart.setStatus(0);
+            cart.setCreateTime(LocalDateTime.now());
+            cart.setUpdateTime(LocalDateTime.now());
+            cartMapper.insert(cart);
+        }
+
+        //一条多行upsert语句添加所有商品，已有的商品累加数量，避免并发添加时产生重复记录
+        LocalDateTime now = LocalDateTime.now();
+        Long cartId = cart.getId();
+        List<CartItem> items = quantities.entrySet().stream()
+                .map(entry -> new CartItem()
+                        .setId(IdWorker.getId())
+                        .setProductId(entry.getKey())
+                        .setQuantity(entry.getValue())
+                        .setCartId(cartId)
+                        .setCreateTime(now)
+                        .setUpdateTime(now))
+                .toList();
+        cartItemMapper.upsertAddQuantity(items);
+    }
+
+    @Override
+    public List<CartItem> listItems(Cart cart) {
+        return iCartItemService.lambdaQuery()
+                .eq(CartItem::getCartId, cart.getId())
+                .list();
+    }
+
+    @Transactional
+    @Override
+    public boolean clearItems(Long userId) {
+        //查询购物车表获取购物车id
+        Cart cart = getCart(userId);
+        if(cart == null) {
+            return false;
+        }
+        return iCartItemService.lambdaUpdate()
+                .eq(CartItem::getCartId, cart.getId())
+                .remove();
+    }
+
+    @Override
+    public CartItem getItem(Long cartItemId) {
+        return iCartItemService.getById(cartItemId);
+    }
+
+    @Override
+    public List<CartItem> getItems(Collection<Long> cartItemIds) {
+        return iCartItemService.listByIds(cartItemIds);
+    }
+
+    @Override
+    public void removeItems(Collection<Long> cartItemIds) {
+        iCartItemService.removeBatchByIds(cartItemIds);
+    }
+}
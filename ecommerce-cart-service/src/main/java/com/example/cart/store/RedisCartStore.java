@@ -0,0 +1,532 @@
+package com.example.cart.store;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.cart.config.CartServiceConfig;
+import com.example.cart.domain.po.Cart;
+import com.example.cart.domain.po.CartItem;
+import com.example.cart.mapper.CartItemMapper;
+import com.example.cart.mapper.CartMapper;
+import com.example.cart.service.ICartItemService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     以Redis为主存储的购物车
+ * </p>
+ * 每个用户的购物车保存在一个Redis哈希中（商品ID -> 数量与物品信息），增删改查均为O(1)的哈希操作；
+ * 发生变化的用户ID记录在脏集合中，由后台任务批量对账写回db_cart。
+ * Redis中没有某个用户的购物车时从数据库加载，之后以Redis为准。
+ * <ul>
+ *     <li>cart:{userId}:meta 购物车信息</li>
+ *     <li>cart:{userId}:items 哈希，q:商品ID -> 数量，i:商品ID -> 购物车物品信息</li>
+ *     <li>cart:item:物品ID -> "用户ID:商品ID"，用于按购物车物品ID查找，与购物车一起续期</li>
+ *     <li>cart:dirty-users 待写回数据库的用户ID集合</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "ecommerce.cart-service", name = "store", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    private static final String DIRTY_KEY = "cart:dirty-users";
+    private static final String INDEX_KEY_PREFIX = "cart:item:";
+    private static final String QUANTITY_FIELD_PREFIX = "q:";
+    private static final String ITEM_FIELD_PREFIX = "i:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CartMapper cartMapper;
+    private final CartItemMapper cartItemMapper;
+    private final ICartItemService iCartItemService;
+    private final TransactionTemplate transactionTemplate;
+    private final CartServiceConfig cartServiceConfig;
+
+    private ScheduledExecutorService writeBackExecutor;
+
+    @PostConstruct
+    public void start() {
+        long interval = cartServiceConfig.getRedisStore().getWriteBackIntervalMillis();
+        writeBackExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-back");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeBackExecutor.scheduleWithFixedDelay(this::writeBack, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writeBackExecutor.shutdown();
+        try {
+            if (writeBackExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                // 退出前把剩余的改动写回
+                writeBack();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Cart getCart(Long userId) {
+        Object meta = redisTemplate.opsForValue().get(metaKey(userId));
+        if (meta instanceof Cart cart) {
+            return cart;
+        }
+        return loadFromDatabase(userId);
+    }
+
+    @Override
+    public void addItems(Long userId, Map<Long, Integer> quantities) {
+        Cart cart = getCart(userId);
+        if (cart == null) {
+            // 第一次添加购物车，购物车记录由写回任务插入数据库
+            Cart newCart = new Cart()
+                    .setId(IdWorker.getId())
+                    .setUserId(userId)
+                    .setStatus(0)
+                    .setCreateTime(LocalDateTime.now())
+                    .setUpdateTime(LocalDateTime.now());
+            redisTemplate.opsForValue().setIfAbsent(metaKey(userId), newCart, expire());
+            cart = (Cart) redisTemplate.opsForValue().get(metaKey(userId));
+        }
+
+        HashOperations<String, String, Object> hashOps = redisTemplate.opsForHash();
+        String itemsKey = itemsKey(userId);
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            Long quantity = hashOps.increment(itemsKey, QUANTITY_FIELD_PREFIX + productId, entry.getValue());
+            if (quantity != null && quantity.intValue() == entry.getValue()) {
+                // 购物车中原本没有该商品
+                CartItem cartItem = new CartItem()
+                        .setId(IdWorker.getId())
+                        .setProductId(productId)
+                        .setCartId(cart.getId())
+                        .setStatus(0)
+                        .setCreateTime(LocalDateTime.now())
+                        .setUpdateTime(LocalDateTime.now());
+                if (Boolean.TRUE.equals(hashOps.putIfAbsent(itemsKey, ITEM_FIELD_PREFIX + productId, cartItem))) {
+                    redisTemplate.opsForValue().set(indexKey(cartItem.getId()), userId + ":" + productId, expire());
+                }
+            }
+        }
+        touch(userId);
+        markDirty(userId);
+    }
+
+    @Override
+    public List<CartItem> listItems(Cart cart) {
+        return readItems(cart.getUserId());
+    }
+
+    @Override
+    public boolean clearItems(Long userId) {
+        if (getCart(userId) == null) {
+            return false;
+        }
+        List<CartItem> items = readItems(userId);
+        if (items.isEmpty()) {
+            return false;
+        }
+        redisTemplate.delete(items.stream().map(item -> indexKey(item.getId())).toList());
+        redisTemplate.delete(itemsKey(userId));
+        markDirty(userId);
+        return true;
+    }
+
+    @Override
+    public CartItem getItem(Long cartItemId) {
+        Object index = redisTemplate.opsForValue().get(indexKey(cartItemId));
+        if (index != null) {
+            String[] parts = index.toString().split(":");
+            return readItem(Long.parseLong(parts[0]), Long.parseLong(parts[1]), cartItemId);
+        }
+        // 索引不存在：如果该用户的购物车没有加载到Redis，则以数据库为准
+        CartItem dbItem = iCartItemService.getById(cartItemId);
+        if (dbItem == null || filterNotLoaded(List.of(dbItem)).isEmpty()) {
+            return null;
+        }
+        return dbItem;
+    }
+
+    @Override
+    public List<CartItem> getItems(Collection<Long> cartItemIds) {
+        List<Long> notInRedis = new ArrayList<>();
+        List<ItemRef> refs = lookupIndexes(cartItemIds, notInRedis);
+        List<CartItem> items = new ArrayList<>(readItems(refs).stream().filter(Objects::nonNull).toList());
+        if (!notInRedis.isEmpty()) {
+            // 与getItem相同，只有购物车没有加载到Redis时才以数据库为准
+            items.addAll(filterNotLoaded(iCartItemService.listByIds(notInRedis)));
+        }
+        return items;
+    }
+
+    @Override
+    public void removeItems(Collection<Long> cartItemIds) {
+        List<Long> notInRedis = new ArrayList<>();
+        List<ItemRef> refs = lookupIndexes(cartItemIds, notInRedis);
+        if (!refs.isEmpty()) {
+            List<CartItem> items = readItems(refs);
+            // 同一商品被删除后重新加入时物品ID会变化，只删除ID一致的物品
+            List<ItemRef> found = new ArrayList<>();
+            for (int i = 0; i < refs.size(); i++) {
+                if (items.get(i) != null) {
+                    found.add(refs.get(i));
+                }
+            }
+            if (!found.isEmpty()) {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        found.forEach(ref -> operations.opsForHash().delete(itemsKey(ref.userId()),
+                                QUANTITY_FIELD_PREFIX + ref.productId(), ITEM_FIELD_PREFIX + ref.productId()));
+                        return null;
+                    }
+                });
+                redisTemplate.opsForSet().add(DIRTY_KEY, found.stream().map(ItemRef::userId).distinct().toArray());
+            }
+            redisTemplate.delete(refs.stream().map(ref -> indexKey(ref.cartItemId())).toList());
+        }
+        if (notInRedis.isEmpty()) {
+            return;
+        }
+        // 购物车没有加载到Redis的物品直接从数据库删除
+        List<Long> dbItemIds = filterNotLoaded(iCartItemService.listByIds(notInRedis)).stream()
+                .map(CartItem::getId)
+                .toList();
+        if (!dbItemIds.isEmpty()) {
+            iCartItemService.removeBatchByIds(dbItemIds);
+        }
+    }
+
+    /**
+     * 从脏集合中取出一批用户，把他们的购物车与数据库对账后写回
+     * 写回失败时把用户ID放回脏集合，下次重试
+     */
+    private void writeBack() {
+        try {
+            List<Object> popped = redisTemplate.opsForSet().pop(DIRTY_KEY,
+                    cartServiceConfig.getRedisStore().getWriteBackBatchSize());
+            if (popped == null || popped.isEmpty()) {
+                return;
+            }
+            List<Long> userIds = popped.stream().map(o -> ((Number) o).longValue()).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> syncToDatabase(userIds));
+            } catch (Exception e) {
+                log.error("购物车写回数据库失败，稍后重试：{}", userIds, e);
+                redisTemplate.opsForSet().add(DIRTY_KEY, popped.toArray());
+            }
+        } catch (Exception e) {
+            log.error("购物车写回任务异常", e);
+        }
+    }
+
+    private void syncToDatabase(List<Long> userIds) {
+        Map<Long, Cart> carts = new HashMap<>();
+        List<CartItem> redisItems = new ArrayList<>();
+        for (Long userId : userIds) {
+            Object meta = redisTemplate.opsForValue().get(metaKey(userId));
+            if (meta instanceof Cart cart) {
+                carts.put(cart.getId(), cart);
+                redisItems.addAll(readItems(userId));
+            }
+        }
+        if (carts.isEmpty()) {
+            return;
+        }
+
+        // 插入数据库中还不存在的购物车
+        Set<Long> existedCartIds = new HashSet<>();
+        cartMapper.selectBatchIds(carts.keySet()).forEach(cart -> existedCartIds.add(cart.getId()));
+        carts.values().stream()
+                .filter(cart -> !existedCartIds.contains(cart.getId()))
+                .forEach(cartMapper::insert);
+
+        // 对账：Redis中有而数据库中没有的插入，数量不一致的更新，数据库中多余的删除
+        // 数据库中已有同一商品的记录（包括被逻辑删除的）时沿用该记录的ID，不修改主键，订单中引用的物品ID保持有效
+        Map<Long, CartItem> dbItems = new HashMap<>();
+        Map<String, CartItem> dbItemsByProduct = new HashMap<>();
+        for (CartItem dbItem : cartItemMapper.selectByCartIdsWithDeleted(carts.keySet())) {
+            dbItems.put(dbItem.getId(), dbItem);
+            dbItemsByProduct.put(dbItem.getCartId() + ":" + dbItem.getProductId(), dbItem);
+        }
+        List<CartItem> toInsert = new ArrayList<>();
+        List<CartItem> toUpdate = new ArrayList<>();
+        for (CartItem item : redisItems) {
+            CartItem dbItem = dbItems.remove(item.getId());
+            if (dbItem == null) {
+                CartItem existed = dbItemsByProduct.get(item.getCartId() + ":" + item.getProductId());
+                if (existed != null) {
+                    dbItems.remove(existed.getId());
+                    Long userId = carts.get(item.getCartId()).getUserId();
+                    if (!adoptItemId(userId, item, existed.getId())) {
+                        // 物品在Redis中被并发修改，下次写回时再对账
+                        markDirty(userId);
+                        continue;
+                    }
+                    dbItem = existed;
+                }
+            }
+            if (dbItem == null) {
+                toInsert.add(item);
+            } else if (dbItem.getStatus() != 0) {
+                cartItemMapper.restoreById(dbItem.getId(), item.getQuantity(), LocalDateTime.now());
+            } else if (!dbItem.getQuantity().equals(item.getQuantity())) {
+                toUpdate.add(new CartItem()
+                        .setId(dbItem.getId())
+                        .setQuantity(item.getQuantity())
+                        .setUpdateTime(LocalDateTime.now()));
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            // 并发写入时仍可能违反(cart_id, product_id)唯一键，upsert保留已有记录的ID，下次写回时改用该ID
+            cartItemMapper.upsertSetQuantity(toInsert);
+        }
+        if (!toUpdate.isEmpty()) {
+            iCartItemService.updateBatchById(toUpdate);
+        }
+        List<Long> toRemove = dbItems.values().stream()
+                .filter(dbItem -> dbItem.getStatus() == 0)
+                .map(CartItem::getId)
+                .toList();
+        if (!toRemove.isEmpty()) {
+            iCartItemService.removeBatchByIds(toRemove);
+        }
+    }
+
+    /**
+     * 把Redis中的物品ID改为数据库中同一商品已有记录的ID，并更新物品索引
+     * 用WATCH保证期间物品没有被删除或替换
+     * @return 物品已被并发修改时返回false
+     */
+    private boolean adoptItemId(Long userId, CartItem item, Long dbItemId) {
+        String itemsKey = itemsKey(userId);
+        String field = ITEM_FIELD_PREFIX + item.getProductId();
+        List<Object> result = redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.watch(itemsKey);
+                Object current = operations.opsForHash().get(itemsKey, field);
+                if (!(current instanceof CartItem currentItem) || !currentItem.getId().equals(item.getId())) {
+                    operations.unwatch();
+                    return null;
+                }
+                operations.multi();
+                operations.opsForHash().put(itemsKey, field, currentItem.setId(dbItemId));
+                return operations.exec();
+            }
+        });
+        if (result == null || result.isEmpty()) {
+            return false;
+        }
+        redisTemplate.opsForValue().set(indexKey(dbItemId), userId + ":" + item.getProductId(), expire());
+        redisTemplate.delete(indexKey(item.getId()));
+        item.setId(dbItemId);
+        return true;
+    }
+
+    /**
+     * Redis中没有该用户的购物车时从数据库加载
+     * 物品使用HSETNX写入，不会覆盖并发请求已经写入Redis的数据
+     */
+    private Cart loadFromDatabase(Long userId) {
+        Cart cart = cartMapper.selectOne(new LambdaQueryWrapper<Cart>().eq(Cart::getUserId, userId));
+        if (cart == null) {
+            return null;
+        }
+        HashOperations<String, String, Object> hashOps = redisTemplate.opsForHash();
+        String itemsKey = itemsKey(userId);
+        List<CartItem> items = iCartItemService.lambdaQuery().eq(CartItem::getCartId, cart.getId()).list();
+        for (CartItem item : items) {
+            hashOps.putIfAbsent(itemsKey, QUANTITY_FIELD_PREFIX + item.getProductId(), item.getQuantity());
+            hashOps.putIfAbsent(itemsKey, ITEM_FIELD_PREFIX + item.getProductId(), item.setQuantity(null));
+            redisTemplate.opsForValue().set(indexKey(item.getId()), userId + ":" + item.getProductId(), expire());
+        }
+        redisTemplate.opsForValue().setIfAbsent(metaKey(userId), cart, expire());
+        touch(userId);
+        Object meta = redisTemplate.opsForValue().get(metaKey(userId));
+        return meta instanceof Cart loaded ? loaded : cart;
+    }
+
+    private List<CartItem> readItems(Long userId) {
+        Map<String, Object> entries = redisTemplate.<String, Object>opsForHash().entries(itemsKey(userId));
+        List<CartItem> items = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            if (field.startsWith(ITEM_FIELD_PREFIX) && value instanceof CartItem item) {
+                Object quantity = entries.get(QUANTITY_FIELD_PREFIX + field.substring(ITEM_FIELD_PREFIX.length()));
+                if (quantity instanceof Number number) {
+                    items.add(item.setQuantity(number.intValue()));
+                }
+            }
+        });
+        items.sort(Comparator.comparing(CartItem::getCreateTime));
+        return items;
+    }
+
+    private CartItem readItem(Long userId, Long productId, Long cartItemId) {
+        List<Object> values = redisTemplate.<String, Object>opsForHash().multiGet(itemsKey(userId),
+                List.of(QUANTITY_FIELD_PREFIX + productId, ITEM_FIELD_PREFIX + productId));
+        return toItem(values, cartItemId);
+    }
+
+    /**
+     * @param values 数量和物品信息两个字段的值
+     */
+    private CartItem toItem(List<?> values, Long cartItemId) {
+        if (values.get(0) instanceof Number quantity && values.get(1) instanceof CartItem item
+                && item.getId().equals(cartItemId)) {
+            return item.setQuantity(quantity.intValue());
+        }
+        return null;
+    }
+
+    /**
+     * 用一次MGET批量读取物品索引
+     * @param notInRedis 收集索引不存在的物品ID
+     * @return 索引存在的物品
+     */
+    private List<ItemRef> lookupIndexes(Collection<Long> cartItemIds, List<Long> notInRedis) {
+        List<Long> ids = new ArrayList<>(cartItemIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object> indexes = redisTemplate.opsForValue().multiGet(ids.stream().map(RedisCartStore::indexKey).toList());
+        List<ItemRef> refs = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object index = indexes == null ? null : indexes.get(i);
+            if (index == null) {
+                notInRedis.add(ids.get(i));
+                continue;
+            }
+            String[] parts = index.toString().split(":");
+            refs.add(new ItemRef(ids.get(i), Long.parseLong(parts[0]), Long.parseLong(parts[1])));
+        }
+        return refs;
+    }
+
+    /**
+     * 在一次流水线中读取多个物品，结果与refs一一对应，物品不存在或ID不一致时为null
+     */
+    private List<CartItem> readItems(List<ItemRef> refs) {
+        if (refs.isEmpty()) {
+            return List.of();
+        }
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                refs.forEach(ref -> operations.opsForHash().multiGet(itemsKey(ref.userId()),
+                        List.of(QUANTITY_FIELD_PREFIX + ref.productId(), ITEM_FIELD_PREFIX + ref.productId())));
+                return null;
+            }
+        });
+        List<CartItem> items = new ArrayList<>(refs.size());
+        for (int i = 0; i < refs.size(); i++) {
+            items.add(results.get(i) instanceof List<?> values ? toItem(values, refs.get(i).cartItemId()) : null);
+        }
+        return items;
+    }
+
+    /**
+     * 过滤出购物车没有加载到Redis的物品（此时以数据库为准），购物车只查询一次数据库，是否加载用一次流水线判断
+     */
+    private List<CartItem> filterNotLoaded(List<CartItem> dbItems) {
+        if (dbItems.isEmpty()) {
+            return dbItems;
+        }
+        Map<Long, Long> userIdByCart = new HashMap<>();
+        cartMapper.selectBatchIds(dbItems.stream().map(CartItem::getCartId).distinct().toList())
+                .forEach(cart -> userIdByCart.put(cart.getId(), cart.getUserId()));
+        List<Long> userIds = userIdByCart.values().stream().distinct().toList();
+        Set<Long> loadedUsers = new HashSet<>();
+        if (!userIds.isEmpty()) {
+            List<Object> exists = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    userIds.forEach(userId -> operations.hasKey(metaKey(userId)));
+                    return null;
+                }
+            });
+            for (int i = 0; i < userIds.size(); i++) {
+                if (Boolean.TRUE.equals(exists.get(i))) {
+                    loadedUsers.add(userIds.get(i));
+                }
+            }
+        }
+        return dbItems.stream()
+                .filter(item -> !loadedUsers.contains(userIdByCart.get(item.getCartId())))
+                .toList();
+    }
+
+    /**
+     * 物品索引指向的用户和商品
+     */
+    private record ItemRef(Long cartItemId, Long userId, Long productId) {
+    }
+
+    /**
+     * 续期购物车的各个键，物品索引与购物车同时过期，避免购物车仍在使用时索引先过期而查不到物品
+     * 索引键不在同一个slot，用一次流水线批量续期
+     */
+    private void touch(Long userId) {
+        Duration expire = expire();
+        List<String> indexKeys = redisTemplate.<String, Object>opsForHash().values(itemsKey(userId)).stream()
+                .filter(CartItem.class::isInstance)
+                .map(value -> indexKey(((CartItem) value).getId()))
+                .toList();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                operations.expire(metaKey(userId), expire);
+                operations.expire(itemsKey(userId), expire);
+                indexKeys.forEach(key -> operations.expire(key, expire));
+                return null;
+            }
+        });
+    }
+
+    private void markDirty(Long userId) {
+        redisTemplate.opsForSet().add(DIRTY_KEY, userId);
+    }
+
+    private Duration expire() {
+        return Duration.ofDays(cartServiceConfig.getRedisStore().getExpireDay());
+    }
+
+    // 使用哈希标签保证同一用户的键位于同一个slot
+    private static String metaKey(Long userId) {
+        return "cart:{" + userId + "}:meta";
+    }
+
+    private static String itemsKey(Long userId) {
+        return "cart:{" + userId + "}:items";
+    }
+
+    private static String indexKey(Long cartItemId) {
+        return INDEX_KEY_PREFIX + cartItemId;
+    }
+}
@@ -4,9 +4,11 @@ import com.example.api.config.FeignConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients(basePackages = "com.example.api.client", defaultConfiguration = FeignConfig.class)
+@EnableScheduling
 public class CheckoutApplication {
     public static void main(String[] args) {
         SpringApplication.run(CheckoutApplication.class, args);
@@ -0,0 +1,24 @@
+package com.example.checkout.config;
+
+import com.example.checkout.util.CheckoutEmitterUtil;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 订阅结算状态广播，把其他实例上完成的结算推送给本实例的SSE连接
+ */
+@Configuration
+public class CheckoutEmitterConfig {
+
+    @Bean
+    public RedisMessageListenerContainer checkoutStatusListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         CheckoutEmitterUtil checkoutEmitterUtil) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(checkoutEmitterUtil, new ChannelTopic(CheckoutEmitterUtil.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.checkout.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步结算使用的线程池
+ * 使用有界队列，队列满时直接拒绝，由调用方返回“系统繁忙”
+ */
+@Configuration
+public class CheckoutExecutorConfig {
+
+    public static final String CHECKOUT_EXECUTOR = "checkoutExecutor";
+
+    @Bean(name = CHECKOUT_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor checkoutExecutor(CheckoutServiceConfig checkoutServiceConfig) {
+        CheckoutServiceConfig.Async async = checkoutServiceConfig.getAsync();
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        return new ThreadPoolExecutor(
+                async.getCorePoolSize(),
+                async.getMaxPoolSize(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "checkout-worker-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
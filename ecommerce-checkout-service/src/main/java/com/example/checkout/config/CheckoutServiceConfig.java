@@ -0,0 +1,58 @@
+package com.example.checkout.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ *     结算微服务的一些配置属性
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.checkout-service")
+@Component
+public class CheckoutServiceConfig {
+
+    /**
+     * 异步结算相关配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 结算记录异步批量写入相关配置
+     */
+    private AuditWriter auditWriter = new AuditWriter();
+
+    @Data
+    public static class Async {
+        // 异步结算线程池核心线程数
+        private Integer corePoolSize = 4;
+        // 异步结算线程池最大线程数
+        private Integer maxPoolSize = 16;
+        // 等待队列长度，队列满后拒绝新的异步结算请求
+        private Integer queueCapacity = 256;
+        // 幂等键在Redis中的保存时间（小时）
+        private Integer idempotencyExpireHour = 24;
+        // SSE连接的超时时间（秒）
+        private Long sseTimeoutSecond = 60L;
+        // 待确认的结算记录超过该时间（分钟）仍未完成时标记为交易失败，需大于一次结算流程的最长耗时
+        private Integer pendingTimeoutMinute = 10;
+    }
+
+    @Data
+    public static class AuditWriter {
+        // 单次批量插入的最大记录数，缓冲区达到该数量时立即刷新
+        private Integer batchSize = 200;
+        // 定时刷新间隔（毫秒）
+        private Long flushIntervalMillis = 1000L;
+        // 缓冲区容量，超过容量的记录只写入溢出文件，稍后补写
+        private Integer capacity = 10000;
+        // 缓冲区已满时的最长等待时间（毫秒）
+        private Long offerTimeoutMillis = 50L;
+        // 预写日志与溢出文件所在目录
+        private String spillDir = "./checkout-spill";
+        // 每条记录写入文件后是否强制刷盘
+        private Boolean fsync = false;
+    }
+}
@@ -2,19 +2,27 @@ package com.example.checkout.controller.v1;
 
 
 import com.example.checkout.domain.dto.CheckoutDto;
+import com.example.checkout.domain.vo.CheckoutStatusVo;
 import com.example.checkout.domain.vo.CheckoutVo;
+import com.example.checkout.service.CheckoutAsyncService;
 import com.example.checkout.service.CheckoutService;
 import com.example.common.domain.ResponseResult;
 import com.example.common.util.UserContextUtil;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @RestController
@@ -25,10 +33,37 @@ public class CheckoutController {
     @Resource
     private CheckoutService checkoutService;
 
+    @Resource
+    private CheckoutAsyncService checkoutAsyncService;
+
     @PostMapping
     @Operation(summary = "订单结算")
     public ResponseResult<CheckoutVo> checkout(@RequestBody @Validated CheckoutDto checkoutDto) {
         Long userId = UserContextUtil.getUserId();
         return ResponseResult.success(checkoutService.checkout(userId, checkoutDto));
     }
+
+    @PostMapping("/async")
+    @Operation(summary = "异步订单结算", description = "立即返回结算ID，通过轮询或SSE获取结算结果")
+    public ResponseResult<CheckoutStatusVo> checkoutAsync(
+            @Parameter(description = "客户端生成的幂等键，重复提交时返回同一条结算记录")
+            @RequestHeader("Idempotency-Key") String idempotencyKey,
+            @RequestBody @Validated CheckoutDto checkoutDto) {
+        Long userId = UserContextUtil.getUserId();
+        return ResponseResult.success(checkoutAsyncService.submitCheckout(userId, idempotencyKey, checkoutDto));
+    }
+
+    @GetMapping("/{checkoutId}")
+    @Operation(summary = "查询异步结算状态")
+    public ResponseResult<CheckoutStatusVo> getCheckoutStatus(@PathVariable Long checkoutId) {
+        Long userId = UserContextUtil.getUserId();
+        return ResponseResult.success(checkoutAsyncService.getCheckoutStatus(userId, checkoutId));
+    }
+
+    @GetMapping(value = "/{checkoutId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅异步结算状态(SSE)")
+    public SseEmitter subscribeCheckoutStatus(@PathVariable Long checkoutId) {
+        Long userId = UserContextUtil.getUserId();
+        return checkoutAsyncService.subscribeCheckoutStatus(userId, checkoutId);
+    }
 }
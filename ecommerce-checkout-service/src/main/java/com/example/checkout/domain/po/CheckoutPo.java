@@ -1,6 +1,7 @@
 package com.example.checkout.domain.po;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -41,9 +42,11 @@ public class CheckoutPo {
     private String reason;
 
     @Schema(description = "用户名字")
+    @TableField("first_name")
     private String firstname;
 
     @Schema(description = "用户姓氏")
+    @TableField("last_name")
     private String lastname;
 
     @Schema(description = "创建时间")
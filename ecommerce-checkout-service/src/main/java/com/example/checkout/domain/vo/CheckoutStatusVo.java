@@ -0,0 +1,33 @@
+package com.example.checkout.domain.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "异步结算状态信息")
+public class CheckoutStatusVo {
+
+    @Schema(description = "结算ID")
+    private Long checkoutId;
+
+    @Schema(description = "状态, 0，待确认，1待支付，2正在支付，3已支付，4交易失败，5已取消")
+    private Integer status;
+
+    @Schema(description = "结算流程是否已结束")
+    private Boolean finished;
+
+    @Schema(description = "订单ID，结算成功后填写")
+    private String orderId;
+
+    @Schema(description = "交易ID，结算成功后填写")
+    private String transactionId;
+
+    @Schema(description = "原因，交易失败时填写")
+    private String reason;
+}
@@ -0,0 +1,37 @@
+package com.example.checkout.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 结算记录状态，与checkout表的status字段一一对应
+ */
+@AllArgsConstructor
+@Getter
+public enum CheckoutStatusEnum {
+    PENDING(0, "待确认"),
+    WAIT_PAY(1, "待支付"),
+    PAYING(2, "正在支付"),
+    PAID(3, "已支付"),
+    FAILED(4, "交易失败"),
+    CANCELLED(5, "已取消");
+
+    private final Integer id;
+    private final String description;
+
+    /**
+     * 结算流程是否已经结束（不会再发生状态变化）
+     */
+    public boolean isFinished() {
+        return this != PENDING;
+    }
+
+    public static CheckoutStatusEnum fromId(Integer id) {
+        for (CheckoutStatusEnum statusEnum : CheckoutStatusEnum.values()) {
+            if (statusEnum.getId().equals(id)) {
+                return statusEnum;
+            }
+        }
+        return PENDING;
+    }
+}
@@ -4,9 +4,28 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.checkout.domain.po.CheckoutPo;
 import com.example.common.cache.MybatisRedisCache;
 import org.apache.ibatis.annotations.CacheNamespace;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 @CacheNamespace(implementation = MybatisRedisCache.class)
 public interface CheckoutMapper extends BaseMapper<CheckoutPo> {
+
+    /**
+     * 多行插入结算记录，主键已存在的记录会被忽略（溢出文件重放时可能重复插入）
+     * @param list 结算记录，ID需要提前生成
+     * @return 实际插入的行数
+     */
+    @Insert("<script>" +
+            "insert ignore into checkout (id, user_id, cart_id, order_id, transaction_id, status, reason, " +
+            "first_name, last_name, create_time, update_time, deleted) values " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.userId}, #{item.cartId}, #{item.orderId}, #{item.transactionId}, #{item.status}, " +
+            "#{item.reason}, #{item.firstname}, #{item.lastname}, #{item.createTime}, #{item.updateTime}, #{item.deleted})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatchIgnore(@Param("list") List<CheckoutPo> list);
 }
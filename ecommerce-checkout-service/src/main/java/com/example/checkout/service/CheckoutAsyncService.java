@@ -0,0 +1,32 @@
+package com.example.checkout.service;
+
+import com.example.checkout.domain.dto.CheckoutDto;
+import com.example.checkout.domain.vo.CheckoutStatusVo;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface CheckoutAsyncService {
+
+    /**
+     * 提交异步结算请求
+     * 先登记待确认的结算记录并立即返回，结算流程在线程池中执行；
+     * 相同幂等键的重复请求直接返回已登记的结算记录，不会再次调用下游服务
+     * @param userId 用户ID
+     * @param idempotencyKey 客户端生成的幂等键
+     * @param checkoutDto 结算信息
+     */
+    CheckoutStatusVo submitCheckout(Long userId, String idempotencyKey, CheckoutDto checkoutDto);
+
+    /**
+     * 查询异步结算状态
+     * @param userId 用户ID
+     * @param checkoutId 结算ID
+     */
+    CheckoutStatusVo getCheckoutStatus(Long userId, Long checkoutId);
+
+    /**
+     * 通过SSE订阅异步结算状态
+     * @param userId 用户ID
+     * @param checkoutId 结算ID
+     */
+    SseEmitter subscribeCheckoutStatus(Long userId, Long checkoutId);
+}
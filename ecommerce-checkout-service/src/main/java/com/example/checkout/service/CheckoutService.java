@@ -15,4 +15,12 @@ public interface CheckoutService extends IService<CheckoutPo> {
      */
     CheckoutVo checkout(Long userId, CheckoutDto checkoutDto);
 
+    /**
+     * 执行已经登记为待确认状态的结算记录（异步结算使用）
+     * 成功后将结算记录更新为待支付状态
+     * @param checkoutId 结算ID
+     * @param checkoutDto 结算信息
+     */
+    CheckoutVo processCheckout(Long checkoutId, CheckoutDto checkoutDto);
+
 }
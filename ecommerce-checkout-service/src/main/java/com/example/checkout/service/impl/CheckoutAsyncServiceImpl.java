@@ -0,0 +1,223 @@
+package com.example.checkout.service.impl;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.checkout.config.CheckoutExecutorConfig;
+import com.example.checkout.config.CheckoutServiceConfig;
+import com.example.checkout.domain.dto.CheckoutDto;
+import com.example.checkout.domain.po.CheckoutPo;
+import com.example.checkout.domain.vo.CheckoutStatusVo;
+import com.example.checkout.enums.CheckoutStatusEnum;
+import com.example.checkout.service.CheckoutAsyncService;
+import com.example.checkout.service.CheckoutService;
+import com.example.checkout.util.CheckoutEmitterUtil;
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.BadRequestException;
+import com.example.common.exception.DatabaseException;
+import com.example.common.exception.NotFoundException;
+import com.example.common.exception.UserException;
+import com.example.common.util.UserContextUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Slf4j
+@Service
+public class CheckoutAsyncServiceImpl implements CheckoutAsyncService {
+
+    private static final String IDEMPOTENCY_KEY_PREFIX = "checkout-idempotency:";
+
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 64;
+
+    private static final int REASON_MAX_LENGTH = 255;
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    @Resource
+    private CheckoutService checkoutService;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource(name = CheckoutExecutorConfig.CHECKOUT_EXECUTOR)
+    private ThreadPoolExecutor checkoutExecutor;
+
+    @Resource
+    private CheckoutServiceConfig checkoutServiceConfig;
+
+    @Resource
+    private CheckoutEmitterUtil checkoutEmitterUtil;
+
+    @Override
+    public CheckoutStatusVo submitCheckout(Long userId, String idempotencyKey, CheckoutDto checkoutDto) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw new BadRequestException("幂等键不能为空且长度不能超过" + IDEMPOTENCY_KEY_MAX_LENGTH);
+        }
+        String redisKey = IDEMPOTENCY_KEY_PREFIX + userId + ":" + idempotencyKey;
+        Long checkoutId = IdWorker.getId();
+
+        // 幂等键已存在说明是重复请求，直接返回已登记的结算记录
+        Boolean absent = redisTemplate.opsForValue().setIfAbsent(redisKey, checkoutId,
+                Duration.ofHours(checkoutServiceConfig.getAsync().getIdempotencyExpireHour()));
+        if (!Boolean.TRUE.equals(absent)) {
+            Object existed = redisTemplate.opsForValue().get(redisKey);
+            if (existed instanceof Number number) {
+                CheckoutPo existedPo = checkoutService.getById(number.longValue());
+                if (existedPo == null) {
+                    // 首次请求已抢到幂等键但结算记录还未保存，返回待确认状态，客户端稍后轮询
+                    return CheckoutStatusVo.builder()
+                            .checkoutId(number.longValue())
+                            .status(CheckoutStatusEnum.PENDING.getId())
+                            .finished(false)
+                            .reason("")
+                            .build();
+                }
+                if (!existedPo.getUserId().equals(userId)) {
+                    throw new NotFoundException("结算记录不存在");
+                }
+                return toStatusVo(existedPo);
+            }
+            throw new UserException(ResultCode.CONFLICT, "结算请求正在处理中，请稍后重试");
+        }
+
+        // 登记待确认的结算记录
+        CheckoutPo checkoutPo = CheckoutPo.builder()
+                .id(checkoutId)
+                .userId(userId)
+                .cartId(checkoutDto.getCartId())
+                .status(CheckoutStatusEnum.PENDING.getId())
+                .reason("")
+                .firstname(checkoutDto.getFirstname())
+                .lastname(checkoutDto.getLastname())
+                .createTime(LocalDateTime.now())
+                .updateTime(LocalDateTime.now())
+                .build();
+        try {
+            checkoutService.save(checkoutPo);
+        } catch (Exception e) {
+            redisTemplate.delete(redisKey);
+            throw new DatabaseException("结算记录保存失败", e);
+        }
+
+        // 提交到结算线程池执行
+        try {
+            checkoutExecutor.execute(() -> runCheckout(userId, checkoutId, checkoutDto));
+        } catch (RejectedExecutionException e) {
+            log.warn("结算线程池已满，拒绝结算请求：{}", checkoutId);
+            markFailed(checkoutId, "系统繁忙，结算请求被拒绝");
+            redisTemplate.delete(redisKey);
+            throw new UserException(ResultCode.SERVICE_UNAVAILABLE, "系统繁忙，请稍后重试");
+        }
+        return toStatusVo(checkoutPo);
+    }
+
+    @Override
+    public CheckoutStatusVo getCheckoutStatus(Long userId, Long checkoutId) {
+        CheckoutPo checkoutPo = checkoutService.getById(checkoutId);
+        if (checkoutPo == null || !checkoutPo.getUserId().equals(userId)) {
+            throw new NotFoundException("结算记录不存在");
+        }
+        return toStatusVo(checkoutPo);
+    }
+
+    @Override
+    public SseEmitter subscribeCheckoutStatus(Long userId, Long checkoutId) {
+        // 先校验结算记录归属，再注册连接，最后推送一次当前状态，避免错过注册前已经完成的状态变化
+        getCheckoutStatus(userId, checkoutId);
+        long timeoutMillis = Duration.ofSeconds(checkoutServiceConfig.getAsync().getSseTimeoutSecond()).toMillis();
+        SseEmitter emitter = checkoutEmitterUtil.subscribe(checkoutId, timeoutMillis);
+        checkoutEmitterUtil.send(emitter, getCheckoutStatus(userId, checkoutId));
+        return emitter;
+    }
+
+    /**
+     * 定时将超时仍未完成的待确认结算记录标记为交易失败
+     * 服务在结算过程中宕机时，记录会一直停留在待确认状态；结算流程只会从待确认状态更新，标记失败后即使原流程恢复也会回滚
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void expirePendingCheckouts() {
+        LocalDateTime deadline = LocalDateTime.now()
+                .minusMinutes(checkoutServiceConfig.getAsync().getPendingTimeoutMinute());
+        List<CheckoutPo> expired;
+        try {
+            expired = checkoutService.lambdaQuery()
+                    .eq(CheckoutPo::getStatus, CheckoutStatusEnum.PENDING.getId())
+                    .lt(CheckoutPo::getCreateTime, deadline)
+                    .last("limit " + SWEEP_BATCH_SIZE)
+                    .list();
+        } catch (Exception e) {
+            log.error("查询超时的待确认结算记录失败", e);
+            return;
+        }
+        for (CheckoutPo checkoutPo : expired) {
+            log.warn("结算记录超时未完成，标记为交易失败：{}", checkoutPo.getId());
+            markFailed(checkoutPo.getId(), "结算超时");
+            try {
+                checkoutEmitterUtil.publish(getCheckoutStatus(checkoutPo.getUserId(), checkoutPo.getId()));
+            } catch (Exception e) {
+                log.error("结算状态推送失败：{}", checkoutPo.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 在结算线程池中执行结算流程
+     * Feign请求头中的X-User-Id依赖UserContextUtil，需要在工作线程中重新设置
+     */
+    private void runCheckout(Long userId, Long checkoutId, CheckoutDto checkoutDto) {
+        UserContextUtil.setUserId(userId);
+        try {
+            checkoutService.processCheckout(checkoutId, checkoutDto);
+        } catch (Exception e) {
+            markFailed(checkoutId, e.getMessage());
+        } finally {
+            UserContextUtil.clear();
+        }
+        try {
+            checkoutEmitterUtil.publish(getCheckoutStatus(userId, checkoutId));
+        } catch (Exception e) {
+            log.error("结算状态推送失败：{}", checkoutId, e);
+        }
+    }
+
+    /**
+     * 将待确认的结算记录标记为交易失败
+     */
+    private void markFailed(Long checkoutId, String reason) {
+        String failReason = reason == null ? "" : reason;
+        if (failReason.length() > REASON_MAX_LENGTH) {
+            failReason = failReason.substring(0, REASON_MAX_LENGTH);
+        }
+        try {
+            checkoutService.lambdaUpdate()
+                    .eq(CheckoutPo::getId, checkoutId)
+                    .eq(CheckoutPo::getStatus, CheckoutStatusEnum.PENDING.getId())
+                    .set(CheckoutPo::getStatus, CheckoutStatusEnum.FAILED.getId())
+                    .set(CheckoutPo::getReason, failReason)
+                    .set(CheckoutPo::getUpdateTime, LocalDateTime.now())
+                    .update();
+        } catch (Exception e) {
+            log.error("结算记录标记失败状态异常：{}", checkoutId, e);
+        }
+    }
+
+    private CheckoutStatusVo toStatusVo(CheckoutPo checkoutPo) {
+        CheckoutStatusEnum statusEnum = CheckoutStatusEnum.fromId(checkoutPo.getStatus());
+        return CheckoutStatusVo.builder()
+                .checkoutId(checkoutPo.getId())
+                .status(statusEnum.getId())
+                .finished(statusEnum.isFinished())
+                .orderId(checkoutPo.getOrderId())
+                .transactionId(checkoutPo.getTransactionId())
+                .reason(checkoutPo.getReason())
+                .build();
+    }
+}
@@ -12,8 +12,10 @@ import com.example.api.domain.vo.payment.TransactionInfoVo;
 import com.example.checkout.domain.dto.CheckoutDto;
 import com.example.checkout.domain.po.CheckoutPo;
 import com.example.checkout.domain.vo.CheckoutVo;
+import com.example.checkout.enums.CheckoutStatusEnum;
 import com.example.checkout.mapper.CheckoutMapper;
 import com.example.checkout.service.CheckoutService;
+import com.example.checkout.util.CheckoutAuditWriter;
 import com.example.common.domain.ResponseResult;
 import com.example.common.domain.ResultCode;
 import com.example.common.exception.DatabaseException;
@@ -36,48 +38,22 @@ public class CheckoutServiceImpl extends ServiceImpl<CheckoutMapper, CheckoutPo>
     @Resource
     private PaymentClient paymentClient;
 
+    @Resource
+    private CheckoutAuditWriter checkoutAuditWriter;
+
     @GlobalTransactional(name = "Checkout", rollbackFor = Exception.class)
     @Override
     public CheckoutVo checkout(Long userId, CheckoutDto checkoutDto) {
         try {
-            Long cartId = checkoutDto.getCartId();
-            PlaceOrderDto placeOrderDto = checkoutDto.getPlaceOrderDto();
-
-            // 创建订单
-            ResponseResult<PlaceOrderVo> responseResult = orderClient.placeOrder(placeOrderDto);
-            if (responseResult.getCode() != ResultCode.SUCCESS) {
-                if(responseResult.getCode() < 500) {
-                    throw new UserException(responseResult.getCode(), responseResult.getMsg());
-                }
-                throw new SystemException("创建订单失败："+responseResult.getMsg());
-            }
-            PlaceOrderVo placeOrderVo = responseResult.getData();
-
-            // 获取订单id
-            String orderId = placeOrderVo.getOrder().getOrderId();
-
-            ChargeDto chargeDto = new ChargeDto();
-            chargeDto.setOrderId(orderId);
-            chargeDto.setCreditId(checkoutDto.getCreditId());
-
-
-            // 发起支付请求
-            ResponseResult<ChargeVo> charge = paymentClient.quickCharge(chargeDto);
-            if (charge.getCode() != ResultCode.SUCCESS) {
-                if(charge.getCode() < 500) {
-                    throw new UserException(charge.getCode(), charge.getMsg());
-                }
-                throw new SystemException("支付请求失败："+charge.getMsg());
-            }
-            ChargeVo chargeVo = charge.getData();
+            CheckoutVo checkoutVo = placeOrderAndCharge(checkoutDto);
             try {
-                // 保存结算信息
+                // 保存结算信息，由后台线程批量写入，不参与全局事务
                 CheckoutPo checkoutPo = CheckoutPo.builder()
                         .userId(userId)
-                        .cartId(cartId)
-                        .orderId(orderId)
-                        .transactionId(chargeVo.getTransactionId())
-                        .status(1)
+                        .cartId(checkoutDto.getCartId())
+                        .orderId(checkoutVo.getOrderId())
+                        .transactionId(checkoutVo.getTransactionId())
+                        .status(CheckoutStatusEnum.WAIT_PAY.getId())
                         .reason("")
                         .firstname(checkoutDto.getFirstname())
                         .lastname(checkoutDto.getLastname())
@@ -85,18 +61,80 @@ public class CheckoutServiceImpl extends ServiceImpl<CheckoutMapper, CheckoutPo>
                         .updateTime(LocalDateTime.now())
                         .build();
 
-                this.save(checkoutPo);
+                checkoutAuditWriter.submit(checkoutPo);
             } catch (Exception e) {
                 log.error("checkout信息保存失败：{}", e.getMessage());
             }
             // 返回结算信息
-            return CheckoutVo.builder()
-                    .orderId(orderId)
-                    .transactionId(chargeVo.getTransactionId())
-                    .build();
+            return checkoutVo;
         }catch (Exception e) {
             log.error("结算服务异常：", e);
             throw e;
         }
     }
+
+    @GlobalTransactional(name = "AsyncCheckout", rollbackFor = Exception.class)
+    @Override
+    public CheckoutVo processCheckout(Long checkoutId, CheckoutDto checkoutDto) {
+        try {
+            CheckoutVo checkoutVo = placeOrderAndCharge(checkoutDto);
+            // 结算记录由待确认变为待支付
+            boolean updated = this.lambdaUpdate()
+                    .eq(CheckoutPo::getId, checkoutId)
+                    .eq(CheckoutPo::getStatus, CheckoutStatusEnum.PENDING.getId())
+                    .set(CheckoutPo::getOrderId, checkoutVo.getOrderId())
+                    .set(CheckoutPo::getTransactionId, checkoutVo.getTransactionId())
+                    .set(CheckoutPo::getStatus, CheckoutStatusEnum.WAIT_PAY.getId())
+                    .set(CheckoutPo::getUpdateTime, LocalDateTime.now())
+                    .update();
+            if (!updated) {
+                throw new DatabaseException("结算记录状态更新失败，checkoutId: " + checkoutId);
+            }
+            return checkoutVo;
+        } catch (Exception e) {
+            log.error("异步结算服务异常：", e);
+            throw e;
+        }
+    }
+
+    /**
+     * 创建订单并发起免密支付
+     * @param checkoutDto 结算信息
+     * @return 订单ID与交易ID
+     */
+    private CheckoutVo placeOrderAndCharge(CheckoutDto checkoutDto) {
+        PlaceOrderDto placeOrderDto = checkoutDto.getPlaceOrderDto();
+
+        // 创建订单
+        ResponseResult<PlaceOrderVo> responseResult = orderClient.placeOrder(placeOrderDto);
+        if (responseResult.getCode() != ResultCode.SUCCESS) {
+            if(responseResult.getCode() < 500) {
+                throw new UserException(responseResult.getCode(), responseResult.getMsg());
+            }
+            throw new SystemException("创建订单失败："+responseResult.getMsg());
+        }
+        PlaceOrderVo placeOrderVo = responseResult.getData();
+
+        // 获取订单id
+        String orderId = placeOrderVo.getOrder().getOrderId();
+
+        ChargeDto chargeDto = new ChargeDto();
+        chargeDto.setOrderId(orderId);
+        chargeDto.setCreditId(checkoutDto.getCreditId());
+
+
+        // 发起支付请求
+        ResponseResult<ChargeVo> charge = paymentClient.quickCharge(chargeDto);
+        if (charge.getCode() != ResultCode.SUCCESS) {
+            if(charge.getCode() < 500) {
+                throw new UserException(charge.getCode(), charge.getMsg());
+            }
+            throw new SystemException("支付请求失败："+charge.getMsg());
+        }
+        ChargeVo chargeVo = charge.getData();
+        return CheckoutVo.builder()
+                .orderId(orderId)
+                .transactionId(chargeVo.getTransactionId())
+                .build();
+    }
 }
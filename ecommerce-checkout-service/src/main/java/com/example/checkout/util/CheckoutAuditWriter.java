@@ -0,0 +1,361 @@
+package com.example.checkout.util;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.checkout.config.CheckoutServiceConfig;
+import com.example.checkout.domain.po.CheckoutPo;
+import com.example.checkout.mapper.CheckoutMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ *     结算记录的异步批量写入（write-behind）
+ * </p>
+ * 结算记录不在结算的关键路径上，调用方只负责把记录放入缓冲区，由后台线程按数量或时间阈值批量插入数据库，
+ * 插入不再处于Seata全局事务中。
+ * <ul>
+ *     <li>每条记录进入缓冲区前先追加到预写日志（.wal），批量插入成功后删除，进程崩溃后可从日志恢复</li>
+ *     <li>缓冲区有界，已满时调用方最多等待offerTimeoutMillis，仍然没有空间则只写入溢出文件（.spill）</li>
+ *     <li>批量插入失败的预写日志和溢出文件由后台线程按段号顺序重放，插入语句忽略重复主键</li>
+ *     <li>缓冲区为空且没有溢出文件正在写入时不切换段，空闲时不产生新文件</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class CheckoutAuditWriter {
+
+    private static final String FILE_PREFIX = "checkout-audit-";
+
+    private static final String WAL_SUFFIX = ".wal";
+
+    private static final String SPILL_SUFFIX = ".spill";
+
+    @Resource
+    private CheckoutMapper checkoutMapper;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private CheckoutServiceConfig checkoutServiceConfig;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition flushCondition = lock.newCondition();
+
+    private CheckoutServiceConfig.AuditWriter config;
+
+    private Path spillDir;
+
+    private Semaphore permits;
+
+    // 以下字段均由lock保护
+    private List<CheckoutPo> buffer = new ArrayList<>();
+    private long segmentSeq;
+    private BufferedWriter walWriter;
+    private FileOutputStream walStream;
+    private BufferedWriter spillWriter;
+    private FileOutputStream spillStream;
+
+    private volatile boolean running;
+
+    // 只由刷新线程访问：是否还有需要重放的文件，启动时可能有上次运行遗留的文件
+    private boolean replayPending = true;
+
+    private Thread flushThread;
+
+    @PostConstruct
+    public void start() throws IOException {
+        config = checkoutServiceConfig.getAuditWriter();
+        spillDir = Paths.get(config.getSpillDir());
+        Files.createDirectories(spillDir);
+        permits = new Semaphore(config.getCapacity());
+        // 新的段号总是大于上次运行遗留的文件，遗留文件会被当作溢出文件重放
+        segmentSeq = Math.max(System.currentTimeMillis(), maxExistingSeq() + 1);
+        openWal();
+        running = true;
+        flushThread = new Thread(this::flushLoop, "checkout-audit-writer");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        lock.lock();
+        try {
+            flushCondition.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交一条结算记录，不会抛出异常
+     * @param checkoutPo 结算记录
+     */
+    public void submit(CheckoutPo checkoutPo) {
+        if (checkoutPo.getId() == null) {
+            checkoutPo.setId(IdWorker.getId());
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        lock.lock();
+        try {
+            if (!acquired) {
+                // 缓冲区已满，只写入溢出文件，由后台线程稍后补写
+                log.warn("结算记录缓冲区已满，写入溢出文件：{}", checkoutPo.getId());
+                appendSpill(checkoutPo);
+                return;
+            }
+            appendWal(checkoutPo);
+            buffer.add(checkoutPo);
+            if (buffer.size() >= config.getBatchSize()) {
+                flushCondition.signal();
+            }
+        } catch (IOException e) {
+            if (acquired) {
+                permits.release();
+            }
+            log.error("结算记录写入文件失败，记录将丢失：{}", checkoutPo, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<CheckoutPo> batch = null;
+            Path closedWal = null;
+            boolean spilled = false;
+            lock.lock();
+            try {
+                if (running && buffer.size() < config.getBatchSize()) {
+                    flushCondition.await(config.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            try {
+                if (!running && buffer.isEmpty() && spillWriter == null) {
+                    closeQuietly(walWriter);
+                    walWriter = null;
+                    deleteQuietly(segmentPath(segmentSeq, WAL_SUFFIX));
+                    return;
+                }
+                if (!buffer.isEmpty() || spillWriter != null) {
+                    // 切换到新的段，当前缓冲区的记录与当前预写日志一一对应
+                    batch = buffer;
+                    buffer = new ArrayList<>();
+                    closedWal = segmentPath(segmentSeq, WAL_SUFFIX);
+                    spilled = spillWriter != null;
+                    closeQuietly(walWriter);
+                    closeQuietly(spillWriter);
+                    walWriter = null;
+                    spillWriter = null;
+                    segmentSeq++;
+                    try {
+                        openWal();
+                    } catch (IOException e) {
+                        // 下次写入时会重新尝试打开
+                        log.error("结算记录预写日志打开失败", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (batch != null) {
+                boolean flushed;
+                try {
+                    flushed = flushWal(batch, closedWal);
+                } finally {
+                    permits.release(batch.size());
+                }
+                replayPending |= spilled || !flushed;
+            }
+            if (replayPending) {
+                replayPending = !replaySpillFiles();
+            }
+        }
+    }
+
+    /**
+     * 批量插入一个段的记录，成功后删除预写日志，失败则保留预写日志等待重放
+     * @return 是否插入成功
+     */
+    private boolean flushWal(List<CheckoutPo> batch, Path closedWal) {
+        try {
+            if (!batch.isEmpty()) {
+                insertInChunks(batch);
+            }
+            Files.deleteIfExists(closedWal);
+            return true;
+        } catch (Exception e) {
+            log.error("结算记录批量插入失败，{}条记录保留在{}中等待重放", batch.size(), closedWal.getFileName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 按段号顺序重放已经关闭的预写日志和溢出文件，遇到失败时停止，下次刷新时重试
+     * @return 是否全部重放完成
+     */
+    private boolean replaySpillFiles() {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(spillDir)) {
+            files = stream.filter(path -> parseSeq(path) >= 0 && parseSeq(path) < currentSeq())
+                    .sorted((a, b) -> Long.compare(parseSeq(a), parseSeq(b)))
+                    .toList();
+        } catch (IOException e) {
+            log.error("读取溢出文件目录失败：{}", spillDir, e);
+            return false;
+        }
+        for (Path file : files) {
+            try {
+                List<CheckoutPo> records = new ArrayList<>();
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        records.add(objectMapper.readValue(line, CheckoutPo.class));
+                    } catch (JsonProcessingException e) {
+                        // 进程崩溃时最后一行可能只写了一半
+                        log.warn("跳过无法解析的结算记录：{}，{}", file.getFileName(), line);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    insertInChunks(records);
+                }
+                Files.delete(file);
+                log.info("结算记录溢出文件重放完成：{}，{}条", file.getFileName(), records.size());
+            } catch (Exception e) {
+                log.error("结算记录溢出文件重放失败：{}", file.getFileName(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insertInChunks(List<CheckoutPo> records) {
+        int batchSize = config.getBatchSize();
+        for (int i = 0; i < records.size(); i += batchSize) {
+            checkoutMapper.insertBatchIgnore(records.subList(i, Math.min(i + batchSize, records.size())));
+        }
+    }
+
+    private void appendWal(CheckoutPo checkoutPo) throws IOException {
+        if (walWriter == null) {
+            openWal();
+        }
+        appendLine(walWriter, walStream, checkoutPo);
+    }
+
+    private void appendSpill(CheckoutPo checkoutPo) throws IOException {
+        if (spillWriter == null) {
+            spillStream = new FileOutputStream(segmentPath(segmentSeq, SPILL_SUFFIX).toFile(), true);
+            spillWriter = new BufferedWriter(new OutputStreamWriter(spillStream, StandardCharsets.UTF_8));
+        }
+        appendLine(spillWriter, spillStream, checkoutPo);
+    }
+
+    private void appendLine(BufferedWriter writer, FileOutputStream stream, CheckoutPo checkoutPo) throws IOException {
+        writer.write(objectMapper.writeValueAsString(checkoutPo));
+        writer.newLine();
+        writer.flush();
+        if (config.getFsync()) {
+            stream.getFD().sync();
+        }
+    }
+
+    private void openWal() throws IOException {
+        walStream = new FileOutputStream(segmentPath(segmentSeq, WAL_SUFFIX).toFile(), true);
+        walWriter = new BufferedWriter(new OutputStreamWriter(walStream, StandardCharsets.UTF_8));
+    }
+
+    private long currentSeq() {
+        lock.lock();
+        try {
+            return segmentSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long maxExistingSeq() throws IOException {
+        try (Stream<Path> stream = Files.list(spillDir)) {
+            return stream.mapToLong(this::parseSeq).max().orElse(-1);
+        }
+    }
+
+    private Path segmentPath(long seq, String suffix) {
+        return spillDir.resolve(FILE_PREFIX + seq + suffix);
+    }
+
+    /**
+     * 从文件名解析段号，不是本类产生的文件返回-1
+     */
+    private long parseSeq(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(FILE_PREFIX) || !(name.endsWith(WAL_SUFFIX) || name.endsWith(SPILL_SUFFIX))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.lastIndexOf('.')));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除结算记录文件失败：{}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly(BufferedWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("关闭结算记录文件失败：{}", e.getMessage());
+        }
+    }
+}
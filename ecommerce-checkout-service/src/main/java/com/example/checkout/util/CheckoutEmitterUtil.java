@@ -0,0 +1,118 @@
+package com.example.checkout.util;
+
+import com.example.checkout.domain.vo.CheckoutStatusVo;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 管理订阅异步结算状态的SSE连接
+ * 连接只保存在接受订阅的实例内存中，结算状态变化通过Redis频道checkout-status广播，
+ * 每个实例收到后推送给本实例上的订阅者；Redis不可用时只推送给本实例的订阅者
+ */
+@Slf4j
+@Component
+public class CheckoutEmitterUtil implements MessageListener {
+
+    public static final String CHANNEL = "checkout-status";
+
+    private static final String EVENT_NAME = "checkout-status";
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅某个结算记录的状态变化
+     * @param checkoutId 结算ID
+     * @param timeoutMillis 连接超时时间
+     */
+    public SseEmitter subscribe(Long checkoutId, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.computeIfAbsent(checkoutId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> remove(checkoutId, emitter));
+        emitter.onTimeout(() -> remove(checkoutId, emitter));
+        emitter.onError(e -> remove(checkoutId, emitter));
+        return emitter;
+    }
+
+    /**
+     * 向所有实例上的订阅者广播结算状态
+     * @param statusVo 结算状态
+     */
+    public void publish(CheckoutStatusVo statusVo) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, statusVo);
+        } catch (Exception e) {
+            log.warn("结算状态广播失败，只推送给本实例的订阅者，checkoutId: {}, {}", statusVo.getCheckoutId(), e.getMessage());
+            publishLocal(statusVo);
+        }
+    }
+
+    /**
+     * 接收其他实例（包括本实例）广播的结算状态
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body;
+        try {
+            body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        } catch (Exception e) {
+            log.warn("无法解析结算状态通知：{}", e.getMessage());
+            return;
+        }
+        if (body instanceof CheckoutStatusVo statusVo) {
+            publishLocal(statusVo);
+        }
+    }
+
+    /**
+     * 向本实例上的订阅者推送结算状态，结算结束后关闭连接
+     * @param statusVo 结算状态
+     */
+    private void publishLocal(CheckoutStatusVo statusVo) {
+        List<SseEmitter> list = emitters.get(statusVo.getCheckoutId());
+        if (list == null) {
+            return;
+        }
+        list.forEach(emitter -> send(emitter, statusVo));
+        if (Boolean.TRUE.equals(statusVo.getFinished())) {
+            emitters.remove(statusVo.getCheckoutId());
+        }
+    }
+
+    /**
+     * 向单个订阅者推送结算状态，结算结束后关闭连接
+     * @param emitter SSE连接
+     * @param statusVo 结算状态
+     */
+    public void send(SseEmitter emitter, CheckoutStatusVo statusVo) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(statusVo));
+            if (Boolean.TRUE.equals(statusVo.getFinished())) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.info("结算状态推送失败，checkoutId: {}, {}", statusVo.getCheckoutId(), e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Long checkoutId, SseEmitter emitter) {
+        emitters.computeIfPresent(checkoutId, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
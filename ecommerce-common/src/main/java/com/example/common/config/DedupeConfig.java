@@ -0,0 +1,35 @@
+package com.example.common.config;
+
+import com.example.common.mq.dedupe.DedupeProperties;
+import com.example.common.mq.dedupe.DeduplicatorMetrics;
+import com.example.common.mq.dedupe.MessageDeduplicator;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 消息的幂等消费，可以通过ecommerce.mq.dedupe.enabled=false关闭去重
+ */
+@Configuration
+@ConditionalOnClass({RabbitTemplate.class, RedisTemplate.class})
+@EnableConfigurationProperties(DedupeProperties.class)
+public class DedupeConfig {
+
+    @Bean
+    public MessageDeduplicator messageDeduplicator(RedisTemplate<String, Object> redisTemplate, DedupeProperties properties) {
+        return new MessageDeduplicator(redisTemplate, properties);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class DeduplicatorMetricsConfig {
+
+        @Bean
+        public DeduplicatorMetrics deduplicatorMetrics(MessageDeduplicator messageDeduplicator) {
+            return new DeduplicatorMetrics(messageDeduplicator);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.common.config;
+
+import com.example.common.mq.inmemory.InMemoryMessageBus;
+import com.example.common.mq.inmemory.InMemoryMessagingProperties;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.config.RabbitListenerConfigUtils;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * <p>
+ *     进程内的消息总线，启用mq-inmemory环境后替换RabbitPublisher，不需要RabbitMQ
+ * </p>
+ * 监听容器不再启动，@RabbitListener方法由InMemoryMessageBus直接调用；
+ * 本地消息表（OutboxPublisher）仍然可用，中继时同样发送到进程内的总线。
+ */
+@Configuration
+@Profile(InMemoryMessagingConfig.PROFILE)
+@ConditionalOnClass(RabbitTemplate.class)
+@EnableConfigurationProperties(InMemoryMessagingProperties.class)
+public class InMemoryMessagingConfig {
+
+    public static final String PROFILE = "mq-inmemory";
+
+    @Bean
+    public InMemoryMessageBus inMemoryMessageBus(ListableBeanFactory beanFactory,
+                                                 @Qualifier(RabbitListenerConfigUtils.RABBIT_LISTENER_ENDPOINT_REGISTRY_BEAN_NAME)
+                                                 RabbitListenerEndpointRegistry listenerRegistry,
+                                                 RabbitTemplate rabbitTemplate, InMemoryMessagingProperties properties) {
+        return new InMemoryMessageBus(beanFactory, listenerRegistry, rabbitTemplate.getMessageConverter(),
+                properties.getBufferSize(), properties.getOfferTimeoutMillis(), properties.getMaxAttempts());
+    }
+
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> inMemorySimpleContainerCustomizer() {
+        return container -> container.setAutoStartup(false);
+    }
+
+    @Bean
+    public ContainerCustomizer<DirectMessageListenerContainer> inMemoryDirectContainerCustomizer() {
+        return container -> container.setAutoStartup(false);
+    }
+}
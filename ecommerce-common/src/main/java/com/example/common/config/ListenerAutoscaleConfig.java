@@ -0,0 +1,53 @@
+package com.example.common.config;
+
+import com.example.common.mq.autoscale.AutoscaleProperties;
+import com.example.common.mq.autoscale.ListenerAutoscaler;
+import com.example.common.mq.autoscale.ListenerAutoscalerMetrics;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 监听容器的自动伸缩，默认开启，可以通过ecommerce.mq.autoscale.enabled=false关闭
+ */
+@Configuration
+@ConditionalOnClass(SimpleMessageListenerContainer.class)
+@Profile("!" + InMemoryMessagingConfig.PROFILE)
+@ConditionalOnProperty(prefix = "ecommerce.mq.autoscale", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AutoscaleProperties.class)
+public class ListenerAutoscaleConfig {
+
+    @Bean
+    public ListenerAutoscaler listenerAutoscaler(AutoscaleProperties properties, AmqpAdmin amqpAdmin) {
+        return new ListenerAutoscaler(properties, amqpAdmin);
+    }
+
+    /**
+     * 由Spring Boot创建的监听容器工厂在创建每个容器后调用
+     */
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> autoscaleContainerCustomizer(
+            ListenerAutoscaler listenerAutoscaler, RabbitProperties rabbitProperties) {
+        RabbitProperties.SimpleContainer simple = rabbitProperties.getListener().getSimple();
+        int consumers = simple.getConcurrency() != null ? simple.getConcurrency() : 1;
+        int prefetch = simple.getPrefetch() != null ? simple.getPrefetch() : SimpleMessageListenerContainer.DEFAULT_PREFETCH_COUNT;
+        return container -> listenerAutoscaler.register(container, consumers, prefetch);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class ListenerAutoscalerMetricsConfig {
+
+        @Bean
+        public ListenerAutoscalerMetrics listenerAutoscalerMetrics(ListenerAutoscaler listenerAutoscaler) {
+            return new ListenerAutoscalerMetrics(listenerAutoscaler);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.common.config;
+
+import com.example.common.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import com.example.common.loadbalancer.LatencyAwareProperties;
+import com.example.common.loadbalancer.LatencyRecordingLifecycle;
+import com.example.common.loadbalancer.LoadBalancerStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网关转发和Feign调用都按延迟选择实例，可以通过ecommerce.loadbalancer.enabled=false恢复默认的轮询
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer")
+@ConditionalOnProperty(prefix = "ecommerce.loadbalancer", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(LatencyAwareProperties.class)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    @Bean
+    public LoadBalancerStats loadBalancerStats(LatencyAwareProperties properties) {
+        return new LoadBalancerStats(properties);
+    }
+
+    @Bean
+    public LatencyRecordingLifecycle latencyRecordingLifecycle(LoadBalancerStats stats) {
+        return new LatencyRecordingLifecycle(stats);
+    }
+}
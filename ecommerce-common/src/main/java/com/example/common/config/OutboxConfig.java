@@ -0,0 +1,39 @@
+package com.example.common.config;
+
+import com.example.common.mq.MessageTransport;
+import com.example.common.mq.outbox.OutboxProperties;
+import com.example.common.mq.outbox.OutboxPublisher;
+import com.example.common.mq.outbox.OutboxRelay;
+import com.example.common.mq.outbox.OutboxRepository;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 本地消息表，需要发送MQ消息的服务设置ecommerce.mq.outbox.enabled=true并创建mq_outbox表后启用
+ */
+@Configuration
+@ConditionalOnClass({RabbitTemplate.class, JdbcTemplate.class})
+@ConditionalOnProperty(prefix = "ecommerce.mq.outbox", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    @Bean
+    public OutboxRepository outboxRepository(JdbcTemplate jdbcTemplate) {
+        return new OutboxRepository(jdbcTemplate);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxRepository outboxRepository, MessageTransport messageTransport, OutboxProperties properties) {
+        return new OutboxRelay(outboxRepository, messageTransport, properties);
+    }
+
+    @Bean
+    public OutboxPublisher outboxPublisher(OutboxRepository outboxRepository, OutboxRelay outboxRelay, RabbitTemplate rabbitTemplate) {
+        return new OutboxPublisher(outboxRepository, outboxRelay, rabbitTemplate.getMessageConverter());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.common.config;
+
+import com.example.common.mq.PublisherMetrics;
+import com.example.common.mq.PublisherProperties;
+import com.example.common.mq.RabbitPublisher;
+import com.example.common.mq.outbox.OutboxPublisher;
+import org.springframework.amqp.rabbit.connection.AbstractConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 高吞吐的消息发送，第一次发送时才会建立连接
+ * mq-inmemory环境下由InMemoryMessagingConfig提供进程内的实现
+ */
+@Configuration
+@Profile("!" + InMemoryMessagingConfig.PROFILE)
+@ConditionalOnClass(RabbitTemplate.class)
+@EnableConfigurationProperties(PublisherProperties.class)
+public class PublisherConfig {
+
+    @Bean
+    public RabbitPublisher rabbitPublisher(AbstractConnectionFactory connectionFactory, RabbitTemplate rabbitTemplate,
+                                           PublisherProperties properties, ObjectProvider<OutboxPublisher> outboxPublisher) {
+        return new RabbitPublisher(connectionFactory, rabbitTemplate.getMessageConverter(), properties, outboxPublisher);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class PublisherMetricsConfig {
+
+        @Bean
+        public PublisherMetrics publisherMetrics(RabbitPublisher rabbitPublisher) {
+            return new PublisherMetrics(rabbitPublisher);
+        }
+    }
+}
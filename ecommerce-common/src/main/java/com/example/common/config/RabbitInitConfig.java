@@ -1,20 +1,26 @@
 package com.example.common.config;
 
 import com.example.common.config.rabbitmq.RetryableCorrelationData;
+import com.example.common.mq.dedupe.DedupeProperties;
+import com.example.common.mq.dedupe.MessageInProgressException;
+import com.example.common.mq.outbox.OutboxPublisher;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.retry.MessageRecoverer;
 import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
-import org.springframework.data.redis.core.RedisTemplate;
 
 /**
  * MQ生产者发送消息失败后，生产者重试
+ * 直接通过RabbitTemplate发送、收到NACK的消息转存到本地消息表，由OutboxRelay按退避策略重试，
+ * 重试耗尽的消息作为死信保留在表中；没有启用本地消息表的服务只记录日志
  */
 @Configuration
 @AllArgsConstructor
@@ -22,8 +28,8 @@ import org.springframework.data.redis.core.RedisTemplate;
 @ConditionalOnClass(RabbitTemplate.class)
 public class RabbitInitConfig {
     private final RabbitTemplate rabbitTemplate;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final String REDIS_ERROR_KEY = "ecommerce-mq-send-error";
+    private final ObjectProvider<OutboxPublisher> outboxPublisher;
+    private final ObjectProvider<DedupeProperties> dedupeProperties;
 
     // 初始化rabbitTemplate
     @EventListener(ApplicationReadyEvent.class)
@@ -34,46 +40,41 @@ public class RabbitInitConfig {
                 return;
             }
             log.error("消息发送NACK：{}", cause);
-            if(correlationData instanceof RetryableCorrelationData) {
-                // 重试次数大于了5次以上
-                if(((RetryableCorrelationData) correlationData).getRetryCount() >= 5) {
-                    // 存储到Redis中，进行人工处理
-                    redisTemplate.opsForHash().put(REDIS_ERROR_KEY, correlationData.getId(), ((RetryableCorrelationData) correlationData).getMessage());
-                } else {
-                    // 进行消息重发
-                    RetryableCorrelationData data = (RetryableCorrelationData) correlationData;
-                    data.setRetryCount(data.getRetryCount() + 1);
-                    int delay = (int) Math.pow(2, data.getRetryCount()) * 1000; // 指数退避
-                    new Thread(() -> {
-                        try {
-                            Thread.sleep(delay);
-                            if(data.getMessagePostProcessor() == null) {
-                                rabbitTemplate.convertAndSend(
-                                        data.getExchange(),
-                                        data.getRoutingKey(),
-                                        data.getMessage(),
-                                        data
-                                );
-                            } else {
-                                rabbitTemplate.convertAndSend(
-                                        data.getExchange(),
-                                        data.getRoutingKey(),
-                                        data.getMessage(),
-                                        data.getMessagePostProcessor(),
-                                        data
-                                );
-                            }
-                        } catch (InterruptedException ignored) {
-
-                        }
-                    }).start();
+            if(correlationData instanceof RetryableCorrelationData data) {
+                OutboxPublisher publisher = outboxPublisher.getIfAvailable();
+                if(publisher == null) {
+                    log.error("未启用本地消息表，消息无法重试：{} -> {}，{}", data.getExchange(), data.getRoutingKey(), data.getMessage());
+                    return;
+                }
+                try {
+                    publisher.convertAndSend(data.getExchange(), data.getRoutingKey(), data.getMessage(), data.getMessagePostProcessor());
+                } catch (Exception e) {
+                    log.error("消息转存本地消息表失败：{} -> {}，{}", data.getExchange(), data.getRoutingKey(), data.getMessage(), e);
                 }
             }
         });
     }
 
+    /**
+     * 重试耗尽的消息转发到error.direct；消息仍在被其他消费者处理时经延迟队列在inProgressRetryDelayMillis后回到原队列，
+     * 等处理完成或租约过期后再投递，避免立即重新入队造成的空转
+     */
     @Bean
     public MessageRecoverer republishMessageRecoverer() {
-        return new RepublishMessageRecoverer(rabbitTemplate, "error.direct", "error");
+        RepublishMessageRecoverer republish = new RepublishMessageRecoverer(rabbitTemplate, "error.direct", "error");
+        return (message, cause) -> {
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof MessageInProgressException) {
+                    MessageProperties properties = message.getMessageProperties();
+                    long delay = dedupeProperties.getIfAvailable(DedupeProperties::new).getInProgressRetryDelayMillis();
+                    properties.setExpiration(String.valueOf(delay));
+                    log.info("消息正在被处理，{}毫秒后重新投递：{}", delay, properties.getConsumerQueue());
+                    // 发送失败时异常抛给容器，消息重新入队
+                    rabbitTemplate.send(RabbitMQExchangeConfig.RETRY_DELAY_EXCHANGE, properties.getConsumerQueue(), message);
+                    return;
+                }
+            }
+            republish.recover(message, cause);
+        };
     }
 }
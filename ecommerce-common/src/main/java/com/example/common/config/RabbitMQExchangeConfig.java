@@ -20,6 +20,13 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnClass(RabbitTemplate.class)
 @Slf4j
 public class RabbitMQExchangeConfig {
+    /**
+     * 延迟重投交换机，以原队列名为路由键发送，消息在延迟队列中过期后经默认交换机回到原队列
+     */
+    public static final String RETRY_DELAY_EXCHANGE = "retry.delay";
+
+    public static final String RETRY_DELAY_QUEUE = "retry.delay.queue";
+
     private final RabbitQueueNamesConfig config;
 
     // 配置JSON转换器
@@ -112,4 +119,25 @@ public class RabbitMQExchangeConfig {
                 .to(errorMessageExchange)
                 .with("error");
     }
+
+    // 延迟重投交换器和延迟队列，延迟队列没有消费者，过期时间由每条消息的expiration指定
+    @Bean
+    public FanoutExchange retryDelayExchange() {
+        return ExchangeBuilder.fanoutExchange(RETRY_DELAY_EXCHANGE)
+                .durable(true)
+                .build();
+    }
+
+    @Bean
+    public Queue retryDelayQueue() {
+        return QueueBuilder.durable(RETRY_DELAY_QUEUE)
+                .deadLetterExchange("")
+                .build();
+    }
+
+    @Bean
+    public Binding retryDelayBinding(Queue retryDelayQueue, FanoutExchange retryDelayExchange) {
+        return BindingBuilder.bind(retryDelayQueue)
+                .to(retryDelayExchange);
+    }
 }
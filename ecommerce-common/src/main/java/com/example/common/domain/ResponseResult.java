@@ -1,6 +1,7 @@
 package com.example.common.domain;
 
 import com.example.common.exception.UserException;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 /**
  * controller返回给前端的数据
@@ -11,6 +12,8 @@ public class ResponseResult<T> {
     private int code;       // 请求状态码,使用ResuleCode类的定义
     private String msg;     // 请求消息
     private T data;         // 返回的数据
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean stale;  // 远程服务不可用时由降级逻辑返回的缓存数据，可能已经过期
 
     public ResponseResult(int code, String msg, T data) {
         this.code = code;
@@ -37,6 +40,16 @@ public class ResponseResult<T> {
         return new ResponseResult<>(ResultCode.SUCCESS, "操作成功", null);
     }
 
+    /**
+     * 远程服务不可用，返回之前缓存的数据
+     * @param data 缓存的数据
+     */
+    public static <T> ResponseResult<T> stale(T data) {
+        ResponseResult<T> result = new ResponseResult<>(ResultCode.SUCCESS, "服务暂不可用，返回缓存数据", data);
+        result.setStale(true);
+        return result;
+    }
+
     /**
      * 操作失败,返回指定的状态码和消息
      * @param code 状态码
@@ -89,4 +102,12 @@ public class ResponseResult<T> {
     public void setData(T data) {
         this.data = data;
     }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
 }
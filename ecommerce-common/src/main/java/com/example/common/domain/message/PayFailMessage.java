@@ -10,7 +10,11 @@ import java.util.List;
 public class PayFailMessage implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private Integer version;            // 消息结构版本，为空表示V1，见PayMessageVersion
     private String orderId;
+    private Long userId;
+    private Float amount;
+    private List<Long> cartItemIds;     // 订单对应的购物车项目ID
     private List<ProductQuantity> products;
     private List<Long> addProductIds;      // 需要恢复库存的ID
 }
@@ -0,0 +1,30 @@
+package com.example.common.domain.message;
+
+/**
+ * <p>
+ *     pay.*消息的结构版本
+ * </p>
+ * 消息中version字段为空时视为V1，此时消息只保证携带orderId，消费者需要自行查询订单信息；
+ * V2开始消息携带用户ID、金额、购物车项目ID和商品数量的完整快照，消费者无需再调用订单服务。
+ * 消息转换器忽略未知字段，新增字段时递增版本号即可保持新旧版本兼容。
+ */
+public final class PayMessageVersion {
+
+    public static final int V1 = 1;
+
+    public static final int V2 = 2;
+
+    public static final int CURRENT = V2;
+
+    private PayMessageVersion() {
+    }
+
+    /**
+     * 判断消息是否已经携带完整快照
+     * @param version 消息中的版本号
+     * @return 版本号不低于V2时返回true
+     */
+    public static boolean hasSnapshot(Integer version) {
+        return version != null && version >= V2;
+    }
+}
@@ -9,5 +9,8 @@ import java.io.Serializable;
 public class PayStartMessage implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private Integer version;            // 消息结构版本，为空表示V1，见PayMessageVersion
     private String orderId;
+    private Long userId;
+    private Float amount;
 }
@@ -2,12 +2,14 @@ package com.example.common.domain.message;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class ProductQuantity implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
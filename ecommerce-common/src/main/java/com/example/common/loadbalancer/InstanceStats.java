@@ -0,0 +1,59 @@
+package com.example.common.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个实例的在途请求数和平均延迟（peak-EWMA：延迟变大时立即跟上，变小时按时间衰减）
+ */
+class InstanceStats {
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final long warmSinceNanos;
+
+    private double latencyNanos;
+
+    private long lastSampleNanos;
+
+    InstanceStats(long warmSinceNanos) {
+        this.warmSinceNanos = warmSinceNanos;
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    void end() {
+        outstanding.updateAndGet(current -> Math.max(0, current - 1));
+    }
+
+    synchronized void record(long latency, long decayNanos) {
+        long now = System.nanoTime();
+        if (lastSampleNanos == 0 || latency > latencyNanos) {
+            latencyNanos = latency;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSampleNanos) / decayNanos);
+            latencyNanos = latencyNanos * weight + latency * (1 - weight);
+        }
+        lastSampleNanos = now;
+    }
+
+    /**
+     * 当前估计的延迟，长时间没有样本时向initialNanos衰减
+     */
+    synchronized double latencyNanos(long initialNanos, long decayNanos) {
+        if (lastSampleNanos == 0) {
+            return initialNanos;
+        }
+        double weight = Math.exp(-(double) (System.nanoTime() - lastSampleNanos) / decayNanos);
+        return latencyNanos * weight + initialNanos * (1 - weight);
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    long getWarmSinceNanos() {
+        return warmSinceNanos;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.common.loadbalancer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 按延迟选择实例的负载均衡配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.loadbalancer")
+public class LatencyAwareProperties {
+
+    /**
+     * 是否启用，关闭后使用默认的轮询负载均衡
+     */
+    private boolean enabled = true;
+
+    /**
+     * 没有调用记录的实例假定的延迟（毫秒）
+     */
+    private long initialLatencyMillis = 50;
+
+    /**
+     * 平均延迟的衰减时间（毫秒），长时间没有调用的实例的平均延迟逐渐回到initialLatencyMillis
+     */
+    private long decayMillis = 10000;
+
+    /**
+     * 调用失败时记录的最小延迟（毫秒），让出错的实例少分配请求
+     */
+    private long failurePenaltyMillis = 1000;
+
+    /**
+     * 新上线实例的预热时间（秒），预热期间分配的请求按比例从minWeight增加到正常水平
+     */
+    private long slowStartSeconds = 30;
+
+    /**
+     * 预热开始时的权重
+     */
+    private double minWeight = 0.1;
+}
@@ -0,0 +1,53 @@
+package com.example.common.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+/**
+ * 记录网关转发和Feign调用的在途请求数和延迟
+ */
+public class LatencyRecordingLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final LoadBalancerStats stats;
+
+    public LatencyRecordingLifecycle(LoadBalancerStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        ServiceInstance server = lbResponse.getServer();
+        if (server == null) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(System.nanoTime());
+        }
+        stats.begin(server.getServiceId(), server);
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        ServiceInstance server = lbResponse == null ? null : lbResponse.getServer();
+        if (server == null) {
+            return;
+        }
+        long latency = -1;
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        if (request != null && request.getContext() instanceof TimedRequestContext context
+                && context.getRequestStartTime() > 0) {
+            latency = System.nanoTime() - context.getRequestStartTime();
+        }
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED;
+        stats.end(server.getServiceId(), server, latency, failed);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.common.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     各服务实例的调用统计，由LatencyRecordingLifecycle在每次调用时更新，供LatencyAwareLoadBalancer选择实例
+ * </p>
+ * 某服务第一次被调用时已有的实例视为已预热；之后新出现的实例（Nacos中新注册的实例）从minWeight开始预热。
+ */
+public class LoadBalancerStats {
+
+    private final LatencyAwareProperties properties;
+
+    private final Map<String, Map<String, InstanceStats>> services = new ConcurrentHashMap<>();
+
+    public LoadBalancerStats(LatencyAwareProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 同步服务的实例列表，登记新实例并清理已下线的实例
+     */
+    void observe(String serviceId, List<ServiceInstance> instances) {
+        long now = System.nanoTime();
+        boolean firstSeen = !services.containsKey(serviceId);
+        Map<String, InstanceStats> stats = services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+        long warmSince = firstSeen ? now - TimeUnit.SECONDS.toNanos(properties.getSlowStartSeconds()) : now;
+        Set<String> alive = new HashSet<>(instances.size() * 2);
+        for (ServiceInstance instance : instances) {
+            String key = key(instance);
+            alive.add(key);
+            stats.computeIfAbsent(key, k -> new InstanceStats(warmSince));
+        }
+        if (stats.size() > alive.size()) {
+            stats.keySet().retainAll(alive);
+        }
+    }
+
+    /**
+     * 选择实例的代价：估计延迟 * (在途请求数 + 1) / 预热权重，越小越好
+     */
+    double cost(String serviceId, ServiceInstance instance) {
+        InstanceStats stats = find(serviceId, instance);
+        if (stats == null) {
+            return Double.MAX_VALUE;
+        }
+        double latency = stats.latencyNanos(TimeUnit.MILLISECONDS.toNanos(properties.getInitialLatencyMillis()), decayNanos());
+        return latency * (stats.getOutstanding() + 1) / weight(stats);
+    }
+
+    void begin(String serviceId, ServiceInstance instance) {
+        InstanceStats stats = find(serviceId, instance);
+        if (stats != null) {
+            stats.begin();
+        }
+    }
+
+    void end(String serviceId, ServiceInstance instance, long latencyNanos, boolean failed) {
+        InstanceStats stats = find(serviceId, instance);
+        if (stats == null) {
+            return;
+        }
+        stats.end();
+        if (latencyNanos >= 0) {
+            long latency = failed
+                    ? Math.max(latencyNanos, TimeUnit.MILLISECONDS.toNanos(properties.getFailurePenaltyMillis()))
+                    : latencyNanos;
+            stats.record(latency, decayNanos());
+        }
+    }
+
+    private double weight(InstanceStats stats) {
+        long slowStart = TimeUnit.SECONDS.toNanos(properties.getSlowStartSeconds());
+        if (slowStart <= 0) {
+            return 1;
+        }
+        double warmed = (double) (System.nanoTime() - stats.getWarmSinceNanos()) / slowStart;
+        return Math.max(properties.getMinWeight(), Math.min(1, warmed));
+    }
+
+    private long decayNanos() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toNanos(properties.getDecayMillis()));
+    }
+
+    private InstanceStats find(String serviceId, ServiceInstance instance) {
+        Map<String, InstanceStats> stats = services.get(serviceId);
+        return stats == null ? null : stats.get(key(instance));
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
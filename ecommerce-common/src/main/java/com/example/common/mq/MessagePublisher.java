@@ -0,0 +1,14 @@
+package com.example.common.mq;
+
+import org.springframework.amqp.core.MessagePostProcessor;
+
+/**
+ * 消息发送的统一入口，方法签名与RabbitTemplate.convertAndSend保持一致，
+ * 业务代码只需要更换注入的实现即可在不同的发送方式之间切换
+ */
+public interface MessagePublisher {
+
+    void convertAndSend(String exchange, String routingKey, Object message);
+
+    void convertAndSend(String exchange, String routingKey, Object message, MessagePostProcessor messagePostProcessor);
+}
@@ -0,0 +1,17 @@
+package com.example.common.mq;
+
+import org.springframework.amqp.core.Message;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 消息的底层传输，默认实现为RabbitPublisher，mq-inmemory环境下为进程内的InMemoryMessageBus
+ */
+public interface MessageTransport {
+
+    /**
+     * 发送一条已经转换好的消息
+     * @return 消息被传输层接受（RabbitMQ为收到发布确认）时完成
+     */
+    CompletableFuture<Void> publish(String exchange, String routingKey, Message message);
+}
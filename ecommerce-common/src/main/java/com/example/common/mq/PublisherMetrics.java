@@ -0,0 +1,37 @@
+package com.example.common.mq;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RabbitPublisher的监控指标：发送到确认的耗时、等待确认的消息数、发送失败数
+ */
+public class PublisherMetrics implements MeterBinder {
+
+    private final RabbitPublisher rabbitPublisher;
+
+    public PublisherMetrics(RabbitPublisher rabbitPublisher) {
+        this.rabbitPublisher = rabbitPublisher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Timer latency = Timer.builder("ecommerce.mq.publish.latency")
+                .description("消息从发送到收到发布确认的耗时")
+                .publishPercentileHistogram()
+                .register(registry);
+        Counter failures = Counter.builder("ecommerce.mq.publish.failures")
+                .description("收到NACK、通道关闭或确认超时的消息数")
+                .register(registry);
+        Gauge.builder("ecommerce.mq.publish.outstanding", rabbitPublisher, RabbitPublisher::getOutstandingConfirms)
+                .description("等待发布确认的消息数")
+                .register(registry);
+        rabbitPublisher.setLatencyRecorder(nanos -> latency.record(nanos, TimeUnit.NANOSECONDS));
+        rabbitPublisher.setFailureRecorder(failures::increment);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.common.mq;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * RabbitPublisher相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.mq.publisher")
+public class PublisherProperties {
+    /**
+     * 发送专用的通道数，每个通道上的发送串行执行
+     */
+    private Integer channels = 4;
+    /**
+     * 等待确认的消息数上限，达到上限后发送方阻塞
+     */
+    private Integer maxOutstanding = 10000;
+    /**
+     * 达到上限时发送方最多等待的时间
+     */
+    private Long publishTimeoutMillis = 1000L;
+    /**
+     * 超过这个时间仍未收到确认的消息按失败处理
+     */
+    private Long confirmTimeoutMillis = 5000L;
+}
@@ -0,0 +1,329 @@
+package com.example.common.mq;
+
+import com.example.common.mq.outbox.OutboxPublisher;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.AbstractConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ *     高吞吐的消息发送
+ * </p>
+ * 使用一条独立的连接和一组开启了发布确认的通道，发送方不等待确认，直接在通道上连续发送；
+ * Broker的确认通常是批量的（multiple=true），一次确认会完成该通道上序号不大于它的所有消息。
+ * <ul>
+ *     <li>publish返回在收到确认时完成的Future，可以由调用方自行决定是否等待</li>
+ *     <li>convertAndSend不等待确认，收到NACK或超时的消息转存到本地消息表（未启用时只记录日志）</li>
+ *     <li>等待确认的消息数有上限，达到上限时发送方最多阻塞publishTimeoutMillis</li>
+ * </ul>
+ */
+@Slf4j
+public class RabbitPublisher implements MessagePublisher, MessageTransport {
+
+    private final AbstractConnectionFactory connectionFactory;
+
+    private final MessageConverter messageConverter;
+
+    private final PublisherProperties properties;
+
+    private final ObjectProvider<OutboxPublisher> outboxPublisher;
+
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final PooledChannel[] channels;
+
+    private final AtomicInteger nextChannel = new AtomicInteger();
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final Semaphore permits;
+
+    private final ScheduledExecutorService sweeper;
+
+    private volatile Connection connection;
+
+    // 由PublisherMetrics设置，收到确认时记录从发送到确认的耗时（纳秒）
+    private volatile LongConsumer latencyRecorder = latency -> {};
+
+    private volatile Runnable failureRecorder = () -> {};
+
+    public RabbitPublisher(AbstractConnectionFactory connectionFactory, MessageConverter messageConverter,
+                           PublisherProperties properties, ObjectProvider<OutboxPublisher> outboxPublisher) {
+        this.connectionFactory = connectionFactory;
+        this.messageConverter = messageConverter;
+        this.properties = properties;
+        this.outboxPublisher = outboxPublisher;
+        this.permits = new Semaphore(properties.getMaxOutstanding());
+        this.channels = new PooledChannel[properties.getChannels()];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new PooledChannel();
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mq-publisher-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, properties.getConfirmTimeoutMillis() / 5);
+        sweeper.scheduleWithFixedDelay(this::expireConfirms, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception e) {
+                log.warn("关闭消息发送连接失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message) {
+        convertAndSend(exchange, routingKey, message, null);
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message, MessagePostProcessor messagePostProcessor) {
+        Message amqpMessage = messageConverter.toMessage(message, new MessageProperties());
+        if (messagePostProcessor != null) {
+            amqpMessage = messagePostProcessor.postProcessMessage(amqpMessage);
+        }
+        Message sent = amqpMessage;
+        // 确认回调在连接的IO线程上执行，转存本地消息表需要访问数据库，交给后台线程处理
+        publish(exchange, routingKey, sent).whenCompleteAsync((ignored, e) -> {
+            if (e != null) {
+                handleFailure(exchange, routingKey, sent, e);
+            }
+        }, sweeper);
+    }
+
+    /**
+     * 发送一条消息
+     * @return 收到ACK时正常完成，收到NACK、通道关闭或确认超时时异常完成
+     * @throws AmqpException 无法发送，或者等待确认的消息数达到上限
+     */
+    @Override
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Message message) {
+        try {
+            if (!permits.tryAcquire(properties.getPublishTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new AmqpException("等待确认的消息过多，发送被拒绝");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("发送被中断", e);
+        }
+        PooledChannel channel = channels[Math.floorMod(nextChannel.getAndIncrement(), channels.length)];
+        try {
+            return channel.publish(exchange, routingKey, message);
+        } catch (IOException | RuntimeException e) {
+            // 许可已经在PooledChannel中归还
+            if (e instanceof AmqpException amqpException) {
+                throw amqpException;
+            }
+            throw new AmqpIOException(e instanceof IOException io ? io : new IOException(e));
+        }
+    }
+
+    /**
+     * 当前等待确认的消息数
+     */
+    public int getOutstandingConfirms() {
+        return outstanding.get();
+    }
+
+    void setLatencyRecorder(LongConsumer latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    void setFailureRecorder(Runnable failureRecorder) {
+        this.failureRecorder = failureRecorder;
+    }
+
+    private void handleFailure(String exchange, String routingKey, Message message, Throwable cause) {
+        OutboxPublisher publisher = outboxPublisher.getIfAvailable();
+        if (publisher == null) {
+            log.error("消息发送失败：{} -> {}，{}", exchange, routingKey, cause.getMessage());
+            return;
+        }
+        try {
+            publisher.send(exchange, routingKey, message);
+            log.warn("消息发送失败，已转存本地消息表：{} -> {}，{}", exchange, routingKey, cause.getMessage());
+        } catch (Exception e) {
+            log.error("消息发送失败且转存本地消息表失败：{} -> {}", exchange, routingKey, e);
+        }
+    }
+
+    private void expireConfirms() {
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(properties.getConfirmTimeoutMillis());
+        for (PooledChannel channel : channels) {
+            channel.expire(deadline);
+        }
+    }
+
+    private synchronized Connection connection() throws IOException {
+        Connection current = connection;
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        try {
+            // 与消费者使用的连接分开，避免Broker对发送方限流时影响消费
+            current = connectionFactory.getRabbitConnectionFactory().newConnection("ecommerce-publisher");
+        } catch (TimeoutException e) {
+            throw new IOException(e);
+        }
+        connection = current;
+        return current;
+    }
+
+    private static final class Pending {
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+
+    /**
+     * 一个开启了发布确认的通道，通道上的发送串行执行，确认在连接的IO线程上异步回调
+     */
+    private final class PooledChannel implements ConfirmListener {
+
+        private final ConcurrentNavigableMap<Long, Pending> pending = new ConcurrentSkipListMap<>();
+
+        private Channel channel;
+
+        synchronized CompletableFuture<Void> publish(String exchange, String routingKey, Message message) throws IOException {
+            Channel current;
+            AMQP.BasicProperties basicProperties;
+            try {
+                current = openChannel();
+                basicProperties = propertiesConverter.fromMessageProperties(
+                        message.getMessageProperties(), StandardCharsets.UTF_8.name());
+            } catch (IOException | RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            long seq = current.getNextPublishSeqNo();
+            Pending entry = new Pending();
+            pending.put(seq, entry);
+            outstanding.incrementAndGet();
+            try {
+                current.basicPublish(exchange, routingKey, false, basicProperties, message.getBody());
+            } catch (IOException | RuntimeException e) {
+                // 通道关闭时这条消息可能已经被onShutdown处理过
+                if (pending.remove(seq) != null) {
+                    outstanding.decrementAndGet();
+                    permits.release();
+                }
+                throw e;
+            }
+            return entry.future;
+        }
+
+        @Override
+        public void handleAck(long deliveryTag, boolean multiple) {
+            complete(deliveryTag, multiple, null);
+        }
+
+        @Override
+        public void handleNack(long deliveryTag, boolean multiple) {
+            complete(deliveryTag, multiple, "NACK");
+        }
+
+        /**
+         * 让发送时间早于deadline、仍未确认的消息超时失败
+         */
+        void expire(long deadline) {
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                if (entry.getValue().startNanos - deadline < 0 && pending.remove(entry.getKey(), entry.getValue())) {
+                    fail(entry.getValue(), "发布确认超时");
+                }
+            }
+        }
+
+        private Channel openChannel() throws IOException {
+            if (channel != null && channel.isOpen()) {
+                return channel;
+            }
+            Channel created = connection().createChannel();
+            created.confirmSelect();
+            created.addConfirmListener(this);
+            created.addShutdownListener(this::onShutdown);
+            channel = created;
+            return created;
+        }
+
+        private void onShutdown(ShutdownSignalException cause) {
+            // 通道关闭后序号会重新开始，未确认的消息全部按失败处理
+            for (Long seq : pending.keySet()) {
+                Pending entry = pending.remove(seq);
+                if (entry != null) {
+                    fail(entry, "通道已关闭：" + cause.getMessage());
+                }
+            }
+        }
+
+        private void complete(long deliveryTag, boolean multiple, String failure) {
+            if (multiple) {
+                ConcurrentNavigableMap<Long, Pending> confirmed = pending.headMap(deliveryTag, true);
+                for (Long seq : confirmed.keySet()) {
+                    Pending entry = confirmed.remove(seq);
+                    if (entry != null) {
+                        finish(entry, failure);
+                    }
+                }
+            } else {
+                Pending entry = pending.remove(deliveryTag);
+                if (entry != null) {
+                    finish(entry, failure);
+                }
+            }
+        }
+
+        private void finish(Pending entry, String failure) {
+            if (failure != null) {
+                fail(entry, failure);
+                return;
+            }
+            outstanding.decrementAndGet();
+            permits.release();
+            latencyRecorder.accept(System.nanoTime() - entry.startNanos);
+            entry.future.complete(null);
+        }
+
+        private void fail(Pending entry, String reason) {
+            outstanding.decrementAndGet();
+            permits.release();
+            failureRecorder.run();
+            entry.future.completeExceptionally(new AmqpException(reason));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.common.mq.autoscale;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 消费者自动伸缩配置，配置在Nacos中修改后会重新绑定，下一次调整时生效
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.mq.autoscale")
+public class AutoscaleProperties {
+    private Boolean enabled = true;
+    /**
+     * 调整间隔
+     */
+    private Long intervalMillis = 5000L;
+    private Integer minConsumers = 1;
+    private Integer maxConsumers = 8;
+    private Integer minPrefetch = 1;
+    private Integer maxPrefetch = 50;
+    /**
+     * 平均每个消费者积压的消息超过这个数量时增加消费者
+     */
+    private Integer backlogPerConsumer = 100;
+    /**
+     * 队列连续多少次调整都为空时减少一个消费者
+     */
+    private Integer scaleDownIdleTicks = 3;
+    /**
+     * 期望每个消费者预取的消息在这么长时间内处理完，用于根据处理耗时计算预取数量
+     */
+    private Long targetPrefetchMillis = 200L;
+    /**
+     * 预取数量变化较大时需要重启容器才能对已有消费者生效，两次重启之间的最短间隔
+     */
+    private Long restartCooldownMillis = 60000L;
+    /**
+     * 手动指定的消费者数量和预取数量，key为队列名或监听器ID，指定后不再自动调整
+     */
+    private Map<String, Manual> overrides = new HashMap<>();
+
+    @Data
+    public static class Manual {
+        private Integer consumers;
+        private Integer prefetch;
+    }
+}
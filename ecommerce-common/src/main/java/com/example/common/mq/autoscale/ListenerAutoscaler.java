@@ -0,0 +1,196 @@
+package com.example.common.mq.autoscale;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ *     监听容器的消费者数量和预取数量的自动调整
+ * </p>
+ * 每个周期读取队列积压数量和上一周期的平均处理耗时：
+ * <ul>
+ *     <li>平均每个消费者积压超过backlogPerConsumer时增加消费者，积压越多增加越多；队列连续scaleDownIdleTicks个周期为空时减少一个消费者</li>
+ *     <li>预取数量按 targetPrefetchMillis / 平均处理耗时 计算，处理快的队列多预取以减少往返，处理慢的队列少预取避免消息堆在单个消费者上</li>
+ *     <li>预取数量只对新启动的消费者生效，变化超过一倍时在冷却时间之外重启容器使其对全部消费者生效</li>
+ *     <li>overrides中指定的队列使用固定值，不参与自动调整</li>
+ * </ul>
+ */
+@Slf4j
+public class ListenerAutoscaler {
+
+    private final AutoscaleProperties properties;
+
+    private final AmqpAdmin amqpAdmin;
+
+    private final List<ListenerState> states = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mq-listener-autoscaler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 由ListenerAutoscalerMetrics设置，为每个容器注册监控指标
+    private volatile Consumer<ListenerState> stateRegistrar = state -> {};
+
+    public ListenerAutoscaler(AutoscaleProperties properties, AmqpAdmin amqpAdmin) {
+        this.properties = properties;
+        this.amqpAdmin = amqpAdmin;
+    }
+
+    /**
+     * 在容器创建时调用，包装监听器以记录处理耗时
+     */
+    public void register(SimpleMessageListenerContainer container, int consumers, int prefetch) {
+        String[] queueNames = container.getQueueNames();
+        String name = queueNames.length > 0 ? queueNames[0] : container.getListenerId();
+        ListenerState state = new ListenerState(name, container, consumers, prefetch);
+        MessageListener listener = container.getMessageListener();
+        if (listener != null) {
+            container.setMessageListener(new TimedMessageListener(listener, state));
+        }
+        states.add(state);
+        stateRegistrar.accept(state);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::adjustAll, properties.getIntervalMillis(),
+                properties.getIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public Collection<ListenerState> getStates() {
+        return Collections.unmodifiableList(states);
+    }
+
+    void setStateRegistrar(Consumer<ListenerState> stateRegistrar) {
+        this.stateRegistrar = stateRegistrar;
+        states.forEach(stateRegistrar);
+    }
+
+    private void adjustAll() {
+        if (!properties.getEnabled()) {
+            return;
+        }
+        for (ListenerState state : states) {
+            try {
+                adjust(state);
+            } catch (Exception e) {
+                log.warn("调整监听容器{}失败：{}", state.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void adjust(ListenerState state) {
+        SimpleMessageListenerContainer container = state.getContainer();
+        if (!container.isRunning()) {
+            return;
+        }
+        long depth = queueDepth(container);
+        state.setQueueDepth(depth);
+        double latencyMillis = state.drainLatencyMillis();
+
+        AutoscaleProperties.Manual manual = properties.getOverrides().get(state.getName());
+        if (manual == null && container.getListenerId() != null) {
+            manual = properties.getOverrides().get(container.getListenerId());
+        }
+        int consumers = manual != null && manual.getConsumers() != null
+                ? manual.getConsumers() : targetConsumers(state, depth);
+        int prefetch = manual != null && manual.getPrefetch() != null
+                ? manual.getPrefetch() : targetPrefetch(state, latencyMillis);
+
+        if (consumers != state.getConsumers()) {
+            log.info("监听容器{}消费者数量调整：{} -> {}，积压{}条", state.getName(), state.getConsumers(), consumers, depth);
+            container.setConcurrentConsumers(consumers);
+            state.setConsumers(consumers);
+        }
+        if (prefetch != state.getPrefetch()) {
+            log.info("监听容器{}预取数量调整：{} -> {}，平均处理耗时{}ms", state.getName(), state.getPrefetch(),
+                    prefetch, String.format("%.2f", latencyMillis));
+            container.setPrefetchCount(prefetch);
+            state.setPrefetch(prefetch);
+        }
+        restartIfNeeded(state);
+    }
+
+    private int targetConsumers(ListenerState state, long depth) {
+        int current = state.getConsumers();
+        int target = current;
+        if (depth > (long) current * properties.getBacklogPerConsumer()) {
+            state.idleTicks = 0;
+            // 按积压量估算需要的消费者数量，每次最多翻倍，避免一次扩容过多
+            long needed = (depth + properties.getBacklogPerConsumer() - 1) / properties.getBacklogPerConsumer();
+            target = (int) Math.min(needed, (long) current * 2);
+        } else if (depth == 0) {
+            if (++state.idleTicks >= properties.getScaleDownIdleTicks()) {
+                state.idleTicks = 0;
+                target = current - 1;
+            }
+        } else {
+            state.idleTicks = 0;
+        }
+        return clamp(target, properties.getMinConsumers(), properties.getMaxConsumers());
+    }
+
+    private int targetPrefetch(ListenerState state, double latencyMillis) {
+        if (latencyMillis <= 0) {
+            return state.getPrefetch();
+        }
+        long target = Math.round(properties.getTargetPrefetchMillis() / latencyMillis);
+        return clamp((int) Math.min(target, Integer.MAX_VALUE), properties.getMinPrefetch(), properties.getMaxPrefetch());
+    }
+
+    /**
+     * 已有的消费者不会读取新的预取数量，变化较大时重启容器
+     */
+    private void restartIfNeeded(ListenerState state) {
+        int applied = state.appliedPrefetch;
+        int prefetch = state.getPrefetch();
+        if (prefetch < applied * 2 && applied < prefetch * 2) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - state.lastRestartMillis < properties.getRestartCooldownMillis()) {
+            return;
+        }
+        log.info("监听容器{}重启以应用预取数量：{} -> {}", state.getName(), applied, prefetch);
+        state.lastRestartMillis = now;
+        state.appliedPrefetch = prefetch;
+        state.getContainer().stop(() -> state.getContainer().start());
+    }
+
+    private long queueDepth(SimpleMessageListenerContainer container) {
+        long depth = 0;
+        for (String queueName : container.getQueueNames()) {
+            QueueInformation info = amqpAdmin.getQueueInfo(queueName);
+            if (info != null) {
+                depth += info.getMessageCount();
+            }
+        }
+        return depth;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.common.mq.autoscale;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 监听容器的监控指标：消费者数量、预取数量、队列积压和平均处理耗时，按队列名打标签
+ */
+public class ListenerAutoscalerMetrics implements MeterBinder {
+
+    private final ListenerAutoscaler listenerAutoscaler;
+
+    public ListenerAutoscalerMetrics(ListenerAutoscaler listenerAutoscaler) {
+        this.listenerAutoscaler = listenerAutoscaler;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // 监听容器可能在注册表初始化之后才创建，由ListenerAutoscaler在注册容器时回调
+        listenerAutoscaler.setStateRegistrar(state -> {
+            Tags tags = Tags.of("queue", state.getName());
+            Gauge.builder("ecommerce.mq.listener.consumers", state, ListenerState::getConsumers)
+                    .tags(tags).register(registry);
+            Gauge.builder("ecommerce.mq.listener.prefetch", state, ListenerState::getPrefetch)
+                    .tags(tags).register(registry);
+            Gauge.builder("ecommerce.mq.listener.queue-depth", state, ListenerState::getQueueDepth)
+                    .tags(tags).register(registry);
+            Gauge.builder("ecommerce.mq.listener.latency", state, ListenerState::getLatencyMillis)
+                    .tags(tags).baseUnit("milliseconds").register(registry);
+        });
+    }
+}
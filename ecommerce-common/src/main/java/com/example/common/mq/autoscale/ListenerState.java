@@ -0,0 +1,71 @@
+package com.example.common.mq.autoscale;
+
+import lombok.Getter;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个监听容器的运行状态，处理耗时由TimedMessageListener记录，其余字段由ListenerAutoscaler维护
+ */
+@Getter
+public class ListenerState {
+
+    private final String name;
+
+    private final SimpleMessageListenerContainer container;
+
+    private final LongAdder processed = new LongAdder();
+
+    private final LongAdder processNanos = new LongAdder();
+
+    private volatile int consumers;
+
+    private volatile int prefetch;
+
+    private volatile long queueDepth;
+
+    private volatile double latencyMillis;
+
+    // 以下字段只在调整线程中访问
+    int idleTicks;
+    int appliedPrefetch;
+    long lastRestartMillis;
+
+    ListenerState(String name, SimpleMessageListenerContainer container, int consumers, int prefetch) {
+        this.name = name;
+        this.container = container;
+        this.consumers = consumers;
+        this.prefetch = prefetch;
+        this.appliedPrefetch = prefetch;
+    }
+
+    void record(long nanos) {
+        processed.increment();
+        processNanos.add(nanos);
+    }
+
+    /**
+     * 取出上一个周期的平均处理耗时，周期内没有处理消息时保持上一次的值
+     */
+    double drainLatencyMillis() {
+        long count = processed.sumThenReset();
+        long nanos = processNanos.sumThenReset();
+        if (count > 0) {
+            latencyMillis = nanos / 1_000_000.0 / count;
+        }
+        return latencyMillis;
+    }
+
+    void setConsumers(int consumers) {
+        this.consumers = consumers;
+    }
+
+    void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    void setQueueDepth(long queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.common.mq.autoscale;
+
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+
+import java.util.List;
+
+/**
+ * 包装监听器，记录每条消息的处理耗时
+ */
+class TimedMessageListener implements ChannelAwareMessageListener {
+
+    private final MessageListener delegate;
+
+    private final ListenerState state;
+
+    TimedMessageListener(MessageListener delegate, ListenerState state) {
+        this.delegate = delegate;
+        this.state = state;
+    }
+
+    @Override
+    public void onMessage(Message message, Channel channel) throws Exception {
+        long start = System.nanoTime();
+        try {
+            if (delegate instanceof ChannelAwareMessageListener channelAware) {
+                channelAware.onMessage(message, channel);
+            } else {
+                delegate.onMessage(message);
+            }
+        } finally {
+            state.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        long start = System.nanoTime();
+        try {
+            delegate.onMessage(message);
+        } finally {
+            state.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onMessageBatch(List<Message> messages, Channel channel) {
+        if (delegate instanceof ChannelAwareMessageListener channelAware) {
+            channelAware.onMessageBatch(messages, channel);
+        } else {
+            delegate.onMessageBatch(messages);
+        }
+    }
+
+    @Override
+    public void containerAckMode(AcknowledgeMode mode) {
+        delegate.containerAckMode(mode);
+    }
+
+    @Override
+    public boolean isAsyncReplies() {
+        return delegate.isAsyncReplies();
+    }
+}
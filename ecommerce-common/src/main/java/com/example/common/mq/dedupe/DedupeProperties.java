@@ -0,0 +1,32 @@
+package com.example.common.mq.dedupe;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * MessageDeduplicator相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.mq.dedupe")
+public class DedupeProperties {
+    /**
+     * 关闭后所有消息都直接处理
+     */
+    private Boolean enabled = true;
+    /**
+     * 本地缓存的已处理消息数，超过后淘汰最久未访问的记录
+     */
+    private Integer localCapacity = 10000;
+    /**
+     * 处理中标记（租约）的有效期，处理期间自动续期；消费者在处理过程中崩溃时，超过这个时间后重投的消息才能再次处理
+     */
+    private Long processingTtlSeconds = 30L;
+    /**
+     * 消息仍在被其他消费者处理时，延迟多久重新投递（毫秒）
+     */
+    private Long inProgressRetryDelayMillis = 5000L;
+    /**
+     * 已处理标记的有效期，应大于消息可能被重投的最长时间
+     */
+    private Long doneTtlSeconds = 86400L;
+}
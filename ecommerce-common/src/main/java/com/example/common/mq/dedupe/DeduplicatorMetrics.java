@@ -0,0 +1,27 @@
+package com.example.common.mq.dedupe;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * MessageDeduplicator的监控指标：按消费者统计处理的消息数和跳过的重复消息数，两者之比即重复率
+ */
+public class DeduplicatorMetrics implements MeterBinder {
+
+    private final MessageDeduplicator messageDeduplicator;
+
+    public DeduplicatorMetrics(MessageDeduplicator messageDeduplicator) {
+        this.messageDeduplicator = messageDeduplicator;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        messageDeduplicator.setRecorder((consumer, duplicate) -> Counter.builder("ecommerce.mq.dedupe.messages")
+                .description("幂等消费检查的消息数，result=duplicate为跳过的重复消息")
+                .tag("consumer", consumer)
+                .tag("result", duplicate ? "duplicate" : "processed")
+                .register(registry)
+                .increment());
+    }
+}
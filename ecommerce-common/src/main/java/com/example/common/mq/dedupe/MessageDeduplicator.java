@@ -0,0 +1,202 @@
+package com.example.common.mq.dedupe;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ *     消息的幂等消费
+ * </p>
+ * 以消费者名称和消息ID（Jackson2JsonMessageConverter生成，本地消息表重发时保持不变）为键：
+ * <ul>
+ *     <li>先查本地LRU缓存，命中说明本实例已经处理过，不访问Redis和数据库</li>
+ *     <li>再用SETNX写入处理中标记，写入成功的消费者执行处理，成功后改为已处理标记，失败则删除标记以便重投后重新处理</li>
+ *     <li>处理中标记是一个较短的租约，处理期间每隔三分之一有效期续期一次；消费者崩溃后租约很快过期，重投的消息可以再次处理</li>
+ *     <li>标记已存在时，已处理的消息直接跳过；仍在处理中的消息抛出MessageInProgressException，重试耗尽后延迟重新入队，等租约过期或处理完成</li>
+ *     <li>Redis不可用时不做去重，直接处理</li>
+ * </ul>
+ */
+@Slf4j
+public class MessageDeduplicator {
+
+    private static final String KEY_PREFIX = "mq:dedupe:";
+
+    private static final String PROCESSING = "PROCESSING";
+
+    private static final String DONE = "DONE";
+
+    /**
+     * 只在标记仍为处理中时续期，避免与已处理标记的写入竞争，把已处理标记的有效期缩短为租约时间
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('EXPIRE', KEYS[1], ARGV[2]) end return 0",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final DedupeProperties properties;
+
+    private final Map<String, Boolean> localDone;
+
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mq-dedupe-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 由DeduplicatorMetrics设置，参数为消费者名称和是否为重复消息
+    private volatile BiConsumer<String, Boolean> recorder = (consumer, duplicate) -> {};
+
+    public MessageDeduplicator(RedisTemplate<String, Object> redisTemplate, DedupeProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        int capacity = properties.getLocalCapacity();
+        this.localDone = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void stop() {
+        leaseRenewer.shutdownNow();
+    }
+
+    /**
+     * 消息没有被处理过时执行action
+     * @param consumer 消费者名称，同一条消息被不同消费者处理时互不影响，一般使用队列名
+     * @param messageId 消息ID，为空时（旧的生产者）不做去重
+     * @param action 消息的处理逻辑
+     * @return 执行了action返回true，重复消息返回false
+     * @throws MessageInProgressException 消息正在被其他消费者处理
+     */
+    public boolean execute(String consumer, String messageId, Runnable action) {
+        if (!properties.getEnabled() || messageId == null) {
+            action.run();
+            return true;
+        }
+        String key = consumer + ":" + messageId;
+        if (isLocalDone(key)) {
+            duplicate(consumer, messageId);
+            return false;
+        }
+        Boolean acquired = acquire(key);
+        if (Boolean.FALSE.equals(acquired)) {
+            Object state = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+            if (DONE.equals(state)) {
+                markLocalDone(key);
+                duplicate(consumer, messageId);
+                return false;
+            }
+            if (state != null) {
+                throw new MessageInProgressException("消息正在被处理，稍后重试：" + key);
+            }
+            // 标记恰好过期，重新抢占
+            acquired = acquire(key);
+            if (Boolean.FALSE.equals(acquired)) {
+                throw new MessageInProgressException("消息正在被处理，稍后重试：" + key);
+            }
+        }
+        ScheduledFuture<?> renewal = acquired == null ? null : renewLease(key);
+        boolean succeeded = false;
+        try {
+            action.run();
+            succeeded = true;
+        } finally {
+            // Error或被隐藏抛出的受检异常也要停止续期并删除标记，否则重投的消息会一直被判断为处理中
+            if (renewal != null) {
+                renewal.cancel(false);
+                if (!succeeded) {
+                    release(key);
+                }
+            }
+        }
+        markLocalDone(key);
+        if (acquired != null) {
+            markDone(key);
+        }
+        recorder.accept(consumer, false);
+        return true;
+    }
+
+    void setRecorder(BiConsumer<String, Boolean> recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * @return Redis不可用时返回null
+     */
+    private Boolean acquire(String key) {
+        try {
+            return redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, PROCESSING,
+                    Duration.ofSeconds(properties.getProcessingTtlSeconds()));
+        } catch (Exception e) {
+            log.warn("消息去重标记写入失败，不做去重：{}，{}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 处理期间定期续期处理中标记
+     */
+    private ScheduledFuture<?> renewLease(String key) {
+        long ttlSeconds = properties.getProcessingTtlSeconds();
+        long periodMillis = Math.max(1, TimeUnit.SECONDS.toMillis(ttlSeconds) / 3);
+        return leaseRenewer.scheduleAtFixedRate(() -> {
+            try {
+                redisTemplate.execute(RENEW_SCRIPT, List.of(KEY_PREFIX + key), PROCESSING, ttlSeconds);
+            } catch (Exception e) {
+                log.warn("消息处理中标记续期失败：{}，{}", key, e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void markDone(String key) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + key, DONE, Duration.ofSeconds(properties.getDoneTtlSeconds()));
+        } catch (Exception e) {
+            // 处理中标记过期后，其他实例收到重投的消息会再次处理
+            log.warn("消息已处理标记写入失败：{}，{}", key, e.getMessage());
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + key);
+        } catch (Exception e) {
+            log.warn("消息处理中标记删除失败：{}，{}", key, e.getMessage());
+        }
+    }
+
+    private void duplicate(String consumer, String messageId) {
+        log.info("跳过重复消息：{}，{}", consumer, messageId);
+        recorder.accept(consumer, true);
+    }
+
+    private boolean isLocalDone(String key) {
+        synchronized (localDone) {
+            return localDone.get(key) != null;
+        }
+    }
+
+    private void markLocalDone(String key) {
+        synchronized (localDone) {
+            localDone.put(key, Boolean.TRUE);
+        }
+    }
+}
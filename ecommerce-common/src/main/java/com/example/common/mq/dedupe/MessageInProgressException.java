@@ -0,0 +1,13 @@
+package com.example.common.mq.dedupe;
+
+import com.example.common.exception.SystemException;
+
+/**
+ * 消息正在被其他消费者处理，由RabbitInitConfig中的MessageRecoverer识别，重试耗尽后经延迟队列重新投递而不是转发到error.direct
+ */
+public class MessageInProgressException extends SystemException {
+
+    public MessageInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.common.mq.inmemory;
+
+import com.example.common.mq.MessagePublisher;
+import com.example.common.mq.MessageTransport;
+import com.example.common.mq.dedupe.MessageInProgressException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AbstractExchange;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Exchange;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ListableBeanFactory;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     进程内的消息总线，用于没有RabbitMQ的测试和单机环境
+ * </p>
+ * <ul>
+ *     <li>路由规则来自容器中声明的Exchange、Queue、Binding，支持direct、fanout、topic交换机以及交换机之间的绑定</li>
+ *     <li>消息投递给@RabbitListener生成的监听器（容器本身不启动），参数转换与RabbitMQ下完全相同</li>
+ *     <li>每个队列一个环形缓冲区和一个消费线程，同一队列内的消息严格按发送顺序处理，与单消费者的RabbitMQ队列一致</li>
+ *     <li>处理失败按maxAttempts重试，仍然失败时与RabbitMQ下的RepublishMessageRecoverer一样转发到error.direct，消息仍在被处理时稍后重新入队</li>
+ *     <li>缓冲区已满时发送方最多等待offerTimeoutMillis，超时后发送失败（publish返回失败的Future，convertAndSend抛出AmqpException）</li>
+ *     <li>本进程内没有监听器、但配置了死信交换机的队列视为延迟队列，消息在过期（expiration或x-message-ttl）后转发到死信交换机</li>
+ * </ul>
+ */
+@Slf4j
+public class InMemoryMessageBus implements MessagePublisher, MessageTransport {
+
+    private static final String DEFAULT_EXCHANGE = "";
+
+    // 与RabbitInitConfig中的RepublishMessageRecoverer保持一致
+    private static final String ERROR_EXCHANGE = "error.direct";
+
+    private static final String ERROR_ROUTING_KEY = "error";
+
+    private final ListableBeanFactory beanFactory;
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+
+    private final MessageConverter messageConverter;
+
+    private final int bufferSize;
+
+    private final long offerTimeoutNanos;
+
+    private final int maxAttempts;
+
+    private final Map<String, QueueWorker> workers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService delayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mq-inmemory-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Topology topology;
+
+    public InMemoryMessageBus(ListableBeanFactory beanFactory, RabbitListenerEndpointRegistry listenerRegistry,
+                              MessageConverter messageConverter, int bufferSize, long offerTimeoutMillis, int maxAttempts) {
+        this.beanFactory = beanFactory;
+        this.listenerRegistry = listenerRegistry;
+        this.messageConverter = messageConverter;
+        this.bufferSize = bufferSize;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PreDestroy
+    public void stop() {
+        delayScheduler.shutdownNow();
+        workers.values().forEach(QueueWorker::stop);
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message) {
+        convertAndSend(exchange, routingKey, message, null);
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message, MessagePostProcessor messagePostProcessor) {
+        Message amqpMessage = messageConverter.toMessage(message, new MessageProperties());
+        if (messagePostProcessor != null) {
+            amqpMessage = messagePostProcessor.postProcessMessage(amqpMessage);
+        }
+        List<String> rejected = deliver(exchange, routingKey, amqpMessage);
+        if (!rejected.isEmpty()) {
+            throw new AmqpException("进程内消息队列已满：" + rejected);
+        }
+    }
+
+    /**
+     * 消息写入所有目标队列的缓冲区后即完成，有队列的缓冲区已满时返回失败的Future（其余队列已经写入）
+     */
+    @Override
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Message message) {
+        List<String> rejected = deliver(exchange, routingKey, message);
+        if (!rejected.isEmpty()) {
+            return CompletableFuture.failedFuture(new AmqpException("进程内消息队列已满：" + rejected));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 写入所有目标队列的缓冲区
+     * @return 缓冲区已满、没有写入的队列
+     */
+    private List<String> deliver(String exchange, String routingKey, Message message) {
+        Set<String> queueNames = topology().route(exchange, routingKey);
+        if (queueNames.isEmpty()) {
+            log.debug("消息没有匹配的队列，已丢弃：{} -> {}", exchange, routingKey);
+        }
+        List<String> rejected = new ArrayList<>();
+        for (String queueName : queueNames) {
+            Message copy = MessageBuilder.fromClonedMessage(message).build();
+            copy.getMessageProperties().setReceivedExchange(exchange);
+            copy.getMessageProperties().setReceivedRoutingKey(routingKey);
+            copy.getMessageProperties().setConsumerQueue(queueName);
+            if (!workers.computeIfAbsent(queueName, QueueWorker::new).offer(copy)) {
+                rejected.add(queueName);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            log.error("进程内消息队列已满，消息发送失败：{} -> {}，{}", exchange, routingKey, rejected);
+        }
+        return rejected;
+    }
+
+    /**
+     * 队列中尚未处理的消息数
+     */
+    public long getQueueDepth(String queueName) {
+        QueueWorker worker = workers.get(queueName);
+        return worker == null ? 0 : worker.buffer.size();
+    }
+
+    private Topology topology() {
+        Topology current = topology;
+        if (current == null) {
+            synchronized (this) {
+                current = topology;
+                if (current == null) {
+                    current = new Topology();
+                    topology = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 查找监听该队列的监听器，监听容器在所有单例创建完成后才注册，因此在第一次投递时查找
+     */
+    private MessageListener findListener(String queueName) {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof AbstractMessageListenerContainer listenerContainer
+                    && List.of(listenerContainer.getQueueNames()).contains(queueName)) {
+                return listenerContainer.getMessageListener();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 重试耗尽的消息转发到error.direct，附带与RepublishMessageRecoverer相同的异常信息头
+     */
+    private void recover(String queueName, Message message, Exception cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof MessageInProgressException) {
+                // 与RabbitInitConfig一致，消息仍在被处理时稍后重新入队
+                delayScheduler.schedule(() -> {
+                    if (!workers.computeIfAbsent(queueName, QueueWorker::new).offer(message)) {
+                        log.error("进程内消息重新入队失败，已丢弃：{}", queueName);
+                    }
+                }, 1, TimeUnit.SECONDS);
+                return;
+            }
+        }
+        MessageProperties properties = message.getMessageProperties();
+        StringWriter stackTrace = new StringWriter();
+        cause.printStackTrace(new PrintWriter(stackTrace));
+        properties.setHeader("x-exception-stacktrace", stackTrace.toString());
+        properties.setHeader("x-exception-message", cause.getCause() != null ? cause.getCause().getMessage() : cause.getMessage());
+        properties.setHeader("x-original-exchange", properties.getReceivedExchange());
+        properties.setHeader("x-original-routingKey", properties.getReceivedRoutingKey());
+        properties.setExpiration(null);
+        if (topology().route(ERROR_EXCHANGE, ERROR_ROUTING_KEY).isEmpty()) {
+            log.error("进程内消息处理失败，已丢弃：{}，{}", queueName, cause.getMessage());
+            return;
+        }
+        deliver(ERROR_EXCHANGE, ERROR_ROUTING_KEY, message);
+    }
+
+    /**
+     * 过期的消息转发到队列配置的死信交换机
+     */
+    private void deadLetter(String queueName, Message message) {
+        Queue queue = topology().queues.get(queueName);
+        String exchange = (String) queue.getArguments().get("x-dead-letter-exchange");
+        Object routingKey = queue.getArguments().get("x-dead-letter-routing-key");
+        MessageProperties properties = message.getMessageProperties();
+        properties.setExpiration(null);
+        deliver(exchange, routingKey != null ? routingKey.toString() : properties.getReceivedRoutingKey(), message);
+    }
+
+    private boolean hasDeadLetterExchange(String queueName) {
+        Queue queue = topology().queues.get(queueName);
+        return queue != null && queue.getArguments().containsKey("x-dead-letter-exchange");
+    }
+
+    private long ttlMillis(String queueName, Message message) {
+        String expiration = message.getMessageProperties().getExpiration();
+        if (expiration != null) {
+            return Long.parseLong(expiration);
+        }
+        Queue queue = topology().queues.get(queueName);
+        Object ttl = queue == null ? null : queue.getArguments().get("x-message-ttl");
+        return ttl instanceof Number number ? number.longValue() : -1;
+    }
+
+    /**
+     * 容器中声明的交换机、队列和绑定关系
+     */
+    private final class Topology {
+
+        private final Map<String, String> exchangeTypes = new HashMap<>();
+
+        private final Map<String, Queue> queues = new HashMap<>();
+
+        private final Map<String, List<Binding>> bindings = new HashMap<>();
+
+        Topology() {
+            List<Object> declarables = new ArrayList<>();
+            declarables.addAll(beanFactory.getBeansOfType(Exchange.class, false, false).values());
+            declarables.addAll(beanFactory.getBeansOfType(Queue.class, false, false).values());
+            declarables.addAll(beanFactory.getBeansOfType(Binding.class, false, false).values());
+            beanFactory.getBeansOfType(Declarables.class, false, false).values()
+                    .forEach(group -> declarables.addAll(group.getDeclarables()));
+            for (Object declarable : declarables) {
+                if (declarable instanceof AbstractExchange exchange) {
+                    exchangeTypes.put(exchange.getName(), exchange.getType());
+                } else if (declarable instanceof Queue queue) {
+                    queues.put(queue.getName(), queue);
+                } else if (declarable instanceof Binding binding) {
+                    bindings.computeIfAbsent(binding.getExchange(), key -> new ArrayList<>()).add(binding);
+                }
+            }
+        }
+
+        Set<String> route(String exchange, String routingKey) {
+            Set<String> result = new LinkedHashSet<>();
+            if (exchange == null || DEFAULT_EXCHANGE.equals(exchange)) {
+                // 默认交换机按队列名路由
+                result.add(routingKey);
+                return result;
+            }
+            route(exchange, routingKey, result, new LinkedHashSet<>());
+            return result;
+        }
+
+        private void route(String exchange, String routingKey, Set<String> result, Set<String> visited) {
+            if (!visited.add(exchange)) {
+                return;
+            }
+            String type = exchangeTypes.getOrDefault(exchange, ExchangeTypes.DIRECT);
+            for (Binding binding : bindings.getOrDefault(exchange, List.of())) {
+                if (!matches(type, binding.getRoutingKey(), routingKey)) {
+                    continue;
+                }
+                if (binding.isDestinationQueue()) {
+                    result.add(binding.getDestination());
+                } else {
+                    route(binding.getDestination(), routingKey, result, visited);
+                }
+            }
+        }
+
+        private boolean matches(String type, String bindingKey, String routingKey) {
+            return switch (type) {
+                case ExchangeTypes.FANOUT -> true;
+                case ExchangeTypes.TOPIC -> topicMatches(bindingKey.split("\\."), 0, routingKey.split("\\."), 0);
+                case ExchangeTypes.DIRECT -> bindingKey.equals(routingKey);
+                default -> false;
+            };
+        }
+
+        private boolean topicMatches(String[] pattern, int p, String[] words, int w) {
+            if (p == pattern.length) {
+                return w == words.length;
+            }
+            if ("#".equals(pattern[p])) {
+                for (int i = w; i <= words.length; i++) {
+                    if (topicMatches(pattern, p + 1, words, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return w < words.length && ("*".equals(pattern[p]) || pattern[p].equals(words[w]))
+                    && topicMatches(pattern, p + 1, words, w + 1);
+        }
+    }
+
+    /**
+     * 一个队列的缓冲区和消费线程
+     */
+    private final class QueueWorker {
+
+        private final String queueName;
+
+        private final RingBuffer<Message> buffer = new RingBuffer<>(bufferSize);
+
+        private final Thread thread;
+
+        private volatile boolean listenerResolved;
+
+        private MessageListener listener;
+
+        QueueWorker(String queueName) {
+            this.queueName = queueName;
+            this.thread = new Thread(this::run, "mq-inmemory-" + queueName);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * 消费线程向自己的队列发送时不能等待，否则缓冲区已满时永远等不到空位
+         */
+        boolean offer(Message message) {
+            return buffer.offer(message, Thread.currentThread() == thread ? 0 : offerTimeoutNanos);
+        }
+
+        void stop() {
+            thread.interrupt();
+        }
+
+        private void run() {
+            while (true) {
+                Message message;
+                try {
+                    message = buffer.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    dispatch(message);
+                } catch (Exception e) {
+                    log.error("进程内消息处理失败：{}", queueName, e);
+                }
+            }
+        }
+
+        private void dispatch(Message message) {
+            if (!listenerResolved) {
+                listener = findListener(queueName);
+                listenerResolved = listener != null;
+            }
+            if (listener == null) {
+                long ttl = ttlMillis(queueName, message);
+                if (ttl >= 0 && hasDeadLetterExchange(queueName)) {
+                    delayScheduler.schedule(() -> deadLetter(queueName, message), ttl, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                log.debug("队列{}在本进程内没有监听器，消息已丢弃", queueName);
+                return;
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    if (listener instanceof ChannelAwareMessageListener channelAware) {
+                        channelAware.onMessage(message, null);
+                    } else {
+                        listener.onMessage(message);
+                    }
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        recover(queueName, message, e);
+                        return;
+                    }
+                    log.warn("进程内消息处理失败，第{}次重试：{}，{}", attempt, queueName, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.common.mq.inmemory;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 进程内消息总线相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.mq.inmemory")
+public class InMemoryMessagingProperties {
+    /**
+     * 每个队列的缓冲区大小，会向上取整为2的幂，缓冲区满时发送方等待
+     */
+    private Integer bufferSize = 65536;
+    /**
+     * 缓冲区已满时发送方最多等待的时间，超时后发送失败；队列的消费线程向自己的队列发送时不等待
+     */
+    private Long offerTimeoutMillis = 1000L;
+    /**
+     * 一条消息最多处理的次数，与spring.rabbitmq.listener.simple.retry.max-attempts含义相同
+     */
+    private Integer maxAttempts = 3;
+}
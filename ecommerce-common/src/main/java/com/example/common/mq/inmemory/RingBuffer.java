@@ -0,0 +1,97 @@
+package com.example.common.mq.inmemory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ *     多生产者、单消费者的有界环形缓冲区
+ * </p>
+ * 生产者通过CAS递增序号认领槽位，只有缓冲区有空位时才会认领，元素按认领顺序被消费；
+ * 缓冲区已满时生产者最多等待指定时间，超时后放弃写入。
+ * 消费者只能有一个线程，空闲时先自旋再短暂休眠，生产者写入后会唤醒它。
+ */
+class RingBuffer<T> {
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AtomicReferenceArray<T> slots;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // 只由消费者线程写入
+    private volatile long head;
+
+    private volatile Thread consumer;
+
+    RingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 写入一个元素，缓冲区已满时最多等待timeoutNanos
+     * @return 超时仍没有空位时返回false，元素没有写入
+     */
+    boolean offer(T item, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        long seq;
+        while (true) {
+            seq = tail.get();
+            if (seq - head >= slots.length()) {
+                if (deadline - System.nanoTime() <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (tail.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        slots.lazySet((int) (seq & mask), item);
+        Thread waiting = consumer;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        return true;
+    }
+
+    /**
+     * 取出下一个元素，没有元素时阻塞，只能由消费者线程调用
+     * @throws InterruptedException 消费者线程被中断
+     */
+    T take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        long current = head;
+        int index = (int) (current & mask);
+        int tries = 0;
+        T item;
+        // 槽位为空说明生产者还没有写入（可能已认领序号但尚未写入）
+        while ((item = slots.get(index)) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tries++ < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS * 10);
+            }
+        }
+        slots.lazySet(index, null);
+        head = current + 1;
+        return item;
+    }
+
+    /**
+     * 当前缓冲区中的元素数量（含已认领但尚未写入的槽位）
+     */
+    long size() {
+        return Math.max(0, tail.get() - head);
+    }
+}
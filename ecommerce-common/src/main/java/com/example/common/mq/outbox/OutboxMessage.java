@@ -0,0 +1,26 @@
+package com.example.common.mq.outbox;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * mq_outbox表中的一条待投递消息
+ */
+@Data
+public class OutboxMessage {
+    private Long id;
+    private String exchange;
+    private String routingKey;
+    private byte[] body;
+    private String properties;      // 序列化后的消息属性，见OutboxPublisher
+    private Integer status;         // 0待投递，1死信
+    private Integer retryCount;
+    private LocalDateTime nextRetryTime;
+    private String lastError;
+    private LocalDateTime createTime;
+
+    public static final int STATUS_PENDING = 0;
+
+    public static final int STATUS_DEAD = 1;
+}
@@ -0,0 +1,44 @@
+package com.example.common.mq.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 本地消息表（mq_outbox）相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.mq.outbox")
+public class OutboxProperties {
+    /**
+     * 是否启用，启用的服务需要在自己的数据库中创建mq_outbox表
+     */
+    private Boolean enabled = false;
+    /**
+     * 投递线程数
+     */
+    private Integer relayThreads = 2;
+    /**
+     * 扫描待投递消息的间隔
+     */
+    private Long pollIntervalMillis = 500L;
+    /**
+     * 每批投递的消息数
+     */
+    private Integer batchSize = 100;
+    /**
+     * 等待一批消息的发布确认的最长时间
+     */
+    private Long confirmTimeoutMillis = 5000L;
+    /**
+     * 最多重试次数，超过后消息转为死信，等待人工重放
+     */
+    private Integer maxRetries = 5;
+    /**
+     * 首次重试的延迟，之后每次翻倍
+     */
+    private Long initialBackoffMillis = 1000L;
+    /**
+     * 重试延迟的上限
+     */
+    private Long maxBackoffMillis = 60000L;
+}
@@ -0,0 +1,134 @@
+package com.example.common.mq.outbox;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.example.common.mq.MessagePublisher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *     基于本地消息表的消息发送
+ * </p>
+ * 消息先在业务事务中写入mq_outbox表，事务提交后由OutboxRelay投递到RabbitMQ，
+ * 业务回滚时消息随之回滚，进程崩溃时未投递的消息保留在表中，重启后继续投递。
+ * 方法签名与RabbitTemplate.convertAndSend保持一致，消息在写入时就完成转换，MessagePostProcessor也在写入时执行。
+ */
+@Slf4j
+public class OutboxPublisher implements MessagePublisher {
+
+    private static final ObjectMapper PROPERTIES_MAPPER = new ObjectMapper();
+
+    private final OutboxRepository outboxRepository;
+
+    private final OutboxRelay outboxRelay;
+
+    private final MessageConverter messageConverter;
+
+    public OutboxPublisher(OutboxRepository outboxRepository, OutboxRelay outboxRelay, MessageConverter messageConverter) {
+        this.outboxRepository = outboxRepository;
+        this.outboxRelay = outboxRelay;
+        this.messageConverter = messageConverter;
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message) {
+        convertAndSend(exchange, routingKey, message, null);
+    }
+
+    @Override
+    public void convertAndSend(String exchange, String routingKey, Object message, MessagePostProcessor messagePostProcessor) {
+        Message amqpMessage = messageConverter.toMessage(message, new MessageProperties());
+        if (messagePostProcessor != null) {
+            amqpMessage = messagePostProcessor.postProcessMessage(amqpMessage);
+        }
+        send(exchange, routingKey, amqpMessage);
+    }
+
+    /**
+     * 写入一条已经转换好的消息
+     */
+    public void send(String exchange, String routingKey, Message message) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setId(IdWorker.getId());
+        outboxMessage.setExchange(exchange);
+        outboxMessage.setRoutingKey(routingKey);
+        outboxMessage.setBody(message.getBody());
+        outboxMessage.setProperties(writeProperties(message.getMessageProperties()));
+        outboxMessage.setStatus(OutboxMessage.STATUS_PENDING);
+        outboxMessage.setRetryCount(0);
+        outboxMessage.setNextRetryTime(now);
+        outboxMessage.setCreateTime(now);
+        outboxRepository.insert(outboxMessage);
+
+        if (SeataSupport.inGlobalTransaction()) {
+            // 全局事务结束前消息无法被认领，由定时扫描投递
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.trigger();
+                }
+            });
+        } else {
+            outboxRelay.trigger();
+        }
+    }
+
+    /**
+     * 只保存投递需要的消息属性，消息ID在写入时生成，重试时保持不变，便于消费者去重
+     */
+    static String writeProperties(MessageProperties properties) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("messageId", properties.getMessageId());
+        map.put("contentType", properties.getContentType());
+        map.put("contentEncoding", properties.getContentEncoding());
+        map.put("expiration", properties.getExpiration());
+        map.put("priority", properties.getPriority());
+        map.put("headers", properties.getHeaders());
+        try {
+            return PROPERTIES_MAPPER.writeValueAsString(map);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("消息属性无法序列化", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Message readMessage(OutboxMessage outboxMessage) {
+        Map<String, Object> map;
+        try {
+            map = PROPERTIES_MAPPER.readValue(outboxMessage.getProperties(), new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("消息属性无法解析", e);
+        }
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId((String) map.get("messageId"));
+        properties.setContentType((String) map.get("contentType"));
+        properties.setContentEncoding((String) map.get("contentEncoding"));
+        properties.setExpiration((String) map.get("expiration"));
+        if (map.get("priority") != null) {
+            properties.setPriority(((Number) map.get("priority")).intValue());
+        }
+        Map<String, Object> headers = (Map<String, Object>) map.get("headers");
+        if (headers != null) {
+            headers.forEach(properties::setHeader);
+        }
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        return new Message(outboxMessage.getBody(), properties);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.common.mq.outbox;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import com.example.common.mq.MessageTransport;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *     本地消息表的投递线程
+ * </p>
+ * 使用一个小的定时线程池周期性扫描到期的消息，也可以在业务事务提交后立即触发。
+ * 每批消息通过MessageTransport（默认为RabbitPublisher）连续发送，再统一等待发布确认，
+ * 确认成功的消息删除，失败的消息按指数退避写回下次投递时间，重试次数耗尽后转为死信保留在表中，重放方法见mq_outbox.sql。
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxRepository outboxRepository;
+
+    private final MessageTransport messageTransport;
+
+    private final OutboxProperties properties;
+
+    private ScheduledExecutorService scheduler;
+
+    // 已经提交但还没有开始执行的立即投递任务，同一时间最多一个，避免每次事务提交都向线程池排入一个任务
+    private final AtomicBoolean triggerPending = new AtomicBoolean();
+
+    public OutboxRelay(OutboxRepository outboxRepository, MessageTransport messageTransport, OutboxProperties properties) {
+        this.outboxRepository = outboxRepository;
+        this.messageTransport = messageTransport;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(properties.getRelayThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "mq-outbox-relay-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, properties.getPollIntervalMillis(),
+                properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(properties.getConfirmTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 立即进行一次投递，不等待下一次扫描
+     */
+    public void trigger() {
+        if (!triggerPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                // 先清除标记，执行期间提交的消息会再排入一次投递
+                triggerPending.set(false);
+                relay();
+            });
+        } catch (RejectedExecutionException e) {
+            // 正在关闭，剩余的消息在重启后投递
+            triggerPending.set(false);
+        }
+    }
+
+    private void relay() {
+        try {
+            // 认领满一批说明可能还有积压，继续投递
+            while (relayBatch() >= properties.getBatchSize()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("本地消息表投递失败", e);
+        }
+    }
+
+    /**
+     * 认领并投递一批消息
+     * @return 认领到的消息数
+     */
+    private int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(properties.getConfirmTimeoutMillis() * 2));
+        int claimed;
+        try {
+            claimed = SeataSupport.withGlobalLock(() ->
+                    outboxRepository.claim(claimToken, now, leaseUntil, properties.getBatchSize()));
+        } catch (RuntimeException e) {
+            // 通常是其中某条消息所在的全局事务还没有结束，改为逐条认领，跳过被锁住的消息
+            log.debug("批量认领待投递消息失败，改为逐条认领：{}", e.getMessage());
+            claimed = claimOneByOne(claimToken, now, leaseUntil);
+        }
+        if (claimed == 0) {
+            return 0;
+        }
+
+        List<OutboxMessage> messages = outboxRepository.findClaimed(claimToken);
+        List<OutboxMessage> sent = new ArrayList<>();
+        List<CompletableFuture<Void>> confirms = new ArrayList<>();
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (OutboxMessage message : messages) {
+            try {
+                confirms.add(messageTransport.publish(message.getExchange(), message.getRoutingKey(),
+                        OutboxPublisher.readMessage(message)));
+                sent.add(message);
+            } catch (Exception e) {
+                failed.add(markFailed(message, e.getMessage()));
+            }
+        }
+
+        // 一批消息共用一个确认超时
+        List<Long> acked = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getConfirmTimeoutMillis());
+        for (int i = 0; i < sent.size(); i++) {
+            OutboxMessage message = sent.get(i);
+            try {
+                confirms.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acked.add(message.getId());
+            } catch (TimeoutException e) {
+                failed.add(markFailed(message, "发布确认超时"));
+            } catch (ExecutionException e) {
+                failed.add(markFailed(message, e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(markFailed(message, "投递线程被中断"));
+            }
+        }
+        outboxRepository.deleteByIds(acked);
+        outboxRepository.updateRetry(failed);
+        if (!failed.isEmpty()) {
+            log.warn("本地消息表投递：成功{}条，失败{}条", acked.size(), failed.size());
+        }
+        return claimed;
+    }
+
+    /**
+     * 逐条认领到期的消息，全局锁冲突的消息留到下次扫描
+     * @return 认领到的消息数
+     */
+    private int claimOneByOne(String claimToken, LocalDateTime now, LocalDateTime leaseUntil) {
+        int claimed = 0;
+        for (Long id : outboxRepository.findDueIds(now, properties.getBatchSize())) {
+            try {
+                if (SeataSupport.withGlobalLock(() -> outboxRepository.claimById(claimToken, id, now, leaseUntil))) {
+                    claimed++;
+                }
+            } catch (RuntimeException e) {
+                log.debug("认领待投递消息失败，等待下次扫描：{}，{}", id, e.getMessage());
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 计算下次投递时间，重试次数耗尽时转为死信
+     */
+    private OutboxMessage markFailed(OutboxMessage message, String reason) {
+        int retryCount = message.getRetryCount() + 1;
+        message.setRetryCount(retryCount);
+        if (reason != null && reason.length() > MAX_ERROR_LENGTH) {
+            reason = reason.substring(0, MAX_ERROR_LENGTH);
+        }
+        message.setLastError(reason);
+        if (retryCount > properties.getMaxRetries()) {
+            message.setStatus(OutboxMessage.STATUS_DEAD);
+            message.setNextRetryTime(LocalDateTime.now());
+            log.error("消息投递重试次数耗尽，已转为死信：{} -> {}，{}", message.getExchange(), message.getRoutingKey(), message.getId());
+            return message;
+        }
+        long backoff = Math.min(properties.getInitialBackoffMillis() << Math.min(retryCount - 1, 30),
+                properties.getMaxBackoffMillis());
+        message.setNextRetryTime(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoff)));
+        return message;
+    }
+}
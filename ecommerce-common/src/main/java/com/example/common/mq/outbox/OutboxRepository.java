@@ -0,0 +1,110 @@
+package com.example.common.mq.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * mq_outbox表的数据访问，表结构见project-description/sqls/mq_outbox.sql
+ * 本地消息表由公共模块管理，各服务不需要为它编写Mapper，因此直接使用JdbcTemplate
+ */
+public class OutboxRepository {
+
+    private static final String COLUMNS =
+            "id, exchange, routing_key, body, properties, status, retry_count, next_retry_time, last_error, create_time";
+
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(rs.getLong("id"));
+        message.setExchange(rs.getString("exchange"));
+        message.setRoutingKey(rs.getString("routing_key"));
+        message.setBody(rs.getBytes("body"));
+        message.setProperties(rs.getString("properties"));
+        message.setStatus(rs.getInt("status"));
+        message.setRetryCount(rs.getInt("retry_count"));
+        message.setNextRetryTime(rs.getTimestamp("next_retry_time").toLocalDateTime());
+        message.setLastError(rs.getString("last_error"));
+        message.setCreateTime(rs.getTimestamp("create_time").toLocalDateTime());
+        return message;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(OutboxMessage message) {
+        jdbcTemplate.update("insert into mq_outbox (" + COLUMNS + ", update_time) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                message.getId(), message.getExchange(), message.getRoutingKey(), message.getBody(),
+                message.getProperties(), message.getStatus(), message.getRetryCount(),
+                Timestamp.valueOf(message.getNextRetryTime()), message.getLastError(),
+                Timestamp.valueOf(message.getCreateTime()), Timestamp.valueOf(message.getCreateTime()));
+    }
+
+    /**
+     * 认领一批到期的待投递消息，认领期间把下次投递时间推迟到leaseUntil，投递进程崩溃后消息会在租约到期后被重新认领
+     * @return 认领到的数量
+     */
+    public int claim(String claimToken, LocalDateTime now, LocalDateTime leaseUntil, int limit) {
+        return jdbcTemplate.update("update mq_outbox set claim_token = ?, next_retry_time = ? " +
+                        "where status = ? and next_retry_time <= ? order by next_retry_time limit ?",
+                claimToken, Timestamp.valueOf(leaseUntil), OutboxMessage.STATUS_PENDING, Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * 查询到期的待投递消息ID，批量认领失败时逐条认领
+     */
+    public List<Long> findDueIds(LocalDateTime now, int limit) {
+        return jdbcTemplate.queryForList("select id from mq_outbox where status = ? and next_retry_time <= ? " +
+                        "order by next_retry_time limit ?",
+                Long.class, OutboxMessage.STATUS_PENDING, Timestamp.valueOf(now), limit);
+    }
+
+    /**
+     * 认领一条到期的待投递消息
+     * @return 认领成功返回true
+     */
+    public boolean claimById(String claimToken, Long id, LocalDateTime now, LocalDateTime leaseUntil) {
+        return jdbcTemplate.update("update mq_outbox set claim_token = ?, next_retry_time = ? " +
+                        "where id = ? and status = ? and next_retry_time <= ?",
+                claimToken, Timestamp.valueOf(leaseUntil), id, OutboxMessage.STATUS_PENDING, Timestamp.valueOf(now)) > 0;
+    }
+
+    public List<OutboxMessage> findClaimed(String claimToken) {
+        return jdbcTemplate.query("select " + COLUMNS + " from mq_outbox where claim_token = ? and status = ?",
+                ROW_MAPPER, claimToken, OutboxMessage.STATUS_PENDING);
+    }
+
+    public void deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("delete from mq_outbox where id in (" + placeholders(ids.size()) + ")", ids.toArray());
+    }
+
+    /**
+     * 更新投递失败的消息的重试状态
+     */
+    public void updateRetry(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("update mq_outbox set status = ?, retry_count = ?, next_retry_time = ?, last_error = ?, " +
+                        "claim_token = null, update_time = ? where id = ?",
+                messages.stream().map(message -> new Object[]{
+                        message.getStatus(), message.getRetryCount(), Timestamp.valueOf(message.getNextRetryTime()),
+                        message.getLastError(), Timestamp.valueOf(LocalDateTime.now()), message.getId()
+                }).collect(Collectors.toList()));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.common.mq.outbox;
+
+import io.seata.core.context.RootContext;
+import io.seata.core.model.GlobalLockConfig;
+import io.seata.rm.GlobalLockExecutor;
+import io.seata.rm.GlobalLockTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *     Seata相关的辅助方法，类路径中没有Seata时全部退化为直接执行
+ * </p>
+ * 在AT模式的全局事务中写入的消息，本地分支提交后就已经对投递线程可见，但全局事务仍可能回滚。
+ * 投递线程在全局锁的保护下认领消息：全局事务未结束时认领会因锁冲突失败，下次扫描再试；
+ * 全局事务回滚时消息随回滚一起删除，不会被投递，也不会因为投递线程修改了这一行而导致回滚失败。
+ */
+final class SeataSupport {
+
+    private static final boolean SEATA_PRESENT =
+            ClassUtils.isPresent("io.seata.rm.GlobalLockTemplate", SeataSupport.class.getClassLoader());
+
+    private SeataSupport() {
+    }
+
+    /**
+     * 当前线程是否处于全局事务中
+     */
+    static boolean inGlobalTransaction() {
+        return SEATA_PRESENT && Seata.inGlobalTransaction();
+    }
+
+    /**
+     * 在全局锁的保护下执行
+     */
+    static <T> T withGlobalLock(Supplier<T> action) {
+        if (!SEATA_PRESENT) {
+            return action.get();
+        }
+        return Seata.withGlobalLock(action);
+    }
+
+    /**
+     * 只有确认Seata存在时才会加载这个类
+     */
+    private static final class Seata {
+
+        private static final GlobalLockTemplate TEMPLATE = new GlobalLockTemplate();
+
+        static boolean inGlobalTransaction() {
+            return RootContext.inGlobalTransaction();
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> T withGlobalLock(Supplier<T> action) {
+            try {
+                return (T) TEMPLATE.execute(new GlobalLockExecutor() {
+                    @Override
+                    public Object execute() {
+                        return action.get();
+                    }
+
+                    @Override
+                    public GlobalLockConfig getGlobalLockConfig() {
+                        // 锁冲突时不等待，交给下一次扫描
+                        GlobalLockConfig config = new GlobalLockConfig();
+                        config.setLockRetryTimes(0);
+                        return config;
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.common.mq.dedupe;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MessageDeduplicatorTest {
+
+    private static final String KEY = "mq:dedupe:queue:m1";
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private ValueOperations<String, Object> valueOperations;
+
+    private DedupeProperties properties;
+
+    private MessageDeduplicator deduplicator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        properties = new DedupeProperties();
+        deduplicator = new MessageDeduplicator(redisTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deduplicator.stop();
+    }
+
+    @Test
+    void firstDeliveryRunsActionAndMarksDone() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(true);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(deduplicator.execute("queue", "m1", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        verify(valueOperations).set(eq(KEY), eq("DONE"), any(Duration.class));
+    }
+
+    @Test
+    void repeatedDeliveryIsSkippedByLocalCache() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(true);
+        AtomicInteger runs = new AtomicInteger();
+        deduplicator.execute("queue", "m1", runs::incrementAndGet);
+
+        assertFalse(deduplicator.execute("queue", "m1", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        verify(valueOperations, times(1)).setIfAbsent(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    void messageDoneOnAnotherInstanceIsSkipped() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("DONE");
+        AtomicInteger runs = new AtomicInteger();
+
+        assertFalse(deduplicator.execute("queue", "m1", runs::incrementAndGet));
+
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void messageInProgressThrows() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(KEY)).thenReturn("PROCESSING");
+
+        assertThrows(MessageInProgressException.class, () -> deduplicator.execute("queue", "m1", () -> fail("不应执行")));
+    }
+
+    @Test
+    void expiredMarkerIsAcquiredAgain() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(false, true);
+        when(valueOperations.get(KEY)).thenReturn(null);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(deduplicator.execute("queue", "m1", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedActionReleasesMarker() {
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> deduplicator.execute("queue", "m1", () -> {
+            throw new IllegalStateException("处理失败");
+        }));
+
+        verify(redisTemplate).delete(KEY);
+        verify(valueOperations, never()).set(eq(KEY), eq("DONE"), any(Duration.class));
+    }
+
+    @Test
+    void leaseIsRenewedWhileActionRuns() {
+        properties.setProcessingTtlSeconds(1L);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(true);
+
+        deduplicator.execute("queue", "m1", () -> {
+            try {
+                Thread.sleep(800);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        verify(redisTemplate, atLeastOnce()).execute(any(RedisScript.class), eq(List.of(KEY)), eq("PROCESSING"), eq(1L));
+    }
+
+    @Test
+    void errorFromActionStopsRenewalAndReleasesMarker() throws InterruptedException {
+        properties.setProcessingTtlSeconds(1L);
+        when(valueOperations.setIfAbsent(eq(KEY), eq("PROCESSING"), any(Duration.class))).thenReturn(true);
+
+        assertThrows(AssertionError.class, () -> deduplicator.execute("queue", "m1", () -> {
+            throw new AssertionError("处理失败");
+        }));
+
+        verify(redisTemplate).delete(KEY);
+        Thread.sleep(800);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(), any());
+    }
+
+    @Test
+    void redisUnavailableRunsWithoutDedupe() {
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(deduplicator.execute("queue", "m1", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    void missingMessageIdRunsEveryTime() {
+        AtomicInteger runs = new AtomicInteger();
+
+        deduplicator.execute("queue", null, runs::incrementAndGet);
+        deduplicator.execute("queue", null, runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+        verifyNoInteractions(valueOperations);
+    }
+}
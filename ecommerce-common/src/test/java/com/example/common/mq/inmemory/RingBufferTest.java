@@ -0,0 +1,133 @@
+package com.example.common.mq.inmemory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void takeReturnsItemsInOrder() throws InterruptedException {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(i, 0));
+        }
+        assertEquals(5, buffer.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, buffer.take());
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        int[][] cases = {{1, 2}, {2, 2}, {3, 4}, {4, 4}, {5, 8}, {1024, 1024}, {1025, 2048}};
+        for (int[] c : cases) {
+            RingBuffer<Integer> buffer = new RingBuffer<>(c[0]);
+            for (int i = 0; i < c[1]; i++) {
+                assertTrue(buffer.offer(i, 0));
+            }
+            assertFalse(buffer.offer(c[1], 0), "capacity=" + c[0]);
+        }
+    }
+
+    @Test
+    void offerFailsWhenFullAndTimeoutExpires() throws InterruptedException {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i, 0));
+        }
+        long start = System.nanoTime();
+        assertFalse(buffer.offer(4, TimeUnit.MILLISECONDS.toNanos(20)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        // 失败的写入不占用槽位
+        assertEquals(4, buffer.size());
+        assertEquals(0, buffer.take());
+        assertTrue(buffer.offer(4, 0));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.take());
+        }
+    }
+
+    @Test
+    void offerWaitsForConsumerToFreeSpace() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(2);
+        assertTrue(buffer.offer(0, 0));
+        assertTrue(buffer.offer(1, 0));
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+                buffer.take();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        assertTrue(buffer.offer(2, TimeUnit.SECONDS.toNanos(5)));
+        consumer.join();
+    }
+
+    @Test
+    void multipleProducersDeliverEveryItemOnce() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(buffer.offer(base + i, TimeUnit.SECONDS.toNanos(10)));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        Set<Integer> received = new HashSet<>();
+        int[] lastOfProducer = new int[producers];
+        Arrays.fill(lastOfProducer, -1);
+        for (int i = 0; i < producers * perProducer; i++) {
+            int item = buffer.take();
+            assertTrue(received.add(item));
+            // 同一生产者的元素保持写入顺序
+            int producer = item / perProducer;
+            assertTrue(item > lastOfProducer[producer]);
+            lastOfProducer[producer] = item;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * perProducer, received.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void takeIsInterruptible() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(2);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Thread consumer = new Thread(() -> {
+            try {
+                buffer.take();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        consumer.start();
+        consumer.interrupt();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.api.batch;
+
+import com.example.common.domain.ResponseResult;
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.SystemException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>
+ *     单键远程调用的自动合并（DataLoader）
+ * </p>
+ * 多个线程在maxWaitMillis内对同一个服务发起的单键查询合并为一次批量调用，结果按键分发给各个调用方：
+ * <ul>
+ *     <li>load/get：键进入队列，队列达到maxBatchSize或等待超过maxWaitMillis时由后台线程发起批量调用</li>
+ *     <li>loadMany：同一个请求内需要的多个键单独组成批次，立即在调用线程上发起批量调用，不会带上队列中其他线程的键，
+ *     因此调用带有的用户信息和全局事务只属于当前请求</li>
+ *     <li>同一批次中重复的键只查询一次；批量接口没有返回的键结果为null</li>
+ *     <li>批量调用失败时这一批次的所有调用方都会收到异常</li>
+ *     <li>fromResponse默认不接受降级逻辑返回的缓存数据（stale），批量查询的结果用于计价、下单等写操作</li>
+ * </ul>
+ * 后台线程上发起的调用不带有当前用户信息，只适合不依赖用户身份的查询接口。
+ * @param <K> 键
+ * @param <V> 值
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final String name;
+
+    private final Function<List<K>, Map<K, V>> batchFunction;
+
+    private final int maxBatchSize;
+
+    private final long maxWaitMillis;
+
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+
+    // 以下字段均由lock保护
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduled;
+
+    public BatchLoader(String name, Function<List<K>, Map<K, V>> batchFunction,
+                       BatchLoaderProperties properties, ScheduledExecutorService executor) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxWaitMillis = properties.getMaxWaitMillis();
+        this.executor = executor;
+    }
+
+    /**
+     * 把返回列表的批量接口包装为批量函数，降级返回的缓存数据视为调用失败
+     * @param call 批量接口
+     * @param keyOf 从返回值中取出键
+     */
+    public static <K, V> Function<List<K>, Map<K, V>> fromResponse(Function<List<K>, ResponseResult<List<V>>> call,
+                                                                   Function<V, K> keyOf) {
+        return fromResponse(call, keyOf, false);
+    }
+
+    /**
+     * 把返回列表的批量接口包装为批量函数
+     * @param call 批量接口
+     * @param keyOf 从返回值中取出键
+     * @param acceptStale 是否接受降级返回的缓存数据，只有只读展示的查询才应接受
+     */
+    public static <K, V> Function<List<K>, Map<K, V>> fromResponse(Function<List<K>, ResponseResult<List<V>>> call,
+                                                                   Function<V, K> keyOf, boolean acceptStale) {
+        return keys -> {
+            ResponseResult<List<V>> response = call.apply(keys);
+            if (response.getCode() != ResultCode.SUCCESS || response.getData() == null) {
+                throw new SystemException(response.getMsg());
+            }
+            if (response.isStale() && !acceptStale) {
+                throw new SystemException("服务暂不可用，只有缓存数据");
+            }
+            Map<K, V> result = new HashMap<>();
+            response.getData().forEach(value -> result.put(keyOf.apply(value), value));
+            return result;
+        };
+    }
+
+    /**
+     * 异步获取一个键的值
+     */
+    public CompletableFuture<V> load(K key) {
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> full = null;
+        synchronized (lock) {
+            future = pending.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (scheduled == null) {
+                scheduled = executor.schedule(this::dispatchScheduled, maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            Map<K, CompletableFuture<V>> batch = full;
+            executor.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    /**
+     * 获取一个键的值
+     * @return 不存在时返回null
+     * @throws SystemException 批量调用失败
+     */
+    public V get(K key) {
+        return join(load(key));
+    }
+
+    /**
+     * 获取多个键的值，在调用线程上立即为这些键单独发起批量调用
+     * @return 键 -> 值，不存在的键不会出现在结果中
+     * @throws SystemException 批量调用失败
+     */
+    public Map<K, V> loadMany(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>();
+        for (K key : keys) {
+            batch.putIfAbsent(key, new CompletableFuture<>());
+        }
+        dispatch(batch);
+        Map<K, V> result = new LinkedHashMap<>();
+        batch.forEach((key, future) -> {
+            V value = join(future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    private void dispatchScheduled() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            scheduled = null;
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        List<K> keys = new ArrayList<>(batch.keySet());
+        for (int i = 0; i < keys.size(); i += maxBatchSize) {
+            List<K> chunk = keys.subList(i, Math.min(i + maxBatchSize, keys.size()));
+            try {
+                Map<K, V> values = batchFunction.apply(new ArrayList<>(chunk));
+                log.debug("{}批量调用完成，键数：{}", name, chunk.size());
+                chunk.forEach(key -> batch.get(key).complete(values.get(key)));
+            } catch (Throwable e) {
+                log.error("{}批量调用失败，键数：{}，{}", name, chunk.size(), e.getMessage());
+                chunk.forEach(key -> batch.get(key).completeExceptionally(e));
+            }
+        }
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new SystemException(name + "批量调用失败", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.api.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * BatchLoader相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.feign.batch")
+public class BatchLoaderProperties {
+    /**
+     * 一次批量调用最多包含的键数，不应超过服务端批量接口的上限
+     */
+    private Integer maxBatchSize = 100;
+    /**
+     * 第一个键进入队列后最多等待的时间，期间到达的其他键合并到同一次调用
+     */
+    private Long maxWaitMillis = 5L;
+    /**
+     * 执行批量调用的线程数
+     */
+    private Integer threads = 4;
+}
@@ -0,0 +1,44 @@
+package com.example.api.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 降级缓存相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.feign.stale-cache")
+public class StaleCacheProperties {
+    /**
+     * 关闭后降级时直接返回错误
+     */
+    private Boolean enabled = true;
+    /**
+     * 返回缓存数据后，等待这个时间再尝试刷新
+     */
+    private Long refreshDelayMillis = 1000L;
+    /**
+     * 商品信息，价格等字段变化不频繁，允许较长的过期时间
+     */
+    private Region product = new Region(10000, 600L);
+    /**
+     * 订单信息，状态变化较快，过期时间应较短
+     */
+    private Region order = new Region(10000, 60L);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        /**
+         * 最多缓存的条数，超过后淘汰最久未访问的记录
+         */
+        private Integer maxEntries;
+        /**
+         * 超过这个时间的缓存数据不再返回
+         */
+        private Long maxAgeSeconds;
+    }
+}
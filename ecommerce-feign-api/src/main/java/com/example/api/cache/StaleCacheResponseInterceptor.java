@@ -0,0 +1,48 @@
+package com.example.api.cache;
+
+import com.example.api.domain.vo.order.OrderInfoVo;
+import com.example.api.domain.vo.product.ProductInfoVo;
+import com.example.common.domain.ResponseResult;
+import com.example.common.domain.ResultCode;
+import feign.InvocationContext;
+import feign.ResponseInterceptor;
+
+import java.util.Collection;
+
+/**
+ * 记录远程调用成功返回的商品和订单信息，供降级时使用
+ * 单个查询、批量查询和列表查询的结果都会被记录
+ */
+public class StaleCacheResponseInterceptor implements ResponseInterceptor {
+
+    private final StaleResponseCache<Long, ProductInfoVo> productInfoStaleCache;
+
+    private final StaleResponseCache<String, OrderInfoVo> orderInfoStaleCache;
+
+    public StaleCacheResponseInterceptor(StaleResponseCache<Long, ProductInfoVo> productInfoStaleCache,
+                                         StaleResponseCache<String, OrderInfoVo> orderInfoStaleCache) {
+        this.productInfoStaleCache = productInfoStaleCache;
+        this.orderInfoStaleCache = orderInfoStaleCache;
+    }
+
+    @Override
+    public Object intercept(InvocationContext invocationContext, Chain chain) throws Exception {
+        Object result = chain.next(invocationContext);
+        if (result instanceof ResponseResult<?> response && response.getCode() == ResultCode.SUCCESS) {
+            if (response.getData() instanceof Collection<?> values) {
+                values.forEach(this::record);
+            } else {
+                record(response.getData());
+            }
+        }
+        return result;
+    }
+
+    private void record(Object value) {
+        if (value instanceof ProductInfoVo product) {
+            productInfoStaleCache.put(product.getId(), product);
+        } else if (value instanceof OrderInfoVo order) {
+            orderInfoStaleCache.put(order.getOrderId(), order);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.api.cache;
+
+import com.example.common.domain.ResponseResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     远程查询的降级缓存（stale-while-revalidate）
+ * </p>
+ * <ul>
+ *     <li>StaleCacheResponseInterceptor记录每次成功查询的结果</li>
+ *     <li>熔断或调用失败时，降级逻辑返回未超过maxAge的缓存数据，并标记为stale</li>
+ *     <li>返回缓存数据后在后台重新发起查询，下游恢复后由拦截器更新缓存；同一个键同时只有一个刷新任务</li>
+ * </ul>
+ * @param <K> 键
+ * @param <V> 缓存的数据
+ */
+@Slf4j
+public class StaleResponseCache<K, V> {
+
+    private final String name;
+
+    private final boolean enabled;
+
+    private final long maxAgeMillis;
+
+    private final long refreshDelayMillis;
+
+    private final ScheduledExecutorService refreshExecutor;
+
+    private final Map<K, Entry<V>> entries;
+
+    // 正在刷新的键，批量查询以整个键集合作为一项
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    public StaleResponseCache(String name, StaleCacheProperties properties, StaleCacheProperties.Region region,
+                              ScheduledExecutorService refreshExecutor) {
+        this.name = name;
+        this.enabled = properties.getEnabled();
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(region.getMaxAgeSeconds());
+        this.refreshDelayMillis = properties.getRefreshDelayMillis();
+        this.refreshExecutor = refreshExecutor;
+        int maxEntries = region.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 记录一次成功查询的结果
+     */
+    public void put(K key, V value) {
+        if (!enabled || key == null || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 降级时返回缓存数据
+     * @param key 键
+     * @param cause 降级原因
+     * @param refresher 重新发起查询，在后台线程上执行
+     * @return 缓存数据存在且没有超过maxAge时返回标记为stale的结果，否则返回错误
+     */
+    public ResponseResult<V> fallback(K key, Throwable cause, Runnable refresher) {
+        V value = get(key);
+        if (value == null) {
+            return ResponseResult.errorFeign(cause);
+        }
+        log.warn("{}不可用，返回缓存数据：{}，{}", name, key, cause.getMessage());
+        scheduleRefresh(key, refresher);
+        return ResponseResult.stale(value);
+    }
+
+    /**
+     * 批量查询降级时返回缓存数据，只有所有键都有缓存时才返回，以免把缺失的数据当作不存在
+     */
+    public ResponseResult<List<V>> fallbackAll(List<K> keys, Throwable cause, Runnable refresher) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            V value = get(key);
+            if (value == null) {
+                return ResponseResult.errorFeign(cause);
+            }
+            values.add(value);
+        }
+        log.warn("{}不可用，返回{}条缓存数据，{}", name, values.size(), cause.getMessage());
+        if (!keys.isEmpty()) {
+            scheduleRefresh(Set.copyOf(keys), refresher);
+        }
+        return ResponseResult.stale(values);
+    }
+
+    private V get(K key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null || System.currentTimeMillis() - entry.createTime > maxAgeMillis) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void scheduleRefresh(Object key, Runnable refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.schedule(() -> {
+                try {
+                    refresher.run();
+                } catch (Exception e) {
+                    log.debug("{}刷新失败：{}，{}", name, key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            }, refreshDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private record Entry<V>(V value, long createTime) {
+    }
+}
@@ -6,10 +6,18 @@ import com.example.common.domain.ResponseResult;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 @FeignClient(value = "cart-service", fallbackFactory = CartClientFallBack.class)
 public interface CartClient {
     // 获得某个CartItem的信息
     @GetMapping("/api/v1/carts/items/{id}")
     ResponseResult<CartItem> getCartItem(@PathVariable Long id);
+
+    // 批量获得CartItem的信息，不存在的项目不会出现在结果中
+    @PostMapping("/api/v1/carts/items/batch")
+    ResponseResult<List<CartItem>> getCartItems(@RequestBody List<Long> ids);
 }
@@ -4,6 +4,7 @@ import com.example.api.client.fallback.OrderClientFallBack;
 import com.example.api.domain.dto.order.*;
 import com.example.api.domain.vo.order.OrderInfoVo;
 import com.example.api.domain.vo.order.PlaceOrderVo;
+import com.example.api.hedge.Hedged;
 import com.example.common.domain.ResponseResult;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +22,7 @@ public interface OrderClient {
     ResponseResult<List<OrderInfoVo>> getAllOrders();
 
     // 获得用户某次订单
+    @Hedged
     @GetMapping("/api/v1/orders/{orderId}")
     ResponseResult<OrderInfoVo> getOrderById(@PathVariable("orderId") String orderId);
 
@@ -3,16 +3,27 @@ package com.example.api.client;
 import com.example.api.client.fallback.ProductClientFallBack;
 import com.example.api.domain.dto.product.DecProductDto;
 import com.example.api.domain.vo.product.ProductInfoVo;
+import com.example.api.hedge.Hedged;
 import com.example.common.domain.ResponseResult;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @FeignClient(value = "product-service", fallbackFactory = ProductClientFallBack.class)
 public interface ProductClient {
+    // 批量获取商品信息时单次请求的最大商品数，超过时商品服务返回400
+    int MAX_BATCH_QUERY_SIZE = 200;
+
     // 通过ID获取商品信息
+    @Hedged
     @GetMapping("/api/v1/products/{productId}")
     ResponseResult<ProductInfoVo> getProductInfoById(@PathVariable("productId") Long productId);
 
+    // 通过ID批量获取商品信息，不存在的商品不会出现在结果中
+    @PostMapping("/api/v1/inner/products/batch")
+    ResponseResult<List<ProductInfoVo>> getProductInfoByIds(@RequestBody List<Long> productIds);
+
     // 减少存货
     @PutMapping("/api/v1/inner/products/dec")
     ResponseResult<Object> decProductStock(@RequestBody DecProductDto decProductDto);
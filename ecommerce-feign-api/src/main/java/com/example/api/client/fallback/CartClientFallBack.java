@@ -1,19 +1,31 @@
 package com.example.api.client.fallback;
 
 import com.example.api.client.CartClient;
+import com.example.api.domain.po.CartItem;
 import com.example.common.domain.ResponseResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 public class CartClientFallBack implements FallbackFactory<CartClient> {
     @Override
     public CartClient create(Throwable cause) {
-        return id -> {
-            log.error("cart-service-exception:getCartItem, {}", cause.getMessage());
-            return ResponseResult.errorFeign(cause);
+        return new CartClient() {
+            @Override
+            public ResponseResult<CartItem> getCartItem(Long id) {
+                log.error("cart-service-exception:getCartItem, {}", cause.getMessage());
+                return ResponseResult.errorFeign(cause);
+            }
+
+            @Override
+            public ResponseResult<List<CartItem>> getCartItems(List<Long> ids) {
+                log.error("cart-service-exception:getCartItems, {}", cause.getMessage());
+                return ResponseResult.errorFeign(cause);
+            }
         };
     }
 }
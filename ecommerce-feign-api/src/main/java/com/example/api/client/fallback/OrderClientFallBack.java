@@ -1,12 +1,15 @@
 package com.example.api.client.fallback;
 
+import com.example.api.cache.StaleResponseCache;
 import com.example.api.client.OrderClient;
 import com.example.api.domain.dto.order.*;
 import com.example.api.domain.vo.order.OrderInfoVo;
 import com.example.api.domain.vo.order.PlaceOrderVo;
 import com.example.common.domain.ResponseResult;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -14,6 +17,15 @@ import java.util.List;
 @Slf4j
 @Component
 public class OrderClientFallBack implements FallbackFactory<OrderClient> {
+
+    @Resource
+    private StaleResponseCache<String, OrderInfoVo> orderInfoStaleCache;
+
+    // 用于在后台刷新缓存，延迟注入以免与正在创建的OrderClient形成循环依赖
+    @Lazy
+    @Resource
+    private OrderClient orderClient;
+
     @Override
     public OrderClient create(Throwable cause) {
         return new OrderClient() {
@@ -32,7 +44,7 @@ public class OrderClientFallBack implements FallbackFactory<OrderClient> {
             @Override
             public ResponseResult<OrderInfoVo> getOrderById(String orderId) {
                 log.error("order-service-exception:getOrderById, {}", cause.getMessage());
-                return ResponseResult.errorFeign(cause);
+                return orderInfoStaleCache.fallback(orderId, cause, () -> orderClient.getOrderById(orderId));
             }
 
             @Override
@@ -1,23 +1,43 @@
 package com.example.api.client.fallback;
 
+import com.example.api.cache.StaleResponseCache;
 import com.example.api.client.ProductClient;
 import com.example.api.domain.dto.product.DecProductDto;
 import com.example.api.domain.vo.product.ProductInfoVo;
 import com.example.common.domain.ResponseResult;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Slf4j
 @Component
 public class ProductClientFallBack implements FallbackFactory<ProductClient> {
+
+    @Resource
+    private StaleResponseCache<Long, ProductInfoVo> productInfoStaleCache;
+
+    // 用于在后台刷新缓存，延迟注入以免与正在创建的ProductClient形成循环依赖
+    @Lazy
+    @Resource
+    private ProductClient productClient;
+
     @Override
     public ProductClient create(Throwable cause) {
         return new ProductClient() {
             @Override
             public ResponseResult<ProductInfoVo> getProductInfoById(Long productId) {
                 log.error("product-service-exception:getProductInfoById, {}", cause.getMessage());
-                return ResponseResult.errorFeign(cause);
+                return productInfoStaleCache.fallback(productId, cause, () -> productClient.getProductInfoById(productId));
+            }
+
+            @Override
+            public ResponseResult<List<ProductInfoVo>> getProductInfoByIds(List<Long> productIds) {
+                log.error("product-service-exception:getProductInfoByIds, {}", cause.getMessage());
+                return productInfoStaleCache.fallbackAll(productIds, cause, () -> productClient.getProductInfoByIds(productIds));
             }
 
             @Override
@@ -0,0 +1,57 @@
+package com.example.api.config;
+
+import com.example.api.batch.BatchLoader;
+import com.example.api.batch.BatchLoaderProperties;
+import com.example.api.client.CartClient;
+import com.example.api.client.ProductClient;
+import com.example.api.domain.po.CartItem;
+import com.example.api.domain.vo.product.ProductInfoVo;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常用单键查询的自动合并，只在第一次注入时创建
+ * 线程池不注册为Bean，以免被@EnableScheduling当作默认的调度器
+ */
+@Lazy
+@Configuration
+@EnableConfigurationProperties(BatchLoaderProperties.class)
+public class BatchLoaderConfig {
+
+    private final ScheduledExecutorService executor;
+
+    public BatchLoaderConfig(BatchLoaderProperties properties) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "feign-batch-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Bean
+    public BatchLoader<Long, CartItem> cartItemLoader(CartClient cartClient, BatchLoaderProperties properties) {
+        return new BatchLoader<>("cart-service:getCartItems",
+                BatchLoader.fromResponse(cartClient::getCartItems, CartItem::getCartItemId),
+                properties, executor);
+    }
+
+    @Bean
+    public BatchLoader<Long, ProductInfoVo> productInfoLoader(ProductClient productClient, BatchLoaderProperties properties) {
+        return new BatchLoader<>("product-service:getProductInfoByIds",
+                BatchLoader.fromResponse(productClient::getProductInfoByIds, ProductInfoVo::getId),
+                properties, executor);
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.api.config;
 
+import com.example.api.cache.StaleCacheResponseInterceptor;
+import com.example.api.cache.StaleResponseCache;
+import com.example.api.domain.vo.order.OrderInfoVo;
+import com.example.api.domain.vo.product.ProductInfoVo;
+import com.example.api.hedge.HedgingRegistry;
+import com.example.api.limit.LimiterRegistry;
 import com.example.common.exception.UnauthorizedException;
 import com.example.common.util.UserContextUtil;
+import feign.Capability;
+import feign.Client;
 import feign.Logger;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.ResponseInterceptor;
 import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 
@@ -32,4 +42,27 @@ public class FeignConfig {
     public ErrorDecoder errorDecoder() {
         return new EcommerceErrorCode();
     }
+
+    @Bean
+    public ResponseInterceptor staleCacheResponseInterceptor(StaleResponseCache<Long, ProductInfoVo> productInfoStaleCache,
+                                                             StaleResponseCache<String, OrderInfoVo> orderInfoStaleCache) {
+        return new StaleCacheResponseInterceptor(productInfoStaleCache, orderInfoStaleCache);
+    }
+
+    /**
+     * 每个客户端的配置在各自的子容器中创建，client.name即@FeignClient的名称
+     * 对冲在并发限制外层，对冲请求同样计入并发数
+     */
+    @Bean
+    public Capability outboundClientCapability(LimiterRegistry limiterRegistry, HedgingRegistry hedgingRegistry,
+                                               @Value("${spring.cloud.openfeign.client.name}") String clientName) {
+        Capability limiter = limiterRegistry.capability(clientName);
+        Capability hedging = hedgingRegistry.capability();
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return hedging.enrich(limiter.enrich(client));
+            }
+        };
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.api.config;
+
+import com.example.api.hedge.HedgeProperties;
+import com.example.api.hedge.HedgingRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对冲请求，只对@Hedged标记的GET方法生效
+ */
+@Configuration
+@EnableConfigurationProperties(HedgeProperties.class)
+public class HedgeConfig {
+
+    @Bean(destroyMethod = "stop")
+    public HedgingRegistry hedgingRegistry(HedgeProperties properties) {
+        return new HedgingRegistry(properties);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.api.config;
+
+import com.example.api.limit.LimiterMetrics;
+import com.example.api.limit.LimiterProperties;
+import com.example.api.limit.LimiterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 远程调用的自适应并发限制，由FeignConfig为每个客户端注册Capability
+ */
+@Configuration
+@EnableConfigurationProperties(LimiterProperties.class)
+public class LimiterConfig {
+
+    @Bean
+    public LimiterRegistry limiterRegistry(LimiterProperties properties) {
+        return new LimiterRegistry(properties);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class LimiterMetricsConfig {
+
+        @Bean
+        public LimiterMetrics limiterMetrics(LimiterRegistry limiterRegistry) {
+            return new LimiterMetrics(limiterRegistry);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.api.config;
+
+import com.example.api.cache.StaleCacheProperties;
+import com.example.api.cache.StaleResponseCache;
+import com.example.api.domain.vo.order.OrderInfoVo;
+import com.example.api.domain.vo.product.ProductInfoVo;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 商品和订单查询的降级缓存，由FeignConfig中的拦截器写入，由ProductClientFallBack和OrderClientFallBack读取
+ */
+@Configuration
+@EnableConfigurationProperties(StaleCacheProperties.class)
+public class StaleCacheConfig {
+
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "feign-stale-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Bean
+    public StaleResponseCache<Long, ProductInfoVo> productInfoStaleCache(StaleCacheProperties properties) {
+        return new StaleResponseCache<>("product-service", properties, properties.getProduct(), refreshExecutor);
+    }
+
+    @Bean
+    public StaleResponseCache<String, OrderInfoVo> orderInfoStaleCache(StaleCacheProperties properties) {
+        return new StaleResponseCache<>("order-service", properties, properties.getOrder(), refreshExecutor);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.api.hedge;
+
+/**
+ * 对冲预算：每个请求增加budgetPercent/100个令牌，每次对冲消耗一个，令牌有上限，避免下游整体变慢时对冲请求成倍放大负载
+ */
+class HedgeBudget {
+
+    private static final double MAX_TOKENS = 10;
+
+    private final double tokensPerRequest;
+
+    private double tokens;
+
+    HedgeBudget(double budgetPercent) {
+        this.tokensPerRequest = budgetPercent / 100;
+    }
+
+    synchronized void onRequest() {
+        tokens = Math.min(MAX_TOKENS, tokens + tokensPerRequest);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.api.hedge;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 对冲请求相关配置
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.feign.hedge")
+public class HedgeProperties {
+    /**
+     * 关闭后@Hedged不生效
+     */
+    private Boolean enabled = true;
+    /**
+     * 请求耗时超过该方法最近耗时的这个百分位后发送对冲请求
+     */
+    private Double percentile = 95.0;
+    /**
+     * 对冲前最少等待的时间
+     */
+    private Long minDelayMillis = 20L;
+    /**
+     * 统计耗时使用的最近样本数
+     */
+    private Integer sampleSize = 1000;
+    /**
+     * 样本数不足时不发送对冲请求
+     */
+    private Integer minSamples = 50;
+    /**
+     * 对冲请求数最多占请求总数的百分比
+     */
+    private Double budgetPercent = 10.0;
+    /**
+     * 执行对冲方法的线程数上限，线程不足时退化为普通调用
+     */
+    private Integer maxThreads = 64;
+}
@@ -0,0 +1,17 @@
+package com.example.api.hedge;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记可以对冲的Feign方法：请求在一定时间内没有返回时，再向另一个实例发送一次相同的请求，先返回的结果生效
+ * 只能用于幂等的GET查询，其他请求方法上的注解会被忽略
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedged {
+}
@@ -0,0 +1,148 @@
+package com.example.api.hedge;
+
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ *     对@Hedged标记的GET请求发送对冲请求
+ * </p>
+ * 请求在线程池中执行，调用线程等待该方法最近耗时的百分位（不少于minDelayMillis）；
+ * 仍未返回且预算允许时再发送一次相同的请求，由负载均衡选择实例（轮询时会落到另一个实例），
+ * 先成功返回的响应生效，另一个响应返回后直接关闭；两次请求都失败时抛出后失败的异常。
+ */
+@Slf4j
+public class HedgingClient implements Client {
+
+    private final Client delegate;
+
+    private final HedgeProperties properties;
+
+    private final ExecutorService executor;
+
+    private final HedgeBudget budget;
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    public HedgingClient(Client delegate, HedgeProperties properties, ExecutorService executor) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.executor = executor;
+        this.budget = new HedgeBudget(properties.getBudgetPercent());
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        MethodMetadata metadata = request.requestTemplate().methodMetadata();
+        if (request.httpMethod() != Request.HttpMethod.GET || metadata == null || metadata.method() == null
+                || !metadata.method().isAnnotationPresent(Hedged.class)) {
+            return delegate.execute(request, options);
+        }
+        LatencyTracker tracker = trackers.computeIfAbsent(metadata.configKey(), key ->
+                new LatencyTracker(properties.getSampleSize(), properties.getMinSamples(), properties.getPercentile()));
+        budget.onRequest();
+
+        long start = System.nanoTime();
+        CompletableFuture<Response> primary;
+        try {
+            primary = submit(request, options);
+        } catch (RejectedExecutionException e) {
+            return delegate.execute(request, options);
+        }
+        primary.thenRun(() -> tracker.record(System.nanoTime() - start));
+
+        long delay = tracker.percentileNanos();
+        if (delay < 0) {
+            return await(primary);
+        }
+        try {
+            return primary.get(Math.max(delay, TimeUnit.MILLISECONDS.toNanos(properties.getMinDelayMillis())),
+                    TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 超过对冲延迟，继续往下
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("请求被中断", e);
+        }
+
+        CompletableFuture<Response> hedge;
+        if (!budget.tryAcquire()) {
+            return await(primary);
+        }
+        try {
+            hedge = submit(request, options);
+        } catch (RejectedExecutionException e) {
+            return await(primary);
+        }
+        log.debug("发送对冲请求：{}", metadata.configKey());
+        return await(firstSuccess(primary, hedge));
+    }
+
+    private CompletableFuture<Response> submit(Request request, Request.Options options) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(delegate.execute(request, options));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<Response> firstSuccess(CompletableFuture<Response> primary, CompletableFuture<Response> hedge) {
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<Response, Throwable> handler = (response, error) -> {
+            if (error == null) {
+                if (!winner.complete(response)) {
+                    response.close();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        };
+        primary.whenComplete(handler);
+        hedge.whenComplete(handler);
+        return winner;
+    }
+
+    private Response await(CompletableFuture<Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("请求被中断", e);
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.api.hedge;
+
+import feign.Capability;
+import feign.Client;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲请求共用的线程池，由FeignConfig为每个客户端包装Client
+ */
+public class HedgingRegistry {
+
+    private final HedgeProperties properties;
+
+    private final ThreadPoolExecutor executor;
+
+    public HedgingRegistry(HedgeProperties properties) {
+        this.properties = properties;
+        AtomicInteger index = new AtomicInteger();
+        // 不排队，线程用完时由调用方退化为普通调用
+        this.executor = new ThreadPoolExecutor(0, properties.getMaxThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "feign-hedge-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 关闭时返回不做任何处理的Capability
+     */
+    public Capability capability() {
+        if (!properties.getEnabled()) {
+            return new Capability() {};
+        }
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return new HedgingClient(client, properties, executor);
+            }
+        };
+    }
+
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.api.hedge;
+
+import java.util.Arrays;
+
+/**
+ * 一个方法最近若干次调用的耗时，用于计算对冲延迟
+ */
+class LatencyTracker {
+
+    // 每记录这么多个样本重新计算一次百分位
+    private static final int RECOMPUTE_INTERVAL = 100;
+
+    private final long[] samples;
+
+    private final int minSamples;
+
+    private final double percentile;
+
+    // 以下字段由this保护
+    private int count;
+    private int next;
+
+    private volatile long percentileNanos = -1;
+
+    LatencyTracker(int sampleSize, int minSamples, double percentile) {
+        this.samples = new long[sampleSize];
+        this.minSamples = minSamples;
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count++;
+        if (count >= minSamples && (count % RECOMPUTE_INTERVAL == 0 || percentileNanos < 0)) {
+            long[] sorted = Arrays.copyOf(samples, Math.min(count, samples.length));
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            percentileNanos = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    /**
+     * @return 样本不足时返回-1
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+}
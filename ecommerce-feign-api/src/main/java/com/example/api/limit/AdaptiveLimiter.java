@@ -0,0 +1,153 @@
+package com.example.api.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *     基于RTT梯度的自适应并发上限
+ * </p>
+ * 分别维护长期和短期的平均RTT，二者之比作为梯度：
+ * <ul>
+ *     <li>短期RTT没有明显高于长期RTT时，梯度为1，上限每次增加约sqrt(limit)</li>
+ *     <li>下游变慢导致短期RTT升高时，梯度小于1，上限按比例下降，最多减半</li>
+ *     <li>调用失败时上限乘以backoffRatio</li>
+ *     <li>在途请求不到上限一半时（调用方本身压力不大），不调整上限</li>
+ * </ul>
+ * 长期RTT远高于短期RTT时（下游已经恢复）会快速回落，避免上限长时间停留在高位。
+ */
+public class AdaptiveLimiter {
+
+    private final String name;
+
+    private final LimiterProperties properties;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final Object waitLock = new Object();
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private volatile double limit;
+
+    // 以下字段由this保护
+    private double longRtt;
+    private double shortRtt;
+
+    public AdaptiveLimiter(String name, LimiterProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 占用一个并发名额
+     * @return 请求开始时的在途请求数（包含本次请求）
+     * @throws ConcurrencyLimitExceededException 达到上限且等待超时
+     */
+    public int acquire() throws ConcurrencyLimitExceededException {
+        int current = tryAcquire();
+        if (current > 0) {
+            return current;
+        }
+        long waitMillis = properties.getMaxWaitMillis();
+        if (waitMillis > 0) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+            waiters.incrementAndGet();
+            try {
+                synchronized (waitLock) {
+                    long remaining;
+                    while ((current = tryAcquire()) == 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(waitLock, remaining);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiters.decrementAndGet();
+            }
+            if (current > 0) {
+                return current;
+            }
+        }
+        rejected.increment();
+        throw new ConcurrencyLimitExceededException(name, getLimit());
+    }
+
+    /**
+     * 归还并发名额并记录一次请求的结果
+     * @param rttNanos 请求耗时
+     * @param inflightAtStart acquire的返回值
+     * @param dropped 请求是否失败（超时、连接失败等）
+     */
+    public void release(long rttNanos, int inflightAtStart, boolean dropped) {
+        inflight.decrementAndGet();
+        if (waiters.get() > 0) {
+            synchronized (waitLock) {
+                waitLock.notify();
+            }
+        }
+        if (dropped) {
+            onDrop();
+        } else {
+            onSample(rttNanos, inflightAtStart);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return 成功时返回占用后的在途请求数，达到上限时返回0
+     */
+    private int tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                return 0;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private synchronized void onDrop() {
+        limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtStart) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double rtt = rttNanos;
+        shortRtt = shortRtt == 0 ? rtt : shortRtt + (rtt - shortRtt) / properties.getShortWindow();
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / properties.getLongWindow();
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inflightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.api.limit;
+
+import java.io.IOException;
+
+/**
+ * 远程调用的并发数达到上限，被本地拒绝
+ * 继承IOException，与连接失败一样由Feign包装后交给降级逻辑处理
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+
+    public ConcurrencyLimitExceededException(String clientName, int limit) {
+        super(clientName + "的并发请求数已达到上限" + limit + "，请求被拒绝");
+    }
+}
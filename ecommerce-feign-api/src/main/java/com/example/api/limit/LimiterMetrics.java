@@ -0,0 +1,36 @@
+package com.example.api.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 自适应并发限制的监控指标：按客户端统计当前上限、在途请求数和被拒绝的请求数
+ */
+public class LimiterMetrics implements MeterBinder {
+
+    private final LimiterRegistry limiterRegistry;
+
+    public LimiterMetrics(LimiterRegistry limiterRegistry) {
+        this.limiterRegistry = limiterRegistry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limiterRegistry.setListener(limiter -> {
+            Gauge.builder("ecommerce.feign.limiter.limit", limiter, AdaptiveLimiter::getLimit)
+                    .description("当前的并发上限")
+                    .tag("client", limiter.getName())
+                    .register(registry);
+            Gauge.builder("ecommerce.feign.limiter.inflight", limiter, AdaptiveLimiter::getInflight)
+                    .description("在途请求数")
+                    .tag("client", limiter.getName())
+                    .register(registry);
+            FunctionCounter.builder("ecommerce.feign.limiter.rejections", limiter, AdaptiveLimiter::getRejected)
+                    .description("达到并发上限被拒绝的请求数")
+                    .tag("client", limiter.getName())
+                    .register(registry);
+        });
+    }
+}
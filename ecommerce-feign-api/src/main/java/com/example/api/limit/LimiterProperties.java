@@ -0,0 +1,52 @@
+package com.example.api.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 远程调用自适应并发限制相关配置，对每个@FeignClient分别生效
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.feign.limiter")
+public class LimiterProperties {
+    /**
+     * 关闭后不限制并发
+     */
+    private Boolean enabled = true;
+    /**
+     * 初始并发上限
+     */
+    private Integer initialLimit = 20;
+    /**
+     * 并发上限的下限，下游很慢时也至少允许这么多请求
+     */
+    private Integer minLimit = 5;
+    /**
+     * 并发上限的上限
+     */
+    private Integer maxLimit = 200;
+    /**
+     * 短期RTT超过长期RTT的这个倍数后才开始降低上限
+     */
+    private Double rttTolerance = 1.5;
+    /**
+     * 每次调整时新上限所占的权重
+     */
+    private Double smoothing = 0.2;
+    /**
+     * 长期RTT的平滑窗口（样本数）
+     */
+    private Integer longWindow = 600;
+    /**
+     * 短期RTT的平滑窗口（样本数）
+     */
+    private Integer shortWindow = 10;
+    /**
+     * 调用失败（超时、连接失败）时上限乘以这个系数
+     */
+    private Double backoffRatio = 0.9;
+    /**
+     * 达到上限时最多等待的时间，为0时直接拒绝
+     */
+    private Long maxWaitMillis = 0L;
+}
@@ -0,0 +1,56 @@
+package com.example.api.limit;
+
+import feign.Capability;
+import feign.Client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 每个@FeignClient一个AdaptiveLimiter，由FeignConfig中的Capability在创建客户端时获取
+ */
+public class LimiterRegistry {
+
+    private final LimiterProperties properties;
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+
+    // 由LimiterMetrics设置，对已有和之后创建的限制器调用
+    private volatile Consumer<AdaptiveLimiter> listener = limiter -> {};
+
+    public LimiterRegistry(LimiterProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 为指定的客户端包装Client，关闭时返回不做任何处理的Capability
+     * @param clientName @FeignClient的名称
+     */
+    public Capability capability(String clientName) {
+        if (!properties.getEnabled()) {
+            return new Capability() {};
+        }
+        AdaptiveLimiter limiter = limiters.computeIfAbsent(clientName, name -> {
+            AdaptiveLimiter created = new AdaptiveLimiter(name, properties);
+            listener.accept(created);
+            return created;
+        });
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return new LimitingClient(client, limiter);
+            }
+        };
+    }
+
+    public Collection<AdaptiveLimiter> getLimiters() {
+        return limiters.values();
+    }
+
+    synchronized void setListener(Consumer<AdaptiveLimiter> listener) {
+        this.listener = listener;
+        limiters.values().forEach(listener);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.api.limit;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+
+/**
+ * 在实际发送请求的Client外层做并发限制，负载均衡后的每次HTTP调用都计入
+ */
+public class LimitingClient implements Client {
+
+    private final Client delegate;
+
+    private final AdaptiveLimiter limiter;
+
+    public LimitingClient(Client delegate, AdaptiveLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        int inflight = limiter.acquire();
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            Response response = delegate.execute(request, options);
+            dropped = false;
+            return response;
+        } finally {
+            limiter.release(System.nanoTime() - start, inflight, dropped);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.api.batch;
+
+import com.example.common.domain.ResponseResult;
+import com.example.common.exception.SystemException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchLoaderTest {
+
+    private ScheduledExecutorService executor;
+
+    private BatchLoaderProperties properties;
+
+    // 每次批量调用收到的键
+    private List<List<Integer>> calls;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        properties = new BatchLoaderProperties();
+        properties.setMaxBatchSize(3);
+        properties.setMaxWaitMillis(50L);
+        calls = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private BatchLoader<Integer, String> loader(Function<List<Integer>, Map<Integer, String>> function) {
+        return new BatchLoader<>("test", keys -> {
+            calls.add(keys);
+            return function.apply(keys);
+        }, properties, executor);
+    }
+
+    private static Map<Integer, String> echo(List<Integer> keys) {
+        return keys.stream().filter(key -> key >= 0).collect(Collectors.toMap(key -> key, key -> "v" + key));
+    }
+
+    @Test
+    void concurrentLoadsAreMergedIntoOneCall() {
+        BatchLoader<Integer, String> loader = loader(BatchLoaderTest::echo);
+
+        CompletableFuture<String> first = loader.load(1);
+        CompletableFuture<String> second = loader.load(2);
+
+        assertEquals("v1", first.join());
+        assertEquals("v2", second.join());
+        assertEquals(List.of(List.of(1, 2)), calls);
+    }
+
+    @Test
+    void fullQueueIsDispatchedWithoutWaiting() {
+        properties.setMaxWaitMillis(TimeUnit.MINUTES.toMillis(1));
+        BatchLoader<Integer, String> loader = loader(BatchLoaderTest::echo);
+
+        CompletableFuture<String> first = loader.load(1);
+        loader.load(2);
+        loader.load(3);
+
+        assertEquals("v1", first.orTimeout(5, TimeUnit.SECONDS).join());
+        assertEquals(List.of(List.of(1, 2, 3)), calls);
+    }
+
+    @Test
+    void duplicateKeysAreQueriedOnce() {
+        BatchLoader<Integer, String> loader = loader(BatchLoaderTest::echo);
+
+        CompletableFuture<String> first = loader.load(1);
+        CompletableFuture<String> second = loader.load(1);
+
+        assertSame(first, second);
+        assertEquals("v1", first.join());
+        assertEquals(List.of(List.of(1)), calls);
+    }
+
+    @Test
+    void loadManySplitsIntoChunksAndSkipsMissingKeys() {
+        BatchLoader<Integer, String> loader = loader(BatchLoaderTest::echo);
+
+        Map<Integer, String> result = loader.loadMany(List.of(1, 2, -3, 4));
+
+        assertEquals(Map.of(1, "v1", 2, "v2", 4, "v4"), result);
+        assertEquals(List.of(List.of(1, 2, -3), List.of(4)), calls);
+        assertNull(loader.get(-3));
+    }
+
+    @Test
+    void loadManyDoesNotTakeKeysQueuedByOtherCallers() {
+        BatchLoader<Integer, String> loader = loader(BatchLoaderTest::echo);
+
+        CompletableFuture<String> queued = loader.load(1);
+        Map<Integer, String> result = loader.loadMany(List.of(2));
+
+        assertEquals(Map.of(2, "v2"), result);
+        assertEquals("v1", queued.join());
+        assertEquals(List.of(List.of(2), List.of(1)), calls);
+    }
+
+    @Test
+    void failedCallFailsEveryCallerInTheBatch() {
+        BatchLoader<Integer, String> loader = loader(keys -> {
+            throw new SystemException("下游不可用");
+        });
+
+        CompletableFuture<String> first = loader.load(1);
+
+        SystemException e = assertThrows(SystemException.class, () -> loader.loadMany(List.of(2)));
+        assertEquals("下游不可用", e.getMessage());
+        assertThrows(SystemException.class, () -> loader.get(1));
+        assertTrue(first.isCompletedExceptionally());
+    }
+
+    @Test
+    void fromResponseRejectsStaleDataByDefault() {
+        Function<List<Integer>, ResponseResult<List<String>>> call =
+                keys -> ResponseResult.stale(keys.stream().map(key -> "v" + key).toList());
+        Function<String, Integer> keyOf = value -> Integer.parseInt(value.substring(1));
+
+        Function<List<Integer>, Map<Integer, String>> strict = BatchLoader.fromResponse(call, keyOf);
+        assertThrows(SystemException.class, () -> strict.apply(List.of(1)));
+
+        Function<List<Integer>, Map<Integer, String>> lenient = BatchLoader.fromResponse(call, keyOf, true);
+        assertEquals(Map.of(1, "v1"), lenient.apply(List.of(1)));
+    }
+
+    @Test
+    void fromResponseFailsOnErrorResponse() {
+        Function<List<Integer>, Map<Integer, String>> function = BatchLoader.fromResponse(
+                keys -> ResponseResult.error(500, "服务异常"), value -> 0);
+
+        assertThrows(SystemException.class, () -> function.apply(List.of(1)));
+    }
+}
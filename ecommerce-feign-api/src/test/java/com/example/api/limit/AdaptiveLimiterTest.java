@@ -0,0 +1,123 @@
+package com.example.api.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private LimiterProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LimiterProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(50);
+    }
+
+    /**
+     * 占满上限后发出一个样本，保证在途请求数超过上限的一半
+     */
+    private void sampleAtFullLoad(AdaptiveLimiter limiter, long rttNanos) throws ConcurrencyLimitExceededException {
+        int limit = limiter.getLimit();
+        int[] starts = new int[limit];
+        for (int i = 0; i < limit; i++) {
+            starts[i] = limiter.acquire();
+        }
+        limiter.release(rttNanos, starts[limit - 1], false);
+        for (int i = 0; i < limit - 1; i++) {
+            limiter.release(0, starts[i], false);
+        }
+    }
+
+    @Test
+    void rejectsWhenLimitReached() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, limiter.acquire());
+        }
+
+        assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+        assertEquals(1, limiter.getRejected());
+        assertEquals(10, limiter.getInflight());
+
+        limiter.release(RTT, 10, false);
+        assertEquals(9, limiter.getInflight());
+    }
+
+    @Test
+    void waitingCallerGetsReleasedSlot() throws Exception {
+        properties.setInitialLimit(2);
+        properties.setMaxWaitMillis(5000L);
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        int start = limiter.acquire();
+        limiter.acquire();
+
+        CompletableFuture<Integer> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (ConcurrencyLimitExceededException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        limiter.release(0, start, false);
+
+        assertTrue(waiting.orTimeout(5, TimeUnit.SECONDS).join() > 0);
+        assertEquals(0, limiter.getRejected());
+    }
+
+    @Test
+    void steadyLatencyRaisesLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        for (int i = 0; i < 20; i++) {
+            sampleAtFullLoad(limiter, RTT);
+        }
+        assertTrue(limiter.getLimit() > 10);
+        assertTrue(limiter.getLimit() <= 50);
+    }
+
+    @Test
+    void risingLatencyLowersLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        for (int i = 0; i < 20; i++) {
+            sampleAtFullLoad(limiter, RTT);
+        }
+        int before = limiter.getLimit();
+        for (int i = 0; i < 30; i++) {
+            sampleAtFullLoad(limiter, RTT * 20);
+        }
+        assertTrue(limiter.getLimit() < before);
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    void lightLoadDoesNotChangeLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        for (int i = 0; i < 20; i++) {
+            int start = limiter.acquire();
+            limiter.release(RTT, start, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void dropsBackOffDownToMinLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", properties);
+        int start = limiter.acquire();
+        limiter.release(RTT, start, true);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            start = limiter.acquire();
+            limiter.release(RTT, start, true);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+}
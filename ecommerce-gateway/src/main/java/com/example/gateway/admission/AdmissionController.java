@@ -0,0 +1,92 @@
+package com.example.gateway.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     按下游服务统计负载，并根据请求的优先级决定是否放行
+ * </p>
+ * 负载 = max(在途请求数 / maxInflight, 平均延迟 / targetLatencyMillis)，负载达到某优先级的shedLoad时拒绝该优先级的请求，
+ * 这样下游饱和时先拒绝浏览类请求，把容量留给下单、支付等关键请求。
+ */
+public class AdmissionController {
+
+    private final AdmissionProperties properties;
+
+    private final Map<String, ServiceLoad> loads = new ConcurrentHashMap<>();
+
+    public AdmissionController(AdmissionProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public long getRetryAfterSeconds() {
+        return properties.getRetryAfterSeconds();
+    }
+
+    /**
+     * 尝试放行一个请求
+     * @return 放行时返回用于结束请求的Ticket，拒绝时返回null
+     */
+    public Ticket tryAdmit(String serviceId, Priority priority) {
+        AdmissionProperties.ServiceLimit limit = properties.limitOf(serviceId);
+        ServiceLoad load = loads.computeIfAbsent(serviceId, id -> new ServiceLoad());
+        int maxInflight = Math.max(1, limit.getMaxInflight());
+        if (priority != Priority.CRITICAL && load(load, limit, maxInflight) >= priority.getShedLoad()) {
+            return null;
+        }
+        if (!load.tryEnter(maxInflight)) {
+            return null;
+        }
+        return new Ticket(load, System.nanoTime());
+    }
+
+    /**
+     * 某下游服务当前的负载，供监控使用
+     */
+    public double loadOf(String serviceId) {
+        ServiceLoad load = loads.get(serviceId);
+        if (load == null) {
+            return 0;
+        }
+        AdmissionProperties.ServiceLimit limit = properties.limitOf(serviceId);
+        return load(load, limit, Math.max(1, limit.getMaxInflight()));
+    }
+
+    private double load(ServiceLoad load, AdmissionProperties.ServiceLimit limit, int maxInflight) {
+        double concurrency = (double) load.getInflight() / maxInflight;
+        double latency = load.latencyNanos(TimeUnit.MILLISECONDS.toNanos(properties.getLatencyStaleMillis()))
+                / TimeUnit.MILLISECONDS.toNanos(Math.max(1, limit.getTargetLatencyMillis()));
+        return Math.max(concurrency, latency);
+    }
+
+    /**
+     * 一个已放行的请求，请求结束时调用release
+     */
+    public final class Ticket {
+
+        private final ServiceLoad load;
+
+        private final long startNanos;
+
+        private boolean released;
+
+        private Ticket(ServiceLoad load, long startNanos) {
+            this.load = load;
+            this.startNanos = startNanos;
+        }
+
+        public synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            load.exit(System.nanoTime() - startNanos, properties.getSmoothing());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.gateway.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *     网关准入控制（按优先级降级）的配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.gateway.admission")
+public class AdmissionProperties {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 被拒绝时响应头Retry-After的秒数
+     */
+    private long retryAfterSeconds = 1;
+
+    /**
+     * 延迟平均值的平滑系数，越大越偏向最近的请求
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 超过这个时间没有完成的请求时，不再用旧的平均延迟判断负载（毫秒）
+     */
+    private long latencyStaleMillis = 1000;
+
+    /**
+     * 未单独配置的下游服务使用的默认限额
+     */
+    private ServiceLimit defaults = new ServiceLimit();
+
+    /**
+     * 按下游服务名单独配置的限额
+     */
+    private Map<String, ServiceLimit> services = new HashMap<>();
+
+    public ServiceLimit limitOf(String serviceId) {
+        return services.getOrDefault(serviceId, defaults);
+    }
+
+    @Data
+    public static class ServiceLimit {
+
+        /**
+         * 该服务允许的最大在途请求数
+         */
+        private int maxInflight = 200;
+
+        /**
+         * 该服务的目标平均延迟（毫秒）
+         */
+        private long targetLatencyMillis = 500;
+    }
+}
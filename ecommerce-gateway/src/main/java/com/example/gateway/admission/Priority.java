@@ -0,0 +1,38 @@
+package com.example.gateway.admission;
+
+import java.util.Locale;
+
+/**
+ * <p>
+ *     路由的优先级，在路由的metadata.priority中配置，未配置时为NORMAL
+ * </p>
+ * 下游服务的负载（在途请求数/上限与平均延迟/目标延迟中的较大者）达到shedLoad时开始拒绝该优先级的请求，
+ * CRITICAL只在在途请求数达到上限时才拒绝。
+ */
+public enum Priority {
+    CRITICAL(1.0),
+    HIGH(0.9),
+    NORMAL(0.75),
+    LOW(0.5);
+
+    private final double shedLoad;
+
+    Priority(double shedLoad) {
+        this.shedLoad = shedLoad;
+    }
+
+    public double getShedLoad() {
+        return shedLoad;
+    }
+
+    public static Priority of(Object value) {
+        if (value == null) {
+            return NORMAL;
+        }
+        try {
+            return valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return NORMAL;
+        }
+    }
+}
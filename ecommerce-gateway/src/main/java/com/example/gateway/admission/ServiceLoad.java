@@ -0,0 +1,54 @@
+package com.example.gateway.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ *     单个下游服务的在途请求数和平均延迟
+ * </p>
+ */
+class ServiceLoad {
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double latencyNanos;
+
+    private volatile long lastSampleNanos;
+
+    int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 在途请求数未达到上限时占用一个名额
+     */
+    boolean tryEnter(int maxInflight) {
+        while (true) {
+            int current = inflight.get();
+            if (current >= maxInflight) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void exit(long latency, double smoothing) {
+        inflight.decrementAndGet();
+        synchronized (this) {
+            latencyNanos = latencyNanos == 0 ? latency : latencyNanos + smoothing * (latency - latencyNanos);
+            lastSampleNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return 平均延迟（纳秒），最近staleNanos内没有样本时返回0
+     */
+    double latencyNanos(long staleNanos) {
+        if (lastSampleNanos == 0 || System.nanoTime() - lastSampleNanos > staleNanos) {
+            return 0;
+        }
+        return latencyNanos;
+    }
+}
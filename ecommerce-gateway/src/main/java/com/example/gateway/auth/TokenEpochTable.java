@@ -0,0 +1,95 @@
+package com.example.gateway.auth;
+
+import com.example.auth.util.TokenRedisUtil;
+import com.example.common.exception.SystemException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     网关本地的Token版本号表，Token中的版本号不小于表中用户的版本号时才有效
+ * </p>
+ * <ul>
+ *     <li>用户第一次访问时从Redis读取版本号，之后通过频道token-epoch接收版本号变更，验证Token不再访问Redis</li>
+ *     <li>超过refreshSeconds的记录会重新从Redis读取，弥补订阅断开期间丢失的通知，同时清理不活跃的用户</li>
+ *     <li>Redis不可用时沿用已有的记录；没有记录时无法确认Token是否已作废，抛出异常拒绝请求，与不使用版本号表时一致</li>
+ * </ul>
+ */
+@Slf4j
+public class TokenEpochTable implements MessageListener {
+
+    private final TokenRedisUtil tokenRedisUtil;
+
+    private final long refreshMillis;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public TokenEpochTable(TokenRedisUtil tokenRedisUtil, long refreshSeconds) {
+        this.tokenRedisUtil = tokenRedisUtil;
+        this.refreshMillis = TimeUnit.SECONDS.toMillis(refreshSeconds);
+    }
+
+    /**
+     * 判断Token的版本号是否仍然有效
+     * @param userId 用户ID
+     * @param tokenEpoch Token中的版本号，旧版本签发的Token没有版本号，视为0
+     * @throws SystemException 没有该用户的记录且无法从Redis读取版本号
+     */
+    public boolean isCurrent(Long userId, Long tokenEpoch) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry == null || now - entry.loadTime > refreshMillis) {
+            entry = load(userId, entry, now);
+        }
+        return (tokenEpoch == null ? 0 : tokenEpoch) >= entry.epoch;
+    }
+
+    /**
+     * 接收版本号变更通知，只更新已有的记录，没有记录的用户下次访问时再从Redis读取
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            Long userId = Long.valueOf(body.substring(0, separator));
+            long epoch = Long.parseLong(body.substring(separator + 1));
+            entries.computeIfPresent(userId, (id, entry) -> epoch > entry.epoch ? new Entry(epoch, entry.loadTime) : entry);
+        } catch (RuntimeException e) {
+            log.warn("无法解析Token版本号通知：{}", body);
+        }
+    }
+
+    /**
+     * 清理超过refreshSeconds没有重新读取的记录
+     */
+    public void evictExpired() {
+        long expireBefore = System.currentTimeMillis() - refreshMillis;
+        entries.values().removeIf(entry -> entry.loadTime < expireBefore);
+    }
+
+    private Entry load(Long userId, Entry previous, long now) {
+        long epoch;
+        try {
+            epoch = tokenRedisUtil.getEpoch(userId);
+        } catch (Exception e) {
+            if (previous == null) {
+                throw new SystemException("无法验证Token是否有效", e);
+            }
+            log.warn("读取Token版本号失败，沿用已有记录：{}，{}", userId, e.getMessage());
+            return previous;
+        }
+        // 读取期间可能收到了更新的通知，保留较大的版本号
+        return entries.merge(userId, new Entry(epoch, now),
+                (old, loaded) -> new Entry(Math.max(old.epoch, loaded.epoch), now));
+    }
+
+    private record Entry(long epoch, long loadTime) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.gateway.bff;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ *     聚合接口的配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.gateway.bff")
+public class AggregationProperties {
+
+    /**
+     * 每个部分默认的超时时间（毫秒），超时的部分不出现在结果中
+     */
+    private long defaultTimeoutMillis = 800;
+
+    /**
+     * 按部分名（cart、products、addresses、credits）单独配置的超时时间（毫秒）
+     */
+    private Map<String, Long> timeouts = new HashMap<>();
+
+    /**
+     * 地址和银行卡列表最多返回的条数
+     */
+    private int pageSize = 50;
+
+    public long timeoutOf(String part) {
+        return timeouts.getOrDefault(part, defaultTimeoutMillis);
+    }
+}
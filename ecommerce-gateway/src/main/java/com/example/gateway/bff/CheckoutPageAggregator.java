@@ -0,0 +1,113 @@
+package com.example.gateway.bff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ *     结算页的聚合查询，一次请求返回购物车、购物车中的商品、收货地址和银行卡
+ * </p>
+ * 购物车、地址、银行卡并行查询，商品在购物车返回后批量查询；每个部分有单独的超时时间，
+ * 超时或出错的部分不出现在结果中，并记录在missing里，由前端单独重试。
+ */
+@Slf4j
+public class CheckoutPageAggregator {
+
+    public static final String CART = "cart";
+    public static final String PRODUCTS = "products";
+    public static final String ADDRESSES = "addresses";
+    public static final String CREDITS = "credits";
+
+    private final WebClient webClient;
+
+    private final AggregationProperties properties;
+
+    public CheckoutPageAggregator(WebClient webClient, AggregationProperties properties) {
+        this.webClient = webClient;
+        this.properties = properties;
+    }
+
+    /**
+     * @param headers 转发给下游的请求头（X-User-Id和X-User-Power）
+     */
+    public Mono<Map<String, Object>> aggregate(HttpHeaders headers) {
+        Map<String, Object> result = Collections.synchronizedMap(new LinkedHashMap<>());
+        List<String> missing = Collections.synchronizedList(new ArrayList<>());
+        Mono<JsonNode> cart = part(CART, get(headers, "http://cart-service/api/v1/carts"), result, missing).cache();
+        Mono<JsonNode> products = cart.flatMap(cartInfo -> {
+            List<Long> productIds = productIds(cartInfo);
+            if (productIds.isEmpty()) {
+                return Mono.empty();
+            }
+            return part(PRODUCTS, webClient.post()
+                    .uri("http://product-service/api/v1/inner/products/batch")
+                    .headers(h -> h.addAll(headers))
+                    .bodyValue(productIds)
+                    .retrieve()
+                    .bodyToMono(JsonNode.class), result, missing);
+        });
+        Mono<JsonNode> addresses = part(ADDRESSES, get(headers,
+                "http://order-service/api/v1/addresses?pageNum=1&pageSize=" + properties.getPageSize()), result, missing);
+        Mono<JsonNode> credits = part(CREDITS, get(headers,
+                "http://payment-service/api/v1/credits?pageNum=1&pageSize=" + properties.getPageSize()), result, missing);
+        return Mono.when(products, addresses, credits).then(Mono.fromSupplier(() -> {
+            Map<String, Object> page = new LinkedHashMap<>();
+            for (String name : List.of(CART, PRODUCTS, ADDRESSES, CREDITS)) {
+                if (result.containsKey(name)) {
+                    page.put(name, result.get(name));
+                }
+            }
+            page.put("partial", !missing.isEmpty());
+            page.put("missing", new ArrayList<>(missing));
+            return page;
+        }));
+    }
+
+    private Mono<JsonNode> get(HttpHeaders headers, String uri) {
+        return webClient.get()
+                .uri(uri)
+                .headers(h -> h.addAll(headers))
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+
+    /**
+     * 取出响应中的data并记录到结果里，超时或出错时记录到missing并返回空
+     */
+    private Mono<JsonNode> part(String name, Mono<JsonNode> call, Map<String, Object> result, List<String> missing) {
+        return call.timeout(Duration.ofMillis(properties.timeoutOf(name)))
+                .flatMap(body -> Mono.justOrEmpty(body.get("data")))
+                .doOnNext(data -> result.put(name, data))
+                .onErrorResume(e -> {
+                    log.warn("聚合查询{}失败：{}", name, e.getMessage());
+                    missing.add(name);
+                    return Mono.empty();
+                });
+    }
+
+    private static List<Long> productIds(JsonNode cartInfo) {
+        Set<Long> ids = new LinkedHashSet<>();
+        JsonNode items = cartInfo.get("cartItems");
+        if (items != null && items.isArray()) {
+            for (JsonNode item : items) {
+                JsonNode productId = item.get("productId");
+                if (productId != null && productId.canConvertToLong()) {
+                    ids.add(productId.asLong());
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+}
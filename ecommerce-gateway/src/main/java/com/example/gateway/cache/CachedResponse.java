@@ -0,0 +1,35 @@
+package com.example.gateway.cache;
+
+import org.springframework.http.MediaType;
+
+/**
+ * <p>
+ *     缓存的响应，只缓存状态码为200的响应
+ * </p>
+ * @param contentType 响应的Content-Type
+ * @param body 响应体
+ * @param etag 根据响应体计算的强ETag（带引号）
+ * @param expireAt 过期时间（毫秒时间戳）
+ */
+public record CachedResponse(MediaType contentType, byte[] body, String etag, long expireAt) {
+
+    boolean isFresh(long nowMillis) {
+        return nowMillis < expireAt;
+    }
+
+    /**
+     * 请求的If-None-Match是否与ETag匹配
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
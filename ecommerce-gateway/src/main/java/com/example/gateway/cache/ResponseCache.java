@@ -0,0 +1,90 @@
+package com.example.gateway.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ *     网关的响应缓存（堆内，按最久未访问淘汰）
+ * </p>
+ * 同一个键同时只有一个请求被转发到下游，其余未命中的请求等待这个请求的结果（请求合并）。
+ */
+public class ResponseCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ResponseCacheProperties properties;
+
+    private final Map<String, CachedResponse> entries;
+
+    private final Map<String, CompletableFuture<CachedResponse>> loading = new ConcurrentHashMap<>();
+
+    public ResponseCache(ResponseCacheProperties properties) {
+        this.properties = properties;
+        int maxEntries = properties.getMaxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int getMaxBodyBytes() {
+        return properties.getMaxBodyBytes();
+    }
+
+    /**
+     * @return 未过期的缓存，没有时返回null
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response;
+        synchronized (entries) {
+            response = entries.get(key);
+        }
+        if (response == null || !response.isFresh(System.currentTimeMillis())) {
+            return null;
+        }
+        return response;
+    }
+
+    public void put(String key, CachedResponse response) {
+        synchronized (entries) {
+            entries.put(key, response);
+        }
+    }
+
+    /**
+     * 登记一个转发到下游的请求
+     * @return 已有同键的请求在转发时返回它的结果，否则返回null，表示由调用方转发并在结束时调用complete
+     */
+    public CompletableFuture<CachedResponse> join(String key, CompletableFuture<CachedResponse> leader) {
+        return loading.putIfAbsent(key, leader);
+    }
+
+    /**
+     * 转发结束，唤醒等待的请求；response为null表示响应不可缓存，等待的请求需要各自转发
+     */
+    public void complete(String key, CompletableFuture<CachedResponse> leader, CachedResponse response) {
+        loading.remove(key, leader);
+        leader.complete(response);
+    }
+
+    public static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HEX.formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.gateway.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * <p>
+ *     网关响应缓存的全局配置，每条路由的缓存时间在路由的ResponseCache过滤器参数中配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存，关闭后ResponseCache过滤器直接放行
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的响应数，超过时淘汰最久未访问的
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * 响应体超过这个大小（字节）时不缓存
+     */
+    private int maxBodyBytes = 256 * 1024;
+}
@@ -0,0 +1,22 @@
+package com.example.gateway.config;
+
+import com.example.gateway.admission.AdmissionController;
+import com.example.gateway.admission.AdmissionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>
+ *     网关准入控制配置
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionController admissionController(AdmissionProperties properties) {
+        return new AdmissionController(properties);
+    }
+}
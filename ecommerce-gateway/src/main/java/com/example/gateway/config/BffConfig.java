@@ -0,0 +1,27 @@
+package com.example.gateway.config;
+
+import com.example.gateway.bff.AggregationProperties;
+import com.example.gateway.bff.CheckoutPageAggregator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * <p>
+ *     聚合接口配置，查询下游服务时和路由转发一样经过负载均衡
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(AggregationProperties.class)
+public class BffConfig {
+
+    @Bean
+    public CheckoutPageAggregator checkoutPageAggregator(WebClient.Builder webClientBuilder,
+                                                         LoadBalancedExchangeFilterFunction loadBalancerFunction,
+                                                         AggregationProperties properties) {
+        WebClient webClient = webClientBuilder.filter(loadBalancerFunction).build();
+        return new CheckoutPageAggregator(webClient, properties);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.gateway.config;
+
+import com.example.gateway.metrics.GatewayMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>
+ *     网关监控指标配置，指标通过管理端口的/actuator/prometheus暴露
+ * </p>
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public GatewayMetrics gatewayMetrics(MeterRegistry meterRegistry) {
+        return new GatewayMetrics(meterRegistry);
+    }
+}
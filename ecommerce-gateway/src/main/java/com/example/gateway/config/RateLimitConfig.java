@@ -0,0 +1,23 @@
+package com.example.gateway.config;
+
+import com.example.gateway.limit.RateLimitProperties;
+import com.example.gateway.limit.RateLimiterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * <p>
+ *     网关限流配置
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean(destroyMethod = "stop")
+    public RateLimiterRegistry rateLimiterRegistry(StringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        return new RateLimiterRegistry(redisTemplate, properties);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.gateway.config;
+
+import com.example.gateway.cache.ResponseCache;
+import com.example.gateway.cache.ResponseCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>
+ *     网关响应缓存配置
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCache responseCache(ResponseCacheProperties properties) {
+        return new ResponseCache(properties);
+    }
+}
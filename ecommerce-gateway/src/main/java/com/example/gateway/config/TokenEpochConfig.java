@@ -0,0 +1,54 @@
+package com.example.gateway.config;
+
+import com.example.auth.config.JwtConfig;
+import com.example.auth.util.TokenRedisUtil;
+import com.example.gateway.auth.TokenEpochTable;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     按Token版本号在本地验证AccessToken，通过ecommerce.jwt.epoch-validation=true开启
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ecommerce.jwt", name = "epoch-validation", havingValue = "true")
+public class TokenEpochConfig {
+
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gateway-token-epoch-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Bean
+    public TokenEpochTable tokenEpochTable(TokenRedisUtil tokenRedisUtil, JwtConfig jwtConfig) {
+        TokenEpochTable table = new TokenEpochTable(tokenRedisUtil, jwtConfig.getEpochRefreshSeconds());
+        long interval = Math.max(1, jwtConfig.getEpochRefreshSeconds());
+        evictor.scheduleWithFixedDelay(table::evictExpired, interval, interval, TimeUnit.SECONDS);
+        return table;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer tokenEpochListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     TokenEpochTable tokenEpochTable) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenEpochTable, new ChannelTopic(TokenRedisUtil.EPOCH_CHANNEL));
+        return container;
+    }
+
+    @PreDestroy
+    public void stop() {
+        evictor.shutdownNow();
+    }
+}
@@ -4,6 +4,8 @@ import com.example.auth.enums.UserPower;
 import com.example.common.domain.ResultCode;
 import com.example.common.exception.SystemException;
 import com.example.common.exception.UserException;
+import com.example.gateway.metrics.GatewayMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -21,11 +23,16 @@ import java.util.Objects;
  * @author vlsmb
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class AdminAuthGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> implements Ordered {
+
+    private final GatewayMetrics gatewayMetrics;
+
     @Override
     public GatewayFilter apply(Object config) {
         return (exchange, chain) -> {
+            long start = System.nanoTime();
             ServerHttpRequest request = exchange.getRequest();
             try {
                 Integer userPower = Integer.valueOf(Objects.requireNonNull(request.getHeaders().getFirst("X-User-Power")));
@@ -39,6 +46,8 @@ public class AdminAuthGatewayFilterFactory extends AbstractGatewayFilterFactory<
                 // 出现了未知的异常，记录日志
                 log.error(e.getMessage());
                 throw new SystemException(e);
+            } finally {
+                gatewayMetrics.recordFilter("admin-auth", exchange, start);
             }
             return chain.filter(exchange);
         };
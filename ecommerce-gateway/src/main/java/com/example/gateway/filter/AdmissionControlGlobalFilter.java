@@ -0,0 +1,51 @@
+package com.example.gateway.filter;
+
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.UserException;
+import com.example.gateway.admission.AdmissionController;
+import com.example.gateway.admission.Priority;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ *     准入控制全局过滤器，下游服务过载时按路由优先级（metadata.priority）提前拒绝请求，返回503和Retry-After
+ *     在TokenAnalysisGlobalFilter前执行，被拒绝的请求不再解析Token
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlGlobalFilter implements GlobalFilter, Ordered {
+
+    private final AdmissionController admissionController;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!admissionController.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+        String serviceId = route.getUri().getHost() == null ? route.getId() : route.getUri().getHost();
+        Priority priority = Priority.of(route.getMetadata().get("priority"));
+        AdmissionController.Ticket ticket = admissionController.tryAdmit(serviceId, priority);
+        if (ticket == null) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(admissionController.getRetryAfterSeconds()));
+            throw new UserException(ResultCode.SERVICE_UNAVAILABLE, "服务繁忙，请稍后再试");
+        }
+        return chain.filter(exchange).doFinally(signal -> ticket.release());
+    }
+
+    @Override
+    public int getOrder() {
+        return -1;  // 在TokenAnalysisGlobalFilter前执行
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.gateway.filter;
+
+import com.example.common.domain.ResponseResult;
+import com.example.gateway.bff.CheckoutPageAggregator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ *     结算页聚合过滤器，直接返回CheckoutPageAggregator的结果，不再转发请求
+ *     在LoginAuthGatewayFilterFactory后执行，使用已经解析好的X-User-Id和X-User-Power请求头查询下游服务
+ * </p>
+ * 用法（路由的uri填no://op）：
+ * <pre>
+ * filters:
+ *   - LoginAuth
+ *   - CheckoutAggregate
+ * </pre>
+ */
+@Component
+@Slf4j
+public class CheckoutAggregateGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    private final CheckoutPageAggregator aggregator;
+
+    private final ObjectMapper objectMapper;
+
+    public CheckoutAggregateGatewayFilterFactory(CheckoutPageAggregator aggregator, ObjectMapper objectMapper) {
+        this.aggregator = aggregator;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-User-Id", request.getHeaders().getFirst("X-User-Id"));
+            headers.set("X-User-Power", request.getHeaders().getFirst("X-User-Power"));
+            ServerHttpResponse response = exchange.getResponse();
+            return aggregator.aggregate(headers).flatMap(page -> {
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response.writeWith(Mono.fromSupplier(() -> {
+                    DataBufferFactory bufferFactory = response.bufferFactory();
+                    try {
+                        return bufferFactory.wrap(objectMapper.writeValueAsBytes(ResponseResult.success(page)));
+                    } catch (Exception e) {
+                        log.error("Error writing response", e);
+                        return bufferFactory.wrap(new byte[0]);
+                    }
+                }));
+            });
+        };
+    }
+}
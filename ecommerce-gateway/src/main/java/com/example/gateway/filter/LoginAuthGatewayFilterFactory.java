@@ -2,6 +2,8 @@ package com.example.gateway.filter;
 
 import com.example.common.exception.SystemException;
 import com.example.common.exception.UnauthorizedException;
+import com.example.gateway.metrics.GatewayMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -19,11 +21,16 @@ import java.util.Objects;
  * @author vlsmb
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class LoginAuthGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> implements Ordered {
+
+    private final GatewayMetrics gatewayMetrics;
+
     @Override
     public GatewayFilter apply(Object config) {
         return (exchange, chain) -> {
+            long start = System.nanoTime();
             ServerHttpRequest request = exchange.getRequest();
             try {
                 Long userId = Long.parseLong(Objects.requireNonNull(request.getHeaders().getFirst("X-User-Id")));
@@ -34,6 +41,8 @@ public class LoginAuthGatewayFilterFactory extends AbstractGatewayFilterFactory<
                 // 出现了未知的异常，记录日志
                 log.error(e.getMessage());
                 throw new SystemException(e);
+            } finally {
+                gatewayMetrics.recordFilter("login-auth", exchange, start);
             }
             return chain.filter(exchange);
         };
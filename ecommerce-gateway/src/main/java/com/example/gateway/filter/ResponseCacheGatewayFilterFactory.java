@@ -0,0 +1,202 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.cache.CachedResponse;
+import com.example.gateway.cache.ResponseCache;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ *     响应缓存过滤器，短时间缓存GET请求的响应，只能用于响应与登录用户无关的路由
+ * </p>
+ * <ul>
+ *     <li>缓存键为路由ID、路径、查询参数和请求体的哈希（商品查询接口的条件放在GET请求体中）</li>
+ *     <li>同一个键同时未命中的请求只转发一个到下游，其余的等待它的结果</li>
+ *     <li>响应带ETag，请求的If-None-Match与缓存匹配时返回304</li>
+ * </ul>
+ * 用法：
+ * <pre>
+ * filters:
+ *   - name: ResponseCache
+ *     args:
+ *       ttl-millis: 2000
+ * </pre>
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCache responseCache) {
+        super(Config.class);
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttlMillis");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (!responseCache.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            // 读取并缓存请求体，转发时使用缓存的请求体
+            return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, request -> {
+                ServerWebExchange cachedExchange = exchange.mutate().request(request).build();
+                return filter(cachedExchange, chain, config, cacheKey(cachedExchange));
+            });
+        };
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config, String key) {
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            return writeCached(exchange, cached, "HIT");
+        }
+        CompletableFuture<CachedResponse> leader = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> loading = responseCache.join(key, leader);
+        if (loading != null) {
+            // 等待同键的请求，它的响应不可缓存时自己转发
+            return Mono.fromFuture(loading, true)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(response -> response.isPresent()
+                            ? writeCached(exchange, response.get(), "COALESCED")
+                            : chain.filter(exchange));
+        }
+        ServerHttpResponse caching = new CachingResponse(exchange.getResponse(), key, config, leader);
+        return chain.filter(exchange.mutate().response(caching).build())
+                .doFinally(signal -> responseCache.complete(key, leader, null));
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, String source) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(cached.etag());
+        headers.set(CACHE_HEADER, source);
+        if (cached.matches(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private String cacheKey(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        StringBuilder key = new StringBuilder(128)
+                .append(route == null ? "" : route.getId())
+                .append(' ')
+                .append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        if (body != null && body.readableByteCount() > 0) {
+            key.append('#').append(hash(body));
+        }
+        return key.toString();
+    }
+
+    private static String hash(DataBuffer body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (DataBuffer.ByteBufferIterator buffers = body.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    digest.update(buffers.next());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 转发请求的响应，写出响应体时把200的响应存入缓存
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+
+        private final Config config;
+
+        private final CompletableFuture<CachedResponse> leader;
+
+        CachingResponse(ServerHttpResponse delegate, String key, Config config, CompletableFuture<CachedResponse> leader) {
+            super(delegate);
+            this.key = key;
+            this.config = config;
+            this.leader = leader;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value()) {
+                responseCache.complete(key, leader, null);
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                CachedResponse response = null;
+                if (bytes.length <= responseCache.getMaxBodyBytes()) {
+                    response = new CachedResponse(getHeaders().getContentType(), bytes,
+                            "\"" + ResponseCache.hash(bytes) + "\"",
+                            System.currentTimeMillis() + config.getTtlMillis());
+                    responseCache.put(key, response);
+                    getHeaders().setETag(response.etag());
+                }
+                getHeaders().set(CACHE_HEADER, "MISS");
+                responseCache.complete(key, leader, response);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        /**
+         * 响应的缓存时间（毫秒）
+         */
+        private long ttlMillis = 1000;
+    }
+}
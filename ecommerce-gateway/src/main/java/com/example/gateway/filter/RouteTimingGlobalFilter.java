@@ -0,0 +1,53 @@
+package com.example.gateway.filter;
+
+import com.example.common.exception.UserException;
+import com.example.gateway.metrics.GatewayMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ *     全局过滤器，记录每个请求从进入网关到下游响应的耗时，按路由、状态码类别和下游实例统计
+ *     最先执行，耗时包括其余所有过滤器和转发
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class RouteTimingGlobalFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMetrics gatewayMetrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(ignored -> gatewayMetrics.recordRoute(exchange, exchange.getResponse().getStatusCode(), start))
+                .doOnError(e -> gatewayMetrics.recordRoute(exchange, statusOf(e), start));
+    }
+
+    /**
+     * 过滤器抛出的异常由GlobalExceptionHandler转换为响应，这里按同样的规则取状态码
+     */
+    private static HttpStatusCode statusOf(Throwable e) {
+        if (e instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode();
+        }
+        if (e instanceof UserException userException) {
+            return HttpStatusCode.valueOf(userException.getCode());
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -5,8 +5,11 @@ import com.example.auth.util.JwtUtil;
 import com.example.auth.util.TokenRedisUtil;
 import com.example.common.exception.SystemException;
 import com.example.common.exception.UnauthorizedException;
+import com.example.gateway.auth.TokenEpochTable;
+import com.example.gateway.metrics.GatewayMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -28,9 +31,26 @@ public class TokenAnalysisGlobalFilter implements GlobalFilter, Ordered {
 
     private final JwtUtil jwtUtil;
     private final TokenRedisUtil tokenRedisUtil;
+    private final GatewayMetrics gatewayMetrics;
+    // 开启ecommerce.jwt.epoch-validation时存在，按Token版本号在本地验证
+    private final ObjectProvider<TokenEpochTable> tokenEpochTable;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        ServerWebExchange analyzed;
+        try {
+            analyzed = analyze(exchange);
+        } finally {
+            gatewayMetrics.recordFilter("token-analysis", exchange, start);
+        }
+        return chain.filter(analyzed);
+    }
+
+    /**
+     * 解析Token，返回设置好请求头的exchange
+     */
+    private ServerWebExchange analyze(ServerWebExchange exchange) {
         // 清除请求头中X-User-Id和X-User-Power字段，防止伪造请求头
         ServerHttpRequest request = exchange.getRequest().mutate()
                 .header("X-User-Id", "")
@@ -40,14 +60,20 @@ public class TokenAnalysisGlobalFilter implements GlobalFilter, Ordered {
         String token = request.getHeaders().getFirst("Authorization");
         if(token == null) {
             // 没有获得Token，放行到下面的权限过滤器
-            return chain.filter(exchange.mutate().request(request).build());
+            return exchange.mutate().request(request).build();
         }
 
         // 解析Token并设置请求头
         try {
             UserClaims userClaims = jwtUtil.verifyToken(token);
-            // 检查当前Redis里的token与现在传递进来的是否一致
-            if(!token.equals(tokenRedisUtil.getAccessToken(userClaims.getUserId()))) {
+            TokenEpochTable epochTable = tokenEpochTable.getIfAvailable();
+            if(epochTable != null) {
+                // 检查Token的版本号是否已经被登出或重新登陆作废
+                if(!epochTable.isCurrent(userClaims.getUserId(), userClaims.getEpoch())) {
+                    throw new UnauthorizedException("Token已失效");
+                }
+            } else if(!token.equals(tokenRedisUtil.getAccessToken(userClaims.getUserId()))) {
+                // 检查当前Redis里的token与现在传递进来的是否一致
                 throw new UnauthorizedException("Token已失效");
             }
             // 不是RefreshToken
@@ -60,7 +86,7 @@ public class TokenAnalysisGlobalFilter implements GlobalFilter, Ordered {
                     .header("X-User-Id", userClaims.getUserId().toString())
                     .header("X-User-Power", userClaims.getUserPower().toString())
                     .build();
-            return chain.filter(exchange.mutate().request(mutateRequest).build());
+            return exchange.mutate().request(mutateRequest).build();
         } catch (UnauthorizedException e) {
             throw new UnauthorizedException(e.getMessage());
         } catch (Exception e) {
@@ -0,0 +1,34 @@
+package com.example.gateway.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * <p>
+ *     网关限流的全局配置，每条路由的限额在路由的RateLimit过滤器参数中配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.gateway.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流，关闭后RateLimit过滤器直接放行
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地令牌桶与Redis全局配额同步的间隔（毫秒）
+     */
+    private long syncIntervalMillis = 200;
+
+    /**
+     * 令牌桶空闲多久后被清理（秒）
+     */
+    private long idleExpireSeconds = 300;
+
+    /**
+     * Redis中全局计数键的前缀
+     */
+    private String keyPrefix = "gateway:rate-limit:";
+}
@@ -0,0 +1,41 @@
+package com.example.gateway.limit;
+
+import lombok.Data;
+
+/**
+ * <p>
+ *     单条路由的限流规则，对应路由配置中的RateLimit过滤器参数
+ * </p>
+ * 同一个用户（未登录时为同一个IP）在每个网关实例上最多连续发出burstCapacity个请求，之后以replenishRate个/秒的速度恢复；
+ * 所有网关实例合计在一个窗口内最多放行globalLimit个请求，未配置时为replenishRate * windowSeconds与burstCapacity中的较大者。
+ */
+@Data
+public class RateLimitRule {
+
+    /**
+     * 每秒补充的令牌数
+     */
+    private double replenishRate = 10;
+
+    /**
+     * 令牌桶容量，即允许的突发请求数
+     */
+    private long burstCapacity = 20;
+
+    /**
+     * 全局配额的统计窗口（秒）
+     */
+    private long windowSeconds = 1;
+
+    /**
+     * 所有网关实例在一个窗口内合计的配额，不大于0时按replenishRate和burstCapacity计算
+     */
+    private long globalQuota = 0;
+
+    long globalLimit() {
+        if (globalQuota > 0) {
+            return globalQuota;
+        }
+        return Math.max(burstCapacity, (long) Math.ceil(replenishRate * Math.max(1, windowSeconds)));
+    }
+}
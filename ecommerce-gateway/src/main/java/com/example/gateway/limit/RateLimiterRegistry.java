@@ -0,0 +1,138 @@
+package com.example.gateway.limit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     网关限流的令牌桶管理
+ * </p>
+ * 请求只在本地令牌桶上判断，不访问Redis；后台线程每隔syncIntervalMillis把各令牌桶新消耗的令牌数INCRBY到Redis中
+ * 当前窗口的全局计数，全局计数超过配额的令牌桶被封锁到窗口结束。
+ * 一轮同步的所有INCRBY在同一个管道中发出，只有窗口内第一次计数的键再用一个管道设置过期时间。
+ * 因此全局配额是近似的，最多会多放行一个同步间隔内各实例的本地消耗；Redis不可用时只按本地令牌桶限流。
+ */
+@Slf4j
+public class RateLimiterRegistry {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RateLimitProperties properties;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService syncer;
+
+    public RateLimiterRegistry(StringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gateway-rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, properties.getSyncIntervalMillis());
+        syncer.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        syncer.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 为某路由上的某个调用方取一个令牌
+     * @param routeId 路由ID
+     * @param key 用户ID或客户端IP
+     * @param rule 该路由的限流规则
+     * @return 0表示放行，否则为建议客户端等待的毫秒数
+     */
+    public long tryAcquire(String routeId, String key, RateLimitRule rule) {
+        String bucketKey = routeId + ":" + key;
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null || bucket.getRule() != rule) {
+            // 路由配置刷新后规则对象会变化，用新规则重建令牌桶
+            bucket = buckets.compute(bucketKey, (k, current) ->
+                    current != null && current.getRule() == rule
+                            ? current
+                            : new TokenBucket(properties.getKeyPrefix() + "{" + k + "}:", rule));
+        }
+        return bucket.tryAcquire();
+    }
+
+    private void sync() {
+        long now = System.currentTimeMillis();
+        long idleBefore = now - TimeUnit.SECONDS.toMillis(properties.getIdleExpireSeconds());
+        List<PendingCount> pending = new ArrayList<>();
+        Iterator<TokenBucket> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            TokenBucket bucket = iterator.next();
+            long consumed = bucket.drainUnsynced();
+            if (consumed == 0) {
+                if (bucket.getLastAccessMillis() < idleBefore) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            long windowStart = bucket.windowStart(now);
+            pending.add(new PendingCount(bucket, windowStart, bucket.redisKey(windowStart), consumed));
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            List<Object> totals = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    pending.forEach(count -> operations.opsForValue().increment(count.redisKey(), count.consumed()));
+                    return null;
+                }
+            });
+            List<PendingCount> firstInWindow = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                PendingCount count = pending.get(i);
+                if (!(totals.get(i) instanceof Long total)) {
+                    continue;
+                }
+                if (total == count.consumed()) {
+                    firstInWindow.add(count);
+                }
+                count.bucket().applyGlobalCount(count.windowStart(), total);
+            }
+            if (!firstInWindow.isEmpty()) {
+                // 窗口内第一次计数，设置过期时间让旧窗口的键自动清理
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object execute(RedisOperations operations) throws DataAccessException {
+                        firstInWindow.forEach(count -> operations.expire(count.redisKey(),
+                                count.bucket().getWindowMillis() * 2, TimeUnit.MILLISECONDS));
+                        return null;
+                    }
+                });
+            }
+        } catch (Exception e) {
+            // 本轮只按本地令牌桶限流
+            log.warn("限流计数同步到Redis失败：{}", e.getMessage());
+        }
+    }
+
+    private record PendingCount(TokenBucket bucket, long windowStart, String redisKey, long consumed) {
+    }
+}
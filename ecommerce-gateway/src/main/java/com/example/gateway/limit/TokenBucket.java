@@ -0,0 +1,103 @@
+package com.example.gateway.limit;
+
+/**
+ * <p>
+ *     本地令牌桶，记录自上次同步以来消耗的令牌数，由RateLimiterRegistry定期上报到Redis
+ * </p>
+ * 全局配额用尽时令牌桶被封锁到当前窗口结束，封锁期间即使本地还有令牌也拒绝请求。
+ */
+public class TokenBucket {
+
+    private final RateLimitRule rule;
+
+    private final String redisKeyPrefix;
+
+    private final double replenishPerNano;
+
+    private final long capacity;
+
+    private final long globalLimit;
+
+    private final long windowMillis;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    private long unsynced;
+
+    private long blockedUntilMillis;
+
+    private volatile long lastAccessMillis;
+
+    TokenBucket(String redisKeyPrefix, RateLimitRule rule) {
+        this.rule = rule;
+        this.redisKeyPrefix = redisKeyPrefix;
+        this.replenishPerNano = rule.getReplenishRate() / 1_000_000_000d;
+        this.capacity = Math.max(1, rule.getBurstCapacity());
+        this.windowMillis = Math.max(1, rule.getWindowSeconds()) * 1000L;
+        this.globalLimit = rule.globalLimit();
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 尝试取一个令牌
+     * @return 0表示放行，否则为建议客户端等待的毫秒数
+     */
+    synchronized long tryAcquire() {
+        long nowMillis = System.currentTimeMillis();
+        lastAccessMillis = nowMillis;
+        if (nowMillis < blockedUntilMillis) {
+            return blockedUntilMillis - nowMillis;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * replenishPerNano);
+        lastRefillNanos = now;
+        if (tokens < 1) {
+            return replenishPerNano > 0 ? (long) Math.ceil((1 - tokens) / replenishPerNano / 1_000_000d) : windowMillis;
+        }
+        tokens -= 1;
+        unsynced++;
+        return 0;
+    }
+
+    /**
+     * 取出尚未上报的消耗数
+     */
+    synchronized long drainUnsynced() {
+        long count = unsynced;
+        unsynced = 0;
+        return count;
+    }
+
+    /**
+     * 全局消耗超过配额时封锁到窗口结束
+     */
+    synchronized void applyGlobalCount(long windowStartMillis, long globalCount) {
+        if (globalCount >= globalLimit) {
+            blockedUntilMillis = Math.max(blockedUntilMillis, windowStartMillis + windowMillis);
+        }
+    }
+
+    long windowStart(long nowMillis) {
+        return nowMillis - Math.floorMod(nowMillis, windowMillis);
+    }
+
+    long getWindowMillis() {
+        return windowMillis;
+    }
+
+    String redisKey(long windowStartMillis) {
+        return redisKeyPrefix + windowStartMillis;
+    }
+
+    RateLimitRule getRule() {
+        return rule;
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+}
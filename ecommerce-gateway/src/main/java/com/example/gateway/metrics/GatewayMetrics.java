@@ -0,0 +1,104 @@
+package com.example.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     网关的延迟直方图
+ * </p>
+ * <ul>
+ *     <li>gateway.filter.latency{filter, route}：Token解析、登录和管理员验证等过滤器自身的耗时</li>
+ *     <li>gateway.route.latency{route, status, instance}：请求从进入网关到下游响应的总耗时，status为状态码类别（2xx等）</li>
+ * </ul>
+ * Timer按标签缓存，每次请求只做Map查找，不重复创建Meter。
+ */
+public class GatewayMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Map<String, Timer>> filterTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Timer[]>> routeTimers = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录一个过滤器的耗时
+     * @param filter 过滤器名
+     * @param startNanos System.nanoTime()记录的开始时间
+     */
+    public void recordFilter(String filter, ServerWebExchange exchange, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        String routeId = routeId(exchange);
+        filterTimers.computeIfAbsent(filter, f -> new ConcurrentHashMap<>())
+                .computeIfAbsent(routeId, route -> histogram(Timer.builder("gateway.filter.latency")
+                        .description("网关过滤器的耗时")
+                        .tag("filter", filter)
+                        .tag("route", route)))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一个请求的总耗时
+     * @param status 响应状态码，未知时为null
+     * @param startNanos System.nanoTime()记录的开始时间
+     */
+    public void recordRoute(ServerWebExchange exchange, HttpStatusCode status, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        String routeId = routeId(exchange);
+        String instance = instance(exchange);
+        int statusClass = status == null ? 4 : Math.min(4, Math.max(0, status.value() / 100 - 1));
+        Timer[] timers = routeTimers.computeIfAbsent(routeId, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(instance, i -> new Timer[STATUS_CLASSES.length]);
+        Timer timer = timers[statusClass];
+        if (timer == null) {
+            // 同一组标签重复注册时MeterRegistry返回已有的Timer
+            timer = histogram(Timer.builder("gateway.route.latency")
+                    .description("网关请求的总耗时")
+                    .tag("route", routeId)
+                    .tag("status", STATUS_CLASSES[statusClass])
+                    .tag("instance", instance));
+            timers[statusClass] = timer;
+        }
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer histogram(Timer.Builder builder) {
+        return builder.publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? UNKNOWN : route.getId();
+    }
+
+    private static String instance(ServerWebExchange exchange) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || response.getServer() == null) {
+            return UNKNOWN;
+        }
+        ServiceInstance server = response.getServer();
+        return server.getHost() + ":" + server.getPort();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.gateway.auth;
+
+import com.example.auth.util.TokenRedisUtil;
+import com.example.common.exception.SystemException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenEpochTableTest {
+
+    private TokenRedisUtil tokenRedisUtil;
+
+    @BeforeEach
+    void setUp() {
+        tokenRedisUtil = mock(TokenRedisUtil.class);
+    }
+
+    @Test
+    void tokenOlderThanCurrentEpochIsRejected() {
+        when(tokenRedisUtil.getEpoch(1L)).thenReturn(3L);
+        TokenEpochTable table = new TokenEpochTable(tokenRedisUtil, 60);
+
+        assertTrue(table.isCurrent(1L, 3L));
+        assertFalse(table.isCurrent(1L, 2L));
+        assertFalse(table.isCurrent(1L, null));
+        verify(tokenRedisUtil, times(1)).getEpoch(1L);
+    }
+
+    @Test
+    void notificationRaisesEpochOfKnownUser() {
+        when(tokenRedisUtil.getEpoch(1L)).thenReturn(1L);
+        TokenEpochTable table = new TokenEpochTable(tokenRedisUtil, 60);
+        assertTrue(table.isCurrent(1L, 1L));
+
+        table.onMessage(new DefaultMessage("token-epoch".getBytes(StandardCharsets.UTF_8),
+                "1:2".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(table.isCurrent(1L, 1L));
+        assertTrue(table.isCurrent(1L, 2L));
+    }
+
+    @Test
+    void unknownUserIsRejectedWhenRedisUnavailable() {
+        when(tokenRedisUtil.getEpoch(1L)).thenThrow(new RedisConnectionFailureException("down"));
+        TokenEpochTable table = new TokenEpochTable(tokenRedisUtil, 60);
+
+        assertThrows(SystemException.class, () -> table.isCurrent(1L, 5L));
+    }
+
+    @Test
+    void knownUserKeepsEntryWhenRedisUnavailable() throws InterruptedException {
+        when(tokenRedisUtil.getEpoch(1L)).thenReturn(2L).thenThrow(new RedisConnectionFailureException("down"));
+        TokenEpochTable table = new TokenEpochTable(tokenRedisUtil, 0);
+        assertTrue(table.isCurrent(1L, 2L));
+
+        Thread.sleep(5);
+
+        assertFalse(table.isCurrent(1L, 1L));
+        assertTrue(table.isCurrent(1L, 2L));
+    }
+}
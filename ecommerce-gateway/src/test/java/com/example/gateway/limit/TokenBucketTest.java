@@ -0,0 +1,85 @@
+package com.example.gateway.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static RateLimitRule rule(double replenishRate, long burstCapacity, long globalQuota) {
+        RateLimitRule rule = new RateLimitRule();
+        rule.setReplenishRate(replenishRate);
+        rule.setBurstCapacity(burstCapacity);
+        rule.setGlobalQuota(globalQuota);
+        return rule;
+    }
+
+    @Test
+    void burstIsAllowedThenRejectedWithRetryHint() {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(1, 3, 0));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire());
+        }
+
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0 && wait <= 1000, "wait=" + wait);
+    }
+
+    @Test
+    void zeroRateSuggestsWaitingOneWindow() {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(0, 1, 0));
+        assertEquals(0, bucket.tryAcquire());
+
+        assertEquals(1000, bucket.tryAcquire());
+    }
+
+    @Test
+    void tokensAreReplenishedOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(100, 1, 0));
+        assertEquals(0, bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire() > 0);
+
+        Thread.sleep(30);
+
+        assertEquals(0, bucket.tryAcquire());
+    }
+
+    @Test
+    void drainReturnsConsumptionSinceLastSync() {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(0, 5, 0));
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+
+        assertEquals(2, bucket.drainUnsynced());
+        assertEquals(0, bucket.drainUnsynced());
+
+        bucket.tryAcquire();
+        // 被拒绝的请求不计入消耗
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+        bucket.tryAcquire();
+        assertEquals(3, bucket.drainUnsynced());
+    }
+
+    @Test
+    void globalQuotaBlocksUntilWindowEnds() {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(100, 100, 10));
+        long windowStart = bucket.windowStart(System.currentTimeMillis());
+
+        bucket.applyGlobalCount(windowStart, 9);
+        assertEquals(0, bucket.tryAcquire());
+
+        bucket.applyGlobalCount(windowStart, 10);
+        long wait = bucket.tryAcquire();
+        assertTrue(wait > 0 && wait <= 1000, "wait=" + wait);
+    }
+
+    @Test
+    void redisKeyIsPerWindow() {
+        TokenBucket bucket = new TokenBucket("rate:{r:u}:", rule(10, 20, 0));
+
+        assertEquals(5000, bucket.windowStart(5999));
+        assertEquals(6000, bucket.windowStart(6000));
+        assertEquals("rate:{r:u}:6000", bucket.redisKey(6000));
+    }
+}
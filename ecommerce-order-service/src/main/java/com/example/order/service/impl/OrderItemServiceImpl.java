@@ -3,13 +3,10 @@ package com.example.order.service.impl;
 import com.alibaba.nacos.api.remote.response.ResponseCode;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.example.api.client.CartClient;
-import com.example.api.client.ProductClient;
+import com.example.api.batch.BatchLoader;
 import com.example.api.domain.po.CartItem;
 import com.example.api.domain.vo.product.ProductInfoVo;
 import com.example.api.enums.OrderStatusEnum;
-import com.example.common.domain.ResponseResult;
-import com.example.common.domain.ResultCode;
 import com.example.common.exception.BadRequestException;
 import com.example.common.exception.NotFoundException;
 import com.example.common.exception.SystemException;
@@ -23,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -30,8 +28,8 @@ import java.util.Objects;
 @Slf4j
 public class OrderItemServiceImpl extends ServiceImpl<OrderItemMapper, OrderItem> implements IOrderItemService {
 
-    private final ProductClient productClient;
-    private final CartClient cartClient;
+    private final BatchLoader<Long, CartItem> cartItemLoader;
+    private final BatchLoader<Long, ProductInfoVo> productInfoLoader;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -39,26 +37,26 @@ public class OrderItemServiceImpl extends ServiceImpl<OrderItemMapper, OrderItem
         if(orderItems == null || orderItems.isEmpty()) {
             return;
         }
+        // 一次批量查询所有购物车项目和商品，代替逐项调用
+        Map<Long, CartItem> cartItems = cartItemLoader.loadMany(orderItems.stream().map(CartItem::getCartItemId).toList());
+        Map<Long, ProductInfoVo> products = productInfoLoader.loadMany(orderItems.stream().map(CartItem::getProductId).toList());
         orderItems.forEach(cartItem -> {
             // 判断购物车物品是否存在
-            ResponseResult<CartItem> exists = cartClient.getCartItem(cartItem.getCartItemId());
-            if(exists.getCode() == ResultCode.NOT_FOUND) {
+            CartItem exists = cartItems.get(cartItem.getCartItemId());
+            if(exists == null) {
                 throw new NotFoundException("指定购物车项目不存在");
-            } else if(exists.getCode() != ResultCode.SUCCESS) {
-                log.error("cart-service异常：{}", exists.getMsg());
-                throw new SystemException("cart-service异常");
             }
-            if(!Objects.equals(cartItem.getProductId(), exists.getData().getProductId()) || !Objects.equals(cartItem.getQuantity(), exists.getData().getQuantity())) {
+            if(!Objects.equals(cartItem.getProductId(), exists.getProductId()) || !Objects.equals(cartItem.getQuantity(), exists.getQuantity())) {
                 throw new BadRequestException("下单数据与购物车数据不符合");
             }
             Float cost = 0f;
             // 从商品服务计算总价格
-            ResponseResult<ProductInfoVo> resp = productClient.getProductInfoById(cartItem.getProductId());
-            if(resp.getCode() != ResultCode.SUCCESS || resp.getData() == null) {
-                log.error("商品服务出错：{}", resp.getMsg());
-                throw new SystemException(resp.getMsg());
+            ProductInfoVo product = products.get(cartItem.getProductId());
+            if(product == null) {
+                log.error("商品服务出错：商品不存在，{}", cartItem.getProductId());
+                throw new SystemException("商品不存在");
             }
-            cost = cartItem.getQuantity() * resp.getData().getPrice();
+            cost = cartItem.getQuantity() * product.getPrice();
             // 获取OrderItem信息
             OrderItem orderItem = getOne(Wrappers.<OrderItem>lambdaQuery()
                     .eq(OrderItem::getOrderId, orderId)
@@ -11,10 +11,10 @@ import com.example.order.domain.dto.UpdateOrderDto;
 import com.example.api.domain.po.OrderResult;
 import com.example.api.domain.vo.order.AddressInfoVo;
 import com.example.api.domain.vo.order.OrderInfoVo;
-import com.example.common.config.rabbitmq.RetryableCorrelationData;
 import com.example.common.exception.BadRequestException;
 import com.example.common.exception.DatabaseException;
 import com.example.common.exception.NotFoundException;
+import com.example.common.mq.outbox.OutboxPublisher;
 import com.example.order.config.RabbitMQDLXConfig;
 import com.example.order.domain.po.Address;
 import com.example.order.domain.po.Order;
@@ -27,7 +27,6 @@ import io.seata.core.context.RootContext;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,7 +47,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements IOrderService {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxPublisher outboxPublisher;
     private final IAddressService iAddressService;
     private final IOrderItemService orderItemService;
     @Override
@@ -82,16 +81,15 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             orderItemService.updateOrderItemByOrderId(order.getOrderId(), placeOrderDto.getCartItems());
             orderResult.setOrderId(order.getOrderId());
             //设置订单ttl半个小时
-            RetryableCorrelationData data = new RetryableCorrelationData(
-                    orderResult.getOrderId(),
+            outboxPublisher.convertAndSend(
                     RabbitMQDLXConfig.ORDER_EXCHANGE,
                     RabbitMQDLXConfig.ORDER_ROUTING_KEY,
+                    orderResult.getOrderId(),
                     message -> {
                         message.getMessageProperties().setExpiration(String.valueOf(30 * 60 * 1000L));
                         return message;
                     }
             );
-            rabbitTemplate.convertAndSend(data.getExchange(), data.getRoutingKey(), data.getMessage(), data.getMessagePostProcessor(), data);
             return orderResult;
         } else {
             throw new DatabaseException("数据库异常");
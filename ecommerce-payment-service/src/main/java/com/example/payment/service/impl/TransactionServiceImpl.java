@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.api.batch.BatchLoader;
 import com.example.api.client.OrderClient;
 import com.example.api.client.ProductClient;
 import com.example.api.domain.dto.payment.ChargeDto;
@@ -15,11 +16,11 @@ import com.example.api.domain.vo.payment.TransactionInfoVo;
 import com.example.api.domain.vo.product.ProductInfoVo;
 import com.example.api.enums.OrderStatusEnum;
 import com.example.common.config.rabbitmq.RabbitQueueNamesConfig;
-import com.example.common.config.rabbitmq.RetryableCorrelationData;
 import com.example.common.domain.ResponseResult;
 import com.example.common.domain.ResultCode;
 import com.example.common.domain.message.*;
 import com.example.common.exception.*;
+import com.example.common.mq.outbox.OutboxPublisher;
 import com.example.common.util.UserContextUtil;
 import com.example.payment.config.RabbitMQTimeoutConfig;
 import com.example.payment.domain.po.Credit;
@@ -34,7 +35,6 @@ import io.seata.spring.annotation.GlobalTransactional;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -66,12 +66,14 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
     @Resource
     private RabbitQueueNamesConfig mqConfig;
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxPublisher outboxPublisher;
 
     private final CreditService creditService;
 
     private final ProductClient productClient;
 
+    private final BatchLoader<Long, ProductInfoVo> productInfoLoader;
+
     private final TransactionMapper transactionMapper;
 
     @Transactional
@@ -111,13 +113,16 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
                 throw new SystemException("订单服务状态异常："+orderResult.getMsg());
             } else if (orderResult.getData() == null) {
                 throw new NotFoundException("未找到指定的订单");
+            } else if (orderResult.isStale()) {
+                // 缓存的订单状态可能已经变化，不能据此创建交易
+                throw new SystemException("订单服务暂不可用，无法确认订单状态");
             } else if (!Objects.equals(orderResult.getData().getStatus(), OrderStatusEnum.WAIT_FOR_CONFIRM)) {
                 throw new BadRequestException("该订单不处于待确认的状态");
             }
 
-            // 生成预支付记录
+            // 生成预支付记录，直接使用已经查询到的订单信息计算金额
             String transId = UUID.randomUUID().toString();
-            Float amount = this.calculateTotalAmount(chargeDto.getOrderId());
+            Float amount = this.calculateTotalAmount(orderResult.getData());
             Transaction preTransaction = buildPreTransaction(credit, chargeDto, transId, amount);
             this.save(preTransaction);
 
@@ -146,6 +151,8 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
         Transaction transaction = validateTransaction(preTransactionId, TransactionStatusEnum.WAIT_FOR_CONFIRM);
         String transactionId = transaction.getTransactionId();
         List<Long> addProductIds = new ArrayList<>();
+        // 订单中的商品快照，扣减库存时查询一次，之后的成功/失败消息都复用它
+        List<CartItem> orderItems = new ArrayList<>();
         try {
             // 使用Redis分布式锁防止重复确认
             String lockKey = CANCEL_LOCK_KEY + transaction.getTransactionId();
@@ -163,7 +170,12 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
                 if (orderResult.getCode() != ResultCode.SUCCESS || orderResult.getData() == null) {
                     throw new SystemException(orderResult.getMsg());
                 }
-                orderResult.getData().getCartItems().forEach(cartItem -> {
+                if (orderResult.isStale()) {
+                    // 缓存的订单商品可能已经变化，不能据此扣除库存
+                    throw new SystemException("订单服务暂不可用，无法确认订单商品");
+                }
+                orderItems.addAll(orderResult.getData().getCartItems());
+                orderItems.forEach(cartItem -> {
                     DecProductDto dto = new DecProductDto();
                     dto.setProductId(cartItem.getProductId());
                     dto.setDecStock(cartItem.getQuantity());
@@ -177,9 +189,8 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
                 // 更新交易状态
                 updateTransactionStatus(transaction, TransactionStatusEnum.PAY_SUCCESS, null);
 
-                List<ProductQuantity> products = getProducts(transaction.getOrderId());
                 // 发送支付成功消息
-                sendPaymentSuccessMessage(transaction, products);
+                sendPaymentSuccessMessage(transaction, orderItems);
             } finally {
                 redisTemplate.delete(lockKey);
             }
@@ -187,7 +198,7 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
             log.error("支付确认失败: {}", e.getMessage());
             throw new SystemException(e.getMessage(), () -> {
                 // 处理失败的方法抛到全局事物外解决
-                handlePaymentFailure(transactionId, e.getMessage(), addProductIds);
+                handlePaymentFailure(transactionId, e.getMessage(), addProductIds, orderItems);
             });
         }
     }
@@ -263,14 +274,11 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
      */
     private void sendPaymentStartMessage(Transaction preTransaction) {
         PayStartMessage message = new PayStartMessage();
+        message.setVersion(PayMessageVersion.CURRENT);
         message.setOrderId(preTransaction.getOrderId());
-        RetryableCorrelationData data = new RetryableCorrelationData(message, mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getStart());
-        rabbitTemplate.convertAndSend(
-                data.getExchange(),
-                data.getRoutingKey(),
-                data.getMessage(),
-                data
-        );
+        message.setUserId(preTransaction.getUserId());
+        message.setAmount(preTransaction.getAmount());
+        outboxPublisher.convertAndSend(mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getStart(), message);
     }
 
     /**
@@ -279,97 +287,95 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
      */
     private void sendPaymentCancelMessage(Transaction transaction) {
         PayCancelMessage message = new PayCancelMessage();
+        message.setVersion(PayMessageVersion.CURRENT);
         message.setOrderId(transaction.getOrderId());
-        RetryableCorrelationData data = new RetryableCorrelationData(message, mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getCancel());
-        rabbitTemplate.convertAndSend(
-                data.getExchange(),
-                data.getRoutingKey(),
-                data.getMessage(),
-                data
-        );
+        message.setUserId(transaction.getUserId());
+        message.setAmount(transaction.getAmount());
+        outboxPublisher.convertAndSend(mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getCancel(), message);
     }
 
     /**
      * 发送支付失败消息
      * @param transaction 交易对象
-     * @param products 商品信息
+     * @param orderItems 订单中的商品
+     * @param addProductIds 需要恢复库存的商品ID
      */
-    private void sendPaymentFailedMessage(Transaction transaction, List<ProductQuantity> products, List<Long> addProductIds) {
+    private void sendPaymentFailedMessage(Transaction transaction, List<CartItem> orderItems, List<Long> addProductIds) {
         PayFailMessage message = new PayFailMessage();
+        message.setVersion(PayMessageVersion.CURRENT);
         message.setOrderId(transaction.getOrderId());
-        message.setProducts(products);
+        message.setUserId(transaction.getUserId());
+        message.setAmount(transaction.getAmount());
+        message.setCartItemIds(toCartItemIds(orderItems));
+        message.setProducts(toProducts(orderItems));
         message.setAddProductIds(addProductIds);
-        RetryableCorrelationData data = new RetryableCorrelationData(message, mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getFail());
-        rabbitTemplate.convertAndSend(
-                data.getExchange(),
-                data.getRoutingKey(),
-                data.getMessage(),
-                data
-        );
+        outboxPublisher.convertAndSend(mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getFail(), message);
     }
 
     /**
      * 发送支付成功消息
      * @param transaction 交易ID
-     * @param products 商品信息
+     * @param orderItems 订单中的商品
      */
-    private void sendPaymentSuccessMessage(Transaction transaction, List<ProductQuantity> products) {
+    private void sendPaymentSuccessMessage(Transaction transaction, List<CartItem> orderItems) {
         PaySuccessMessage message = new PaySuccessMessage();
+        message.setVersion(PayMessageVersion.CURRENT);
         message.setOrderId(transaction.getOrderId());
-        message.setProducts(products);
-        RetryableCorrelationData data = new RetryableCorrelationData(message, mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getSuccess());
-        rabbitTemplate.convertAndSend(
-                data.getExchange(),
-                data.getRoutingKey(),
-                data.getMessage(),
-                data
-        );
+        message.setUserId(transaction.getUserId());
+        message.setAmount(transaction.getAmount());
+        message.setCartItemIds(toCartItemIds(orderItems));
+        message.setProducts(toProducts(orderItems));
+        outboxPublisher.convertAndSend(mqConfig.getExchangeName(), mqConfig.getQueues().getPay().getSuccess(), message);
     }
 
     /**
-     * 获取订单商品信息
+     * 获取订单商品信息，仅在支付确认前就已失败、还没有拿到订单快照时使用
      * @param orderId 订单ID
-     * @return 商品信息
+     * @return 订单中的商品，获取失败时返回空列表
      */
-    private List<ProductQuantity> getProducts(String orderId) {
-        ResponseResult<OrderInfoVo> orderResult = orderClient.getOrderById(orderId);
-        if (orderResult.getCode() != ResultCode.SUCCESS) {
-            return null;
-        }
-
+    private List<CartItem> getOrderItems(String orderId) {
         try {
-            List<CartItem> cartItems = orderResult.getData().getCartItems();
-            return cartItems.stream()
-                    .map(item -> new ProductQuantity(item.getProductId(), item.getQuantity()))
-                    .collect(Collectors.toList());
+            ResponseResult<OrderInfoVo> orderResult = orderClient.getOrderById(orderId);
+            if (orderResult.getCode() != ResultCode.SUCCESS || orderResult.getData() == null) {
+                return Collections.emptyList();
+            }
+            return orderResult.getData().getCartItems();
         } catch (Exception e) {
             log.error("获取商品信息：: {}", e.getMessage());
-            return null;
+            return Collections.emptyList();
         }
     }
 
+    private List<ProductQuantity> toProducts(List<CartItem> orderItems) {
+        return orderItems.stream()
+                .map(item -> new ProductQuantity(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> toCartItemIds(List<CartItem> orderItems) {
+        return orderItems.stream()
+                .map(CartItem::getCartItemId)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 计算订单所需要的花费
-     * @param orderId 订单ID
+     * @param order 订单信息
      * @throws SystemException 系统异常
      * @return 所需金额
      */
-    private Float calculateTotalAmount(String orderId) throws SystemException {
-        // 调用用户信息，查询
-        ResponseResult<OrderInfoVo> orderResult = orderClient.getOrderById(orderId);
-        if(orderResult.getCode() != ResultCode.SUCCESS) {
-            log.error("order-service: {}", orderResult.getMsg());
-            throw new SystemException("order-service : "+orderResult.getMsg());
-        }
+    private Float calculateTotalAmount(OrderInfoVo order) throws SystemException {
         float totalAmount = 0f;
-        for(CartItem cartItem : orderResult.getData().getCartItems()) {
-            Long productId = cartItem.getProductId();
-            ResponseResult<ProductInfoVo> productResult = productClient.getProductInfoById(productId);
-            if(productResult.getCode() != ResultCode.SUCCESS) {
-                log.error("product-service: {}", productResult.getMsg());
-                throw new SystemException("product-service : "+productResult.getMsg());
+        // 一次批量查询订单中的所有商品
+        Map<Long, ProductInfoVo> products = productInfoLoader.loadMany(
+                order.getCartItems().stream().map(CartItem::getProductId).toList());
+        for(CartItem cartItem : order.getCartItems()) {
+            ProductInfoVo product = products.get(cartItem.getProductId());
+            if(product == null) {
+                log.error("product-service: 商品不存在，{}", cartItem.getProductId());
+                throw new SystemException("product-service : 商品不存在");
             }
-            Float price = productResult.getData().getPrice();
+            Float price = product.getPrice();
             totalAmount += price * cartItem.getQuantity();
         }
         return totalAmount;
@@ -401,17 +407,21 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
      * 处理支付失败
      * @param transactionId 交易ID
      * @param reason 失败原因
+     * @param addProductIds 已经扣减库存、需要恢复的商品ID
+     * @param orderItems 已经查询到的订单商品，为空时重新查询
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    protected void handlePaymentFailure(String transactionId, String reason, List<Long> addProductIds) {
+    protected void handlePaymentFailure(String transactionId, String reason, List<Long> addProductIds, List<CartItem> orderItems) {
         Transaction transaction = this.getById(transactionId);
         if (transaction != null) {
             if(reason.length() > 200) {
                 reason = reason.substring(0, 200);
             }
             updateTransactionStatus(transaction, TransactionStatusEnum.PAY_FAIL, reason);
-            List<ProductQuantity> products = getProducts(transaction.getOrderId());
-            sendPaymentFailedMessage(transaction, products, addProductIds);
+            if (orderItems.isEmpty()) {
+                orderItems = getOrderItems(transaction.getOrderId());
+            }
+            sendPaymentFailedMessage(transaction, orderItems, addProductIds);
         }
     }
 
@@ -438,15 +448,14 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
         long cancelTime = System.currentTimeMillis() + minutes * 60 * 1000L;
         scheduledHashOperations.put(SCHEDULED_KEY, transactionId, cancelTime);
         // 发送MQ消息到延迟队列中
-        RetryableCorrelationData data = new RetryableCorrelationData(
-                transactionId,
+        outboxPublisher.convertAndSend(
                 RabbitMQTimeoutConfig.EXCHANGE_NAME,
                 RabbitMQTimeoutConfig.ROUTING_KEY,
+                transactionId,
                 message -> {
                     message.getMessageProperties().setExpiration(String.valueOf(minutes * 60 * 1000L));
                     return message;
                 });
-        rabbitTemplate.convertAndSend(data.getExchange(), data.getRoutingKey(), data.getMessage(), data.getMessagePostProcessor(), data);
         log.info("已设置交易{}在{}分钟后自动取消", transactionId, minutes);
     }
 
@@ -465,7 +474,7 @@ public class TransactionServiceImpl extends ServiceImpl<TransactionMapper, Trans
                 continue;
             }
             ResponseResult<OrderInfoVo> resp = orderClient.getOrderById(tran.getOrderId());
-            if (resp.getCode() != ResultCode.SUCCESS || resp.getData() == null) {
+            if (resp.getCode() != ResultCode.SUCCESS || resp.getData() == null || resp.isStale()) {
                 // 未知订单状态，跳过
                 log.error("order-service: {}", resp.getMsg());
                 continue;
@@ -1,6 +1,7 @@
 package com.example.product.controller;
 
 import com.example.api.domain.dto.product.DecProductDto;
+import com.example.api.domain.vo.product.ProductInfoVo;
 import com.example.common.domain.ResponseResult;
 import com.example.common.util.UserContextUtil;
 import com.example.product.service.IProductService;
@@ -8,11 +9,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @AllArgsConstructor
 @RequestMapping("/api/v1/inner/products")
@@ -27,4 +31,10 @@ public class ProductInnerController {
         iProductService.decProductStock(decProductDto);
         return ResponseResult.success();
     }
+
+    @PostMapping("/batch")
+    @Operation(summary = "根据商品id批量获取商品信息")
+    public ResponseResult<List<ProductInfoVo>> getProductInfoByIds(@RequestBody List<Long> productIds) {
+        return ResponseResult.success(iProductService.getProductInfoByIds(productIds));
+    }
 }
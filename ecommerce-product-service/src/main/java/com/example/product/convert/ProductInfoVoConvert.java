@@ -7,6 +7,9 @@ import com.example.product.service.IProCateRelService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 @RequiredArgsConstructor
 public class ProductInfoVoConvert {
@@ -36,4 +39,30 @@ public class ProductInfoVoConvert {
                 .updateTime(product.getUpdateTime())
                 .build();
     }
+
+    /**
+     * 批量将 Product 对象转换为 ProductInfoVo 对象，分类名称一次性查询
+     *
+     * @param products 商品实体列表
+     * @return ProductInfoVo列表
+     */
+    public List<ProductInfoVo> convertToProductInfoVos(List<Product> products) {
+        Map<Long, List<String>> categoryNames = iProCateRelService.getProductsCategoryNames(
+                products.stream().map(Product::getId).toList());
+        return products.stream()
+                .map(product -> ProductInfoVo.builder()
+                        .id(product.getId())
+                        .name(product.getName())
+                        .description(product.getDescription())
+                        .price(product.getPrice())
+                        .sold(product.getSold())
+                        .stock(product.getStock())
+                        .merchantName(product.getMerchantName())
+                        .categories(categoryNames.getOrDefault(product.getId(), List.of()))
+                        .status(product.getStatus())
+                        .createTime(product.getCreateTime())
+                        .updateTime(product.getUpdateTime())
+                        .build())
+                .toList();
+    }
 }
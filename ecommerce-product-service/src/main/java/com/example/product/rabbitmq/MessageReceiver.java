@@ -2,12 +2,15 @@ package com.example.product.rabbitmq;
 
 import com.example.common.domain.message.PayFailMessage;
 import com.example.common.domain.message.PaySuccessMessage;
+import com.example.common.mq.dedupe.MessageDeduplicator;
 import com.example.product.domain.dto.AddProductDto;
 import com.example.product.domain.dto.AddProductSoldDto;
 import com.example.product.service.IProductService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -17,26 +20,34 @@ public class MessageReceiver {
     @Resource
     private IProductService productService;
 
+    @Resource
+    private MessageDeduplicator messageDeduplicator;
+
     @RabbitListener(queues = "pay.success.product")
-    public void handleMessage(PaySuccessMessage message) {
+    public void handleMessage(PaySuccessMessage message,
+                              @Header(value = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
         log.info("收到支付成功的消息，订单号：{}", message.getOrderId());
-        // 增加商品的销量
-        message.getProducts().forEach(product ->
-            productService.addProductSales(new AddProductSoldDto(product.getProductId(), product.getQuantity()))
+        // 增加商品的销量，销量不是幂等的，重投的消息必须跳过；所有商品在一个事务中更新，失败重试时不会重复增加
+        messageDeduplicator.execute("pay.success.product", messageId, () ->
+            productService.addProductsSales(message.getProducts().stream()
+                    .map(product -> new AddProductSoldDto(product.getProductId(), product.getQuantity()))
+                    .toList())
         );
     }
 
     @RabbitListener(queues = "pay.fail.product")
-    public void handleMessage(PayFailMessage message) {
+    public void handleMessage(PayFailMessage message,
+                              @Header(value = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
         log.info("收到支付失败的消息，订单号：{}", message.getOrderId());
         if(message.getAddProductIds() == null || message.getAddProductIds().isEmpty()) {
             return;
         }
-        // 恢复库存
-        message.getProducts().forEach(productQuantity -> {
-            if(message.getAddProductIds().contains(productQuantity.getProductId())) {
-                productService.addProductStock(new AddProductDto(productQuantity.getProductId(), productQuantity.getQuantity()));
-            }
-        });
+        // 恢复库存，所有商品在一个事务中更新
+        messageDeduplicator.execute("pay.fail.product", messageId, () ->
+            productService.addProductsStock(message.getProducts().stream()
+                    .filter(productQuantity -> message.getAddProductIds().contains(productQuantity.getProductId()))
+                    .map(productQuantity -> new AddProductDto(productQuantity.getProductId(), productQuantity.getQuantity()))
+                    .toList())
+        );
     }
 }
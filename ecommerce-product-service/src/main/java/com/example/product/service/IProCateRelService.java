@@ -3,7 +3,9 @@ package com.example.product.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.example.product.domain.po.ProCateRel;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface IProCateRelService extends IService<ProCateRel> {
@@ -22,6 +24,13 @@ public interface IProCateRelService extends IService<ProCateRel> {
      */
     List<String> getProductCategoryNames(Long productId);
 
+    /**
+     * 批量获取多个商品所属的分类名称
+     * @param productIds 商品ID列表
+     * @return 商品ID -> 分类名称列表
+     */
+    Map<Long, List<String>> getProductsCategoryNames(Collection<Long> productIds);
+
     /**
      * 更新商品与分类的关系
      * @param productId 商品ID
@@ -41,6 +41,14 @@ public interface IProductService extends IService<Product> {
      */
     ProductInfoVo getProductInfoById(Long productId) throws UserException, SystemException;
 
+    /**
+     * 根据商品ID批量查询商品信息，不存在的商品不会出现在结果中
+     * @param productIds 商品ID列表
+     * @throws UserException 用户异常
+     * @return 商品信息vo列表
+     */
+    List<ProductInfoVo> getProductInfoByIds(List<Long> productIds) throws UserException;
+
     /**
      * 指定某种类别查询商品信息
      * @param listProductsDto dto
@@ -83,6 +91,22 @@ public interface IProductService extends IService<Product> {
      */
     void addProductSales(AddProductSoldDto addProductSoldDto) throws UserException, SystemException;
 
+    /**
+     * 在一个事务中增加多个商品的销量，任意一个失败时全部回滚
+     * @param addProductSoldDtos dto
+     * @throws UserException 用户异常
+     * @throws SystemException 系统异常
+     */
+    void addProductsSales(List<AddProductSoldDto> addProductSoldDtos) throws UserException, SystemException;
+
+    /**
+     * 在一个事务中增加多个商品的库存，任意一个失败时全部回滚
+     * @param addProductDtos dto
+     * @throws UserException 用户异常
+     * @throws SystemException 系统异常
+     */
+    void addProductsStock(List<AddProductDto> addProductDtos) throws UserException, SystemException;
+
     /**
      * 更新商品信息
      * @param updateProductDto dto
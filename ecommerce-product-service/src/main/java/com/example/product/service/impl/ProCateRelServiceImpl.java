@@ -13,7 +13,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -60,6 +64,36 @@ public class ProCateRelServiceImpl extends ServiceImpl<ProCateRelMapper, ProCate
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Map<Long, List<String>> getProductsCategoryNames(Collection<Long> productIds) {
+        Map<Long, List<String>> result = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return result;
+        }
+        // 一次查询所有商品的分类关系
+        List<ProCateRel> proCateRels = this.list(
+                Wrappers.<ProCateRel>lambdaQuery().in(ProCateRel::getProductId, productIds)
+        );
+        if (proCateRels.isEmpty()) {
+            return result;
+        }
+
+        // 一次查询所有用到的分类
+        Map<Long, String> categoryNames = iCategoryService.listByIds(proCateRels.stream()
+                        .map(ProCateRel::getCategoryId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Category::getId, Category::getCategoryName));
+
+        proCateRels.forEach(rel -> {
+            String name = categoryNames.get(rel.getCategoryId());
+            if (name != null) {
+                result.computeIfAbsent(rel.getProductId(), k -> new ArrayList<>()).add(name);
+            }
+        });
+        return result;
+    }
+
     @Override
     @Transactional
     public void updateProductCategories(Long productId, Set<Long> newCategoryIds) {
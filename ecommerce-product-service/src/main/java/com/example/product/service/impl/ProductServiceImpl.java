@@ -3,6 +3,7 @@ package com.example.product.service.impl;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.api.client.ProductClient;
 import com.example.api.domain.dto.product.*;
 import com.example.api.enums.ProductStatusEnum;
 import com.example.common.exception.*;
@@ -49,6 +50,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> implements IProductService {
 
+    // 批量查询商品信息的最大数量
+    private static final int MAX_BATCH_QUERY_SIZE = ProductClient.MAX_BATCH_QUERY_SIZE;
+
     @Resource
     private ProductMapper productMapper;
 
@@ -165,6 +169,18 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         }
     }
 
+    @Override
+    public List<ProductInfoVo> getProductInfoByIds(List<Long> productIds) throws UserException {
+        if (productIds == null || productIds.isEmpty()) {
+            return List.of();
+        }
+        if (productIds.size() > MAX_BATCH_QUERY_SIZE) {
+            throw new BadRequestException("单次最多查询" + MAX_BATCH_QUERY_SIZE + "个商品");
+        }
+        List<Product> products = this.listByIds(new HashSet<>(productIds));
+        return productInfoVoConvert.convertToProductInfoVos(products);
+    }
+
     @Override
     public IPage<ProductInfoVo> getProductInfoByCategory(ListProductsDto listProductsDto) throws UserException, SystemException {
         SearchRequest searchRequest = new SearchRequest(ProductsIndex.name);
@@ -338,6 +354,19 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     }
 
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void addProductsSales(List<AddProductSoldDto> addProductSoldDtos) throws UserException, SystemException {
+        addProductSoldDtos.forEach(this::addProductSales);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void addProductsStock(List<AddProductDto> addProductDtos) throws UserException, SystemException {
+        addProductDtos.forEach(this::addProductStock);
+    }
+
+
     // ================================ 数据同步 ================================
     /**
      * 更新商品信息（双写MySQL和ES）
@@ -0,0 +1,235 @@
+package com.example.user.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ *     已注册邮箱的布隆过滤器，保存在Redis的位图中，所有用户服务实例共享
+ * </p>
+ * <ul>
+ *     <li>mightContain返回false时该邮箱一定没有注册过，注册查重不需要查询数据库；登录不使用过滤器</li>
+ *     <li>每个邮箱对应k个位，k次GETBIT/SETBIT在一次流水线中完成，查询时ready标记也在同一流水线中检查</li>
+ *     <li>ready标记不存在时一律返回true，退回到查询数据库，并在后台用全部已注册邮箱重建位图</li>
+ *     <li>登记失败时删除ready标记，所有实例随即退回到查询数据库，直到位图重建完成</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class EmailBloomFilter {
+
+    private static final String BITMAP_KEY = "user:email-bloom";
+    private static final String READY_KEY = "user:email-bloom:ready";
+    private static final String BUILDING_KEY = "user:email-bloom:building";
+
+    /**
+     * 两次重建检查之间的最小间隔
+     */
+    private static final long REBUILD_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final byte[] bitmapKey = BITMAP_KEY.getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] readyKey = READY_KEY.getBytes(StandardCharsets.UTF_8);
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final ScheduledExecutorService rebuilder;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    // 登记失败后ready标记还没有删除成功
+    private volatile boolean invalidatePending;
+
+    private volatile long nextRebuildMillis;
+
+    private volatile Consumer<Consumer<List<String>>> allEmails;
+
+    public EmailBloomFilter(StringRedisTemplate redisTemplate, UserCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        long n = Math.max(1, properties.getBloomExpectedInsertions());
+        double p = properties.getBloomFpp();
+        // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+        this.bits = Math.max(64, (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2))));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-bloom-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 设置重建位图的数据来源，并在后台检查位图是否需要重建
+     * @param allEmails 按批次提供所有已注册邮箱
+     */
+    public void start(Consumer<Consumer<List<String>>> allEmails) {
+        this.allEmails = allEmails;
+        requestRebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * @return false表示该邮箱一定没有注册过
+     */
+    public boolean mightContain(String email) {
+        long[] offsets = offsets(email);
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(readyKey);
+                for (long offset : offsets) {
+                    connection.stringCommands().getBit(bitmapKey, offset);
+                }
+                return null;
+            });
+            if (!Boolean.TRUE.equals(results.get(0))) {
+                requestRebuild();
+                return true;
+            }
+            for (Object result : results.subList(1, results.size())) {
+                if (!Boolean.TRUE.equals(result)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("查询邮箱布隆过滤器失败：{}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 登记一个已注册的邮箱
+     */
+    public void add(String email) {
+        long[] offsets = offsets(email);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                setBits(connection, offsets);
+                return null;
+            });
+        } catch (Exception e) {
+            // 布隆过滤器漏记会把已注册的邮箱判断为未注册，标记为未建好，等待重建
+            log.error("登记邮箱布隆过滤器失败：{}", e.getMessage());
+            invalidatePending = true;
+            requestRebuild();
+        }
+    }
+
+    /**
+     * 在后台检查并重建位图，同一时间只有一个任务，两次检查至少间隔REBUILD_INTERVAL_MILLIS
+     */
+    private void requestRebuild() {
+        if (allEmails == null || (!invalidatePending && System.currentTimeMillis() < nextRebuildMillis)) {
+            return;
+        }
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            if (invalidatePending) {
+                invalidatePending = false;
+                try {
+                    redisTemplate.delete(READY_KEY);
+                } catch (Exception e) {
+                    invalidatePending = true;
+                    throw e;
+                }
+            }
+            rebuildIfAbsent(allEmails);
+        } catch (Exception e) {
+            log.error("重建邮箱布隆过滤器失败：{}", e.getMessage());
+        } finally {
+            nextRebuildMillis = System.currentTimeMillis() + REBUILD_INTERVAL_MILLIS;
+            rebuildScheduled.set(false);
+        }
+        if (invalidatePending) {
+            // ready标记没有删除成功，或重建期间又有登记失败，稍后重试
+            if (rebuildScheduled.compareAndSet(false, true)) {
+                rebuilder.schedule(this::rebuild, REBUILD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 位图不存在时用全部已注册邮箱重建，只有一个实例会执行
+     */
+    private void rebuildIfAbsent(Consumer<Consumer<List<String>>> allEmails) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY))) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(BUILDING_KEY, "1", Duration.ofMinutes(10)))) {
+            return;
+        }
+        try {
+            long[] count = {0};
+            allEmails.accept(batch -> {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (String email : batch) {
+                        setBits(connection, offsets(email));
+                    }
+                    return null;
+                });
+                count[0] += batch.size();
+            });
+            redisTemplate.opsForValue().set(READY_KEY, "1");
+            log.info("邮箱布隆过滤器已重建，共{}个邮箱", count[0]);
+        } finally {
+            redisTemplate.delete(BUILDING_KEY);
+        }
+    }
+
+    private void setBits(RedisConnection connection, long[] offsets) {
+        for (long offset : offsets) {
+            connection.stringCommands().setBit(bitmapKey, offset, true);
+        }
+    }
+
+    /**
+     * 双重哈希：取邮箱MD5的前后8字节作为h1、h2，第i个位置为 h1 + i * h2
+     */
+    private long[] offsets(String email) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5")
+                    .digest(email.trim().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long h1 = buffer.getLong();
+        long h2 = buffer.getLong();
+        long[] offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.user.cache;
+
+import com.example.user.domain.po.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *     用户查询缓存，按邮箱缓存可用的用户（登陆、注册查重），按用户ID缓存用户信息
+ * </p>
+ * 修改用户的操作在更新数据库后调用evict删除两个键；Redis不可用时直接查询数据库。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCache {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final UserCacheProperties properties;
+
+    private String emailToKey(String email) {
+        return "user:email:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String userIdToKey(Long userId) {
+        return "user:id:" + userId;
+    }
+
+    /**
+     * 按邮箱查询可用的用户
+     * @param email 用户邮箱
+     * @param loader 缓存未命中时查询数据库，返回null时不缓存
+     */
+    public User getByEmail(String email, Supplier<User> loader) {
+        return get(emailToKey(email), loader);
+    }
+
+    /**
+     * 按用户ID查询用户
+     * @param userId 用户ID
+     * @param loader 缓存未命中时查询数据库，返回null时不缓存
+     */
+    public User getById(Long userId, Supplier<User> loader) {
+        return get(userIdToKey(userId), loader);
+    }
+
+    /**
+     * 删除某用户的缓存
+     * @param user 修改前的用户对象
+     */
+    public void evict(User user) {
+        if (user == null) {
+            return;
+        }
+        try {
+            redisTemplate.delete(user.getEmail() == null
+                    ? List.of(userIdToKey(user.getUserId()))
+                    : List.of(userIdToKey(user.getUserId()), emailToKey(user.getEmail())));
+        } catch (Exception e) {
+            log.error("删除用户缓存失败：{}，{}", user.getUserId(), e.getMessage());
+        }
+    }
+
+    private User get(String key, Supplier<User> loader) {
+        try {
+            if (redisTemplate.opsForValue().get(key) instanceof User user) {
+                return user;
+            }
+        } catch (Exception e) {
+            log.warn("读取用户缓存失败：{}，{}", key, e.getMessage());
+            return loader.get();
+        }
+        User user = loader.get();
+        if (user != null) {
+            try {
+                redisTemplate.opsForValue().set(key, user, properties.getTtlMinutes(), TimeUnit.MINUTES);
+            } catch (Exception e) {
+                log.warn("写入用户缓存失败：{}，{}", key, e.getMessage());
+            }
+        }
+        return user;
+    }
+}
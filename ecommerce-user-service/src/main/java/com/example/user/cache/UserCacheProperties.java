@@ -0,0 +1,28 @@
+package com.example.user.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ *     用户查询缓存和注册邮箱布隆过滤器的配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.user-service.cache")
+@Component
+public class UserCacheProperties {
+    /**
+     * 用户缓存的过期时间（分钟）
+     */
+    private Integer ttlMinutes = 30;
+    /**
+     * 布隆过滤器预计容纳的邮箱数
+     */
+    private Long bloomExpectedInsertions = 1_000_000L;
+    /**
+     * 布隆过滤器的误判率
+     */
+    private Double bloomFpp = 0.01;
+}
@@ -73,6 +73,8 @@ public class LoginController {
         // 记录返回结果
         LoginVo loginVo = new LoginVo();
         loginVo.setUserId(userClaims.getUserId());
+        // 新的版本号让之前签发的Token全部失效
+        userClaims.setEpoch(redisUtil.nextEpoch(userClaims.getUserId()));
         // 生成AccessToken和RefreshToken
         userClaims.setIsRefreshToken(false);
         String accessToken = jwtUtil.generateAccessToken(userClaims);
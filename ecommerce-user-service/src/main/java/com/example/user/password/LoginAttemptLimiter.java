@@ -0,0 +1,74 @@
+package com.example.user.password;
+
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.UserException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *     按邮箱限制登陆失败次数，超过次数后在计算BCrypt之前直接拒绝，防止暴力破解占满加密线程池
+ * </p>
+ * 失败次数记录在Redis中，所有用户服务实例共享；Redis不可用时不做限制。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAttemptLimiter {
+
+    private final StringRedisTemplate redisTemplate;
+    private final PasswordProperties properties;
+
+    private String emailToKey(String email) {
+        return "login-failed:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 登陆前检查失败次数
+     * @param email 用户邮箱
+     * @throws UserException 失败次数过多
+     */
+    public void check(String email) throws UserException {
+        String failed;
+        try {
+            failed = redisTemplate.opsForValue().get(emailToKey(email));
+        } catch (Exception e) {
+            log.warn("读取登陆失败次数失败：{}", e.getMessage());
+            return;
+        }
+        if (failed != null && Integer.parseInt(failed) >= properties.getMaxFailedAttempts()) {
+            throw new UserException(ResultCode.TOO_MANY_REQUESTS, "登陆失败次数过多，请稍后再试");
+        }
+    }
+
+    /**
+     * 记录一次登陆失败，第一次失败时开始计时
+     */
+    public void onFailure(String email) {
+        String key = emailToKey(email);
+        try {
+            Long failed = redisTemplate.opsForValue().increment(key);
+            if (failed != null && failed == 1) {
+                redisTemplate.expire(key, properties.getAttemptWindowSeconds(), TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("记录登陆失败次数失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 登陆成功后清除失败次数
+     */
+    public void onSuccess(String email) {
+        try {
+            redisTemplate.delete(emailToKey(email));
+        } catch (Exception e) {
+            log.warn("清除登陆失败次数失败：{}", e.getMessage());
+        }
+    }
+}
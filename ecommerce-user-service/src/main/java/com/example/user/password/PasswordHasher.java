@@ -0,0 +1,125 @@
+package com.example.user.password;
+
+import com.example.common.domain.ResultCode;
+import com.example.common.exception.SystemException;
+import com.example.common.exception.UserException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ *     在独立的线程池上执行BCrypt加密和校验
+ * </p>
+ * 每次BCrypt计算要占用几十毫秒CPU，放在Tomcat请求线程上执行时，登陆高峰会拖慢所有接口。
+ * 线程数与CPU核数相当，排队的任务数有上限，超过时直接返回503，不再继续占用CPU。
+ */
+@Component
+@Slf4j
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordProperties properties;
+
+    private final BCryptPasswordEncoder encoder;
+
+    private final ThreadPoolExecutor executor;
+
+    public PasswordHasher(PasswordProperties properties) {
+        this.properties = properties;
+        this.encoder = new BCryptPasswordEncoder(properties.getBcryptCost());
+        int threads = properties.getThreads() > 0 ? properties.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 对密码进行BCrypt加密
+     * @param rawPassword 原始密码
+     * @return 加密后的密码
+     */
+    public String hash(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 检验密码是否配对
+     * @param rawPassword 待检验的密码
+     * @param encodedPassword 原始密码
+     * @return 检验结果
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 密文的cost与当前配置不一致时需要重新加密
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != properties.getBcryptCost();
+    }
+
+    /**
+     * 在后台按当前cost重新加密，线程池繁忙时放弃，等下次登陆再重试
+     * @param onHashed 加密完成后的回调，在加密线程上执行
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(encoder.encode(rawPassword));
+                } catch (Exception e) {
+                    log.warn("密码重新加密失败：{}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("密码加密线程池繁忙，跳过重新加密");
+        }
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new UserException(ResultCode.SERVICE_UNAVAILABLE, "当前登陆人数过多，请稍后再试");
+        }
+        try {
+            return future.get(properties.getWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new UserException(ResultCode.SERVICE_UNAVAILABLE, "当前登陆人数过多，请稍后再试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException(e);
+        } catch (ExecutionException e) {
+            throw new SystemException(e.getCause());
+        }
+    }
+}
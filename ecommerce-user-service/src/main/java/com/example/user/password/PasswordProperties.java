@@ -0,0 +1,40 @@
+package com.example.user.password;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ *     密码加密和登陆尝试次数的配置
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = "ecommerce.user-service.password")
+@Component
+public class PasswordProperties {
+    /**
+     * BCrypt的cost，修改后旧密码在用户下次登陆成功时按新cost重新加密
+     */
+    private Integer bcryptCost = 10;
+    /**
+     * 加密线程数，不大于0时使用CPU核数
+     */
+    private Integer threads = 0;
+    /**
+     * 等待加密的任务数上限，超过时直接拒绝
+     */
+    private Integer queueCapacity = 64;
+    /**
+     * 请求线程等待加密结果的最长时间（毫秒）
+     */
+    private Long waitMillis = 2000L;
+    /**
+     * 同一个邮箱在窗口期内允许的登陆失败次数
+     */
+    private Integer maxFailedAttempts = 5;
+    /**
+     * 登陆失败次数的统计窗口（秒）
+     */
+    private Integer attemptWindowSeconds = 300;
+}
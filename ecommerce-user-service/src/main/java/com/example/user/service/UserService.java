@@ -15,7 +15,7 @@ public interface UserService extends IService<User> {
 
     /**
      * 根据用户邮箱去找是否存在可用的账号，并返回用户ID
-     * 如果不存在则返回null
+     * 如果不存在则返回null，用于注册查重，邮箱布隆过滤器判断未注册时不查询数据库
      * @param email 用户邮箱
      * @return 用户可用的ID
      * @author vlsmb
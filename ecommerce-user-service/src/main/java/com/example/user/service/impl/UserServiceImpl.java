@@ -3,6 +3,8 @@ package com.example.user.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.user.cache.EmailBloomFilter;
+import com.example.user.cache.UserCache;
 import com.example.user.domain.vo.UserInfoVo;
 import com.example.auth.enums.UserPower;
 import com.example.common.exception.DatabaseException;
@@ -17,12 +19,18 @@ import com.example.user.domain.po.User;
 import com.example.user.enums.UserStatusEnum;
 import com.example.user.mapper.UserMapper;
 import com.example.user.service.UserService;
-import com.example.auth.util.BCryptUtil;
+import com.example.user.password.LoginAttemptLimiter;
+import com.example.user.password.PasswordHasher;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <p>
@@ -32,10 +40,42 @@ import java.time.LocalDateTime;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
     private final UserMapper userMapper;
-    private final BCryptUtil bCryptUtil;
+    private final PasswordHasher passwordHasher;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final UserCache userCache;
+    private final EmailBloomFilter emailBloomFilter;
+
+    /**
+     * 启动后由邮箱布隆过滤器在后台检查位图，不存在时从数据库重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initEmailBloomFilter() {
+        emailBloomFilter.start(this::loadAllEmails);
+    }
+
+    /**
+     * 按用户ID分批读取所有邮箱
+     */
+    private void loadAllEmails(Consumer<List<String>> batchConsumer) {
+        Long lastUserId = null;
+        while (true) {
+            List<User> users = this.lambdaQuery()
+                    .select(User::getUserId, User::getEmail)
+                    .gt(lastUserId != null, User::getUserId, lastUserId)
+                    .orderByAsc(User::getUserId)
+                    .last("limit 1000")
+                    .list();
+            if (users.isEmpty()) {
+                return;
+            }
+            batchConsumer.accept(users.stream().map(User::getEmail).toList());
+            lastUserId = users.get(users.size() - 1).getUserId();
+        }
+    }
 
     /**
      * 寻找是否存在可用的用户对象
@@ -43,14 +83,33 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      * @return 用户对象
      */
     private User findEnabledUser(String email) {
-        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(User::getEmail, email);
-        queryWrapper.eq(User::getStatus, UserStatusEnum.NORMAL);
-        return userMapper.selectOne(queryWrapper);
+        return userCache.getByEmail(email, () -> {
+            LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
+            queryWrapper.eq(User::getEmail, email);
+            queryWrapper.eq(User::getStatus, UserStatusEnum.NORMAL);
+            return userMapper.selectOne(queryWrapper);
+        });
+    }
+
+    /**
+     * 查询可用的用户，不存在时抛出NotFoundException
+     */
+    private User getEnabledUser(Long userId, String message) throws NotFoundException {
+        User user = this.getOne(Wrappers.<User>lambdaQuery()
+                .eq(User::getUserId, userId)
+                .eq(User::getStatus, UserStatusEnum.NORMAL));
+        if (user == null) {
+            throw new NotFoundException(message);
+        }
+        return user;
     }
 
     @Override
     public Long findEnabledUserId(String email) {
+        // 注册查重：布隆过滤器判断未注册过的邮箱不需要查询缓存和数据库
+        if (!emailBloomFilter.mightContain(email)) {
+            return null;
+        }
         User user = findEnabledUser(email);
         if (user == null) {
             return null;
@@ -61,7 +120,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public Long register(RegisterDto registerDto) throws DatabaseException {
         String email = registerDto.getEmail();
-        String password = bCryptUtil.hashPassword(registerDto.getPassword().trim());
+        String password = passwordHasher.hash(registerDto.getPassword().trim());
         User user = new User();
         user.setEmail(email);
         user.setPassword(password);
@@ -71,26 +130,53 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if(!this.save(user)) {
             throw new DatabaseException("用户信息保存失败");
         }
+        emailBloomFilter.add(email);
         return user.getUserId();
     }
 
     @Override
     public User checkPassword(LoginDto loginDto) {
+        // 失败次数过多时直接拒绝，不再计算BCrypt
+        loginAttemptLimiter.check(loginDto.getEmail());
         User user = findEnabledUser(loginDto.getEmail());
         if(user == null) {
             // 用户不存在
+            loginAttemptLimiter.onFailure(loginDto.getEmail());
             return null;
         }
-        if(bCryptUtil.matches(loginDto.getPassword().trim(), user.getPassword())) {
+        String rawPassword = loginDto.getPassword().trim();
+        if(passwordHasher.matches(rawPassword, user.getPassword())) {
+            loginAttemptLimiter.onSuccess(loginDto.getEmail());
+            if(passwordHasher.needsRehash(user.getPassword())) {
+                rehashPassword(user, rawPassword);
+            }
             return user;
         } else {
+            loginAttemptLimiter.onFailure(loginDto.getEmail());
             return null;
         }
     }
 
+    /**
+     * BCrypt的cost修改后，在后台按新的cost重新加密用户密码
+     * @param user 用户对象，期间密码被修改时不覆盖
+     * @param rawPassword 原始密码
+     */
+    private void rehashPassword(User user, String rawPassword) {
+        passwordHasher.rehashAsync(rawPassword, newPassword -> {
+            if (this.lambdaUpdate()
+                    .eq(User::getUserId, user.getUserId())
+                    .eq(User::getPassword, user.getPassword())
+                    .set(User::getPassword, newPassword)
+                    .update()) {
+                userCache.evict(user);
+            }
+        });
+    }
+
     @Override
     public UserInfoVo getUserInfo(Long userId) {
-        User user = userMapper.selectById(userId);
+        User user = userCache.getById(userId, () -> userMapper.selectById(userId));
         if(user == null) {
             return null;
         }
@@ -102,11 +188,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public void disableUser(Long userId, LogoffDto logoffDto) throws UserException, SystemException {
         // 先判断是否存在
-        if(!this.exists(Wrappers.<User>lambdaQuery()
-                .eq(User::getUserId, userId)
-                .eq(User::getStatus, UserStatusEnum.NORMAL))) {
-            throw new NotFoundException("要封禁或注销的用户ID不存在");
-        }
+        User current = getEnabledUser(userId, "要封禁或注销的用户ID不存在");
         User user = new User();
         user.setUserId(userId);
         user.setStatus(logoffDto.getStatus());
@@ -115,16 +197,13 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if(!this.updateById(user)) {
             throw new DatabaseException("MybatisPlus更新数据库失败");
         }
+        userCache.evict(current);
     }
 
     @Override
     public void updateUserInfo(Long userId, UserUpdateDto userUpdateDto) throws UserException, SystemException {
         // 先判断是否存在
-        if(!this.exists(Wrappers.<User>lambdaQuery()
-                .eq(User::getUserId, userId)
-                .eq(User::getStatus, UserStatusEnum.NORMAL))) {
-            throw new NotFoundException("用户ID不存在或不可用");
-        }
+        User current = getEnabledUser(userId, "用户ID不存在或不可用");
         User user = new User();
         user.setUserId(userId);
         user.setUpdateTime(LocalDateTime.now());
@@ -132,20 +211,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if(!this.updateById(user)) {
             throw new DatabaseException("MybatisPlus更新数据库失败");
         }
+        userCache.evict(current);
     }
 
     @Override
     public void setUserAdminPower(Long userId, boolean status) throws UserException, SystemException {
         // 先判断是否存在
-        if(!this.exists(Wrappers.<User>lambdaQuery()
-                .eq(User::getUserId, userId)
-                .eq(User::getStatus, UserStatusEnum.NORMAL))) {
-            throw new NotFoundException("用户ID不存在或不可用");
-        }
-        User user = this.getById(userId);
+        User user = getEnabledUser(userId, "用户ID不存在或不可用");
         user.setPower(status ? UserPower.ADMIN : UserPower.USER);
         if(!this.updateById(user)) {
             throw new DatabaseException("MybatisPlus更新数据库失败");
         }
+        userCache.evict(user);
     }
 }
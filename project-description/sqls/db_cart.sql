@@ -46,6 +46,9 @@ UNLOCK TABLES;
 -- Table structure for table `cart_item`
 --
 
+-- 已有数据库升级时需要先合并同一购物车中重复的商品记录，再执行：
+-- ALTER TABLE `cart_item` ADD UNIQUE KEY `uk_cart_item_cart_product` (`cart_id`,`product_id`);
+
 DROP TABLE IF EXISTS `cart_item`;
 /*!40101 SET @saved_cs_client     = @@character_set_client */;
 /*!50503 SET character_set_client = utf8mb4 */;
@@ -58,6 +61,7 @@ CREATE TABLE `cart_item` (
   `update_time` datetime NOT NULL DEFAULT (now()) ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `cart_id` bigint NOT NULL,
   PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_cart_item_cart_product` (`cart_id`,`product_id`),
   KEY `fk_cart_item_cart` (`cart_id`),
   CONSTRAINT `fk_cart_item_cart` FOREIGN KEY (`cart_id`) REFERENCES `cart` (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC COMMENT='购物车物品数据库';
@@ -0,0 +1,21 @@
+-- 本地消息表，需要通过OutboxPublisher发送MQ消息的服务（payment、order）在各自的业务数据库中执行
+-- 投递成功的消息会被删除，status = 1 的记录为重试耗尽的死信，排查原因后可以手动重放：
+-- UPDATE mq_outbox SET status = 0, retry_count = 0, next_retry_time = NOW(3), claim_token = NULL, update_time = NOW(3) WHERE status = 1 AND id IN (...);
+CREATE TABLE IF NOT EXISTS `mq_outbox`
+(
+    `id`              BIGINT       NOT NULL COMMENT '消息ID',
+    `exchange`        VARCHAR(255) NOT NULL COMMENT '交换机',
+    `routing_key`     VARCHAR(255) NOT NULL COMMENT '路由键',
+    `body`            MEDIUMBLOB   NOT NULL COMMENT '消息体',
+    `properties`      TEXT         NOT NULL COMMENT '消息属性（JSON）',
+    `status`          TINYINT      NOT NULL DEFAULT 0 COMMENT '0待投递，1死信',
+    `retry_count`     INT          NOT NULL DEFAULT 0 COMMENT '已重试次数',
+    `next_retry_time` DATETIME(3)  NOT NULL COMMENT '下次投递时间',
+    `claim_token`     VARCHAR(64)  NULL COMMENT '投递线程认领标记',
+    `last_error`      VARCHAR(255) NULL COMMENT '最近一次投递失败的原因',
+    `create_time`     DATETIME(3)  NOT NULL COMMENT '创建时间',
+    `update_time`     DATETIME(3)  NOT NULL COMMENT '修改时间',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_next_retry_time` (`status`, `next_retry_time`),
+    KEY `idx_claim_token` (`claim_token`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT ='本地消息表';